@@ -1,20 +1,41 @@
 package com.brentcroft.gtd.driver.client;
 
 import com.brentcroft.gtd.driver.GuiControllerMBean;
+import com.brentcroft.gtd.driver.client.notification.ListenerChannel;
+import com.brentcroft.gtd.driver.client.notification.ListenerRegistration;
+import com.brentcroft.gtd.driver.client.notification.NotificationDispatcher;
+import com.brentcroft.gtd.driver.client.notification.NotificationFilters;
+import com.brentcroft.gtd.driver.client.notification.NotificationJournal;
+import com.brentcroft.gtd.driver.client.notification.NotificationPublisher;
+import com.brentcroft.gtd.driver.client.notification.OverflowPolicy;
+import com.brentcroft.gtd.driver.client.snapshot.SnapshotCache;
+import com.brentcroft.gtd.driver.client.snapshot.SnapshotIndex;
 import com.brentcroft.util.DateUtils;
 import com.brentcroft.util.Waiter8;
-import com.brentcroft.util.buffer.AsynchBuffer;
 import java.io.IOException;
-import java.util.HashMap;
-import java.util.Map;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.lang.reflect.UndeclaredThrowableException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
 import javax.management.InstanceNotFoundException;
 import javax.management.JMX;
 import javax.management.ListenerNotFoundException;
 import javax.management.MBeanServerConnection;
 import javax.management.MalformedObjectNameException;
 import javax.management.Notification;
+import javax.management.NotificationFilterSupport;
 import javax.management.NotificationListener;
 import javax.management.ObjectName;
+import javax.management.remote.JMXConnectionNotification;
 import javax.management.remote.JMXConnector;
 import javax.management.remote.JMXConnectorFactory;
 import javax.management.remote.JMXServiceURL;
@@ -33,20 +54,80 @@ public abstract class AbstractGuiLocalDriver implements GuiDriver
     protected String jmxRmiUrl = "service:jmx:rmi:///jndi/rmi://:9999/jmxrmi";
 
     protected double defaultRelaxSeconds = 1.0;
+    protected RelaxStrategy relaxStrategy = RelaxStrategy.FIXED;
+    protected double relaxSettleSeconds = 0.1;
+    protected final RelaxPolicy relaxPolicy = new RelaxPolicy();
     protected double defaultPollDelaySeconds = 1.0;
     protected double defaultTimeoutSeconds = 5.0;
 
+    // how long the connection may sit idle before it is re-validated
+    protected double connectionLeaseSeconds = 30.0;
+
     // TODO; where from???
     protected String mBeanRef = "XXXX";
     protected ObjectName mbeanName;
 
     // buffer and asynchronously notify harness Notifications
-    private AsynchBuffer< Notification > remoteNotificationBuffer = createBuffer();
-    protected Map< Integer, NotificationListener > notificationListeners = new HashMap< Integer, NotificationListener >();
+    protected int notificationBufferSize = 4096;
+    protected int notificationBatchSize = 64;
+    protected boolean sharedNotificationDispatch = false;
+    private volatile NotificationDispatcher notificationDispatcher = null;
+    protected final List< ListenerChannel > notificationListeners = new CopyOnWriteArrayList<>();
+
+    // each listener has its own queue
+    protected int listenerQueueSize = 1024;
+    protected OverflowPolicy listenerOverflowPolicy = OverflowPolicy.DROP_OLDEST;
+
+    // optionally record every harness notification
+    protected int notificationJournalSize = 16 * 1024 * 1024;
+    private volatile NotificationJournal notificationJournal = null;
+
+    // only ask the harness for notifications that someone wants
+    protected boolean notificationFiltering = true;
+    private boolean remoteListenerAttached = false;
+    private NotificationFilterSupport remoteNotificationFilter = null;
+    private Set< String > remoteNotificationTypes = null;
+
+    // watches harness notifications to decide when the GUI has gone quiet
+    protected final GuiActivityMonitor activityMonitor = new GuiActivityMonitor();
+
+    private volatile long lastRelaxMillis = 0;
+
+    // the last parsed snapshot, until GUI activity makes it stale
+    protected boolean snapshotCaching = false;
+    protected final SnapshotCache snapshotCache = new SnapshotCache();
+
+    // evaluate simple paths over the snapshot text without building a DOM
+    protected boolean streamingEvaluation = false;
+
+    // index parsed snapshots by attribute value
+    protected boolean snapshotIndexing = false;
+    protected Set< String > indexedAttributes = Collections.unmodifiableSet( new LinkedHashSet<>( Arrays.asList( "id", "name", "text" ) ) );
+    protected final SnapshotIndex.Statistics indexStatistics = new SnapshotIndex.Statistics();
+
+    // re-evaluate waits when the harness reports GUI activity, rather than polling
+    protected boolean eventDrivenWaits = false;
 
     //
+    private JMXConnector connector = null;
     private MBeanServerConnection serverConnection = null;
-    private GuiControllerMBean controller = null;
+    private volatile GuiControllerMBean controller = null;
+    private volatile long lastContact = 0;
+
+    // refuses reconnects for a while after repeated failures
+    protected final CircuitBreaker circuitBreaker = new CircuitBreaker();
+
+    // how long to keep trying to attach the harness listener to a new connection
+    protected double remoteListenerAttachSeconds = 5.0;
+
+    // runs async() operations (null for the default)
+    protected Executor asyncExecutor = null;
+    private volatile GuiDriverAsync async = null;
+
+    // optional extra connections for reads
+    protected int connectionPoolSize = 0;
+    protected double connectionPoolTimeoutSeconds = 30.0;
+    private volatile JmxConnectionPool connectionPool = null;
 
     public void setMBeanRef( String mBeanRef )
     {
@@ -56,15 +137,45 @@ public abstract class AbstractGuiLocalDriver implements GuiDriver
     //
     private final NotificationListener remoteNotificationListener = ( notification, handback ) -> {
 
-        // make a copy to decouple from rmi
-        Notification copy = new Notification(
-                notification.getType(),
-                "" + notification.getSource(),
-                notification.getSequenceNumber(),
-                notification.getTimeStamp(),
-                notification.getMessage() );
+        if ( activityMonitor.notification( notification ) )
+        {
+            snapshotCache.invalidate();
+        }
+
+        NotificationJournal journal = notificationJournal;
+
+        if ( journal != null )
+        {
+            journal.record( notification );
+        }
+
+        // copied (if anyone's listening) on the dispatcher thread
+        getNotificationDispatcher().publish( notification );
+    };
+
+    // the connector tells us when the connection fails or closes
+    // so the next call to remote() can rebuild it
+    private final NotificationListener connectionNotificationListener = ( notification, handback ) -> {
+
+        String type = notification.getType();
 
-        remoteNotificationBuffer.add( copy );
+        if ( JMXConnectionNotification.FAILED.equals( type ) || JMXConnectionNotification.CLOSED.equals( type ) )
+        {
+            synchronized ( this )
+            {
+                // ignore news about connectors we've already abandoned
+                if ( handback == connector )
+                {
+                    controller = null;
+                }
+            }
+
+            logger.debug( format( "[%s] Connection lost: type=[%s], url=[%s].", serial, type, jmxRmiUrl ) );
+        }
+        else if ( JMXConnectionNotification.NOTIFS_LOST.equals( type ) )
+        {
+            logger.warn( format( "[%s] Harness notifications lost: %s", serial, notification.getMessage() ) );
+        }
     };
 
     public String toString()
@@ -74,31 +185,122 @@ public abstract class AbstractGuiLocalDriver implements GuiDriver
                 "mbean-ref=[%s]%n" +
                 "default.pollDelay.seconds=[%s]%n" +
                 "default.timeout.seconds=[%s]%n" +
-                "default.relax.seconds=[%s]",
+                "default.relax.seconds=[%s]%n" +
+                "relax.strategy=[%s]%n" +
+                "relax.settle.seconds=[%s]%n" +
+                "relax.policy=%s%n" +
+                "snapshot.caching=[%s]%n" +
+                "streaming.evaluation=[%s]%n" +
+                "snapshot.indexing=[%s]%n" +
+                "indexed.attributes=%s%n" +
+                "event.driven.waits=[%s]%n" +
+                "notification.filtering=[%s]%n" +
+                "notification.buffer.size=[%s]%n" +
+                "notification.batch.size=[%s]%n" +
+                "notification.dispatch.shared=[%s]%n" +
+                "listener.queue.size=[%s]%n" +
+                "listener.overflow.policy=[%s]%n" +
+                "notification.journal=[%s]%n" +
+                "remote.listener.attach.seconds=[%s]%n" +
+                "circuit.breaker=[%s]%n" +
+                "connection.pool.size=[%s]%n" +
+                "connection.pool.timeout.seconds=[%s]%n" +
+                "connection.lease.seconds=[%s]",
                 this.serial,
                 this.jmxRmiUrl,
                 this.mBeanRef,
                 this.defaultPollDelaySeconds,
                 this.defaultTimeoutSeconds,
-                this.defaultRelaxSeconds );
+                this.defaultRelaxSeconds,
+                this.relaxStrategy,
+                this.relaxSettleSeconds,
+                this.relaxPolicy,
+                this.snapshotCaching,
+                this.streamingEvaluation,
+                this.snapshotIndexing,
+                this.indexedAttributes,
+                this.eventDrivenWaits,
+                this.notificationFiltering,
+                this.notificationBufferSize,
+                this.notificationBatchSize,
+                this.sharedNotificationDispatch,
+                this.listenerQueueSize,
+                this.listenerOverflowPolicy,
+                this.notificationJournal,
+                this.remoteListenerAttachSeconds,
+                this.circuitBreaker,
+                this.connectionPoolSize,
+                this.connectionPoolTimeoutSeconds,
+                this.connectionLeaseSeconds );
     }
 
     /**
-     * Pause for an amount of time <code>defaultRelaxSeconds</code> so that the
+     * Pause for up to <code>defaultRelaxSeconds</code> so that the
      * target GUI can digest recent commands.
      * <p/>
-     * This should be called after each and every harness invocation.
+     * With the <code>ADAPTIVE</code> strategy the pause ends as soon as the harness has
+     * reported no GUI activity for <code>relaxSettleSeconds</code>.
      */
     protected void relax()
     {
+        relax( null );
+    }
+
+    /**
+     * Relax after invoking an operation, using the strategy the relax policy assigns to that operation
+     * (by default, read-only operations don't relax at all).
+     * <p/>
+     * This should be called after each and every harness invocation.
+     *
+     * @param operation the name of the <code>GuiControllerMBean</code> operation just invoked
+     */
+    protected void relax( String operation )
+    {
+        // anything that isn't a read may have changed the GUI
+        if ( !RelaxPolicy.isReadOperation( operation ) )
+        {
+            snapshotCache.invalidate();
+        }
+
         if ( defaultRelaxSeconds > 0 )
         {
-            Waiter8.delay( DateUtils.secondsToMillis( defaultRelaxSeconds ) );
+            RelaxStrategy strategy = relaxPolicy.getStrategy( operation, relaxStrategy );
+
+            lastRelaxMillis = strategy.relax(
+                    activityMonitor,
+                    DateUtils.secondsToMillis( relaxSettleSeconds ),
+                    DateUtils.secondsToMillis( defaultRelaxSeconds ) );
+
+            if ( logger.isDebugEnabled() )
+            {
+                logger.debug( format( "[%s] Relaxed: operation=[%s], strategy=[%s], millis=[%s].",
+                        serial,
+                        operation,
+                        strategy,
+                        lastRelaxMillis ) );
+            }
         }
     }
 
+    /**
+     * @return how long the most recent relax actually took, in milliseconds.
+     */
+    public long getLastRelaxMillis()
+    {
+        return lastRelaxMillis;
+    }
+
     /**
      * Obtain a JMX Bean to manipulate and interrogate the Gui.
+     * <p/>
+     * An existing connection is returned without any remote call unless no call on it has
+     * succeeded for longer than <code>connectionLeaseSeconds</code>, in which case
+     * it is re-validated with an <code>echo</code>. Failed or closed connections
+     * are reported by the connector, or noticed when a call fails with an IOException,
+     * and are rebuilt on the next call.
+     * <p/>
+     * A connection within its lease is returned without locking;
+     * only re-validating and reconnecting are synchronized.
      *
      * @return a GuiControllerMBean instance
      * @throws IOException
@@ -107,12 +309,44 @@ public abstract class AbstractGuiLocalDriver implements GuiDriver
      * @throws Exception
      *             if the GuiControllerMBean instance can't be obtained.
      */
-    protected synchronized GuiControllerMBean remote()
+    protected GuiControllerMBean remote()
+    {
+        final GuiControllerMBean current = controller;
+
+        if ( current != null )
+        {
+            final long now = System.currentTimeMillis();
+
+            if ( now - lastContact < DateUtils.secondsToMillis( connectionLeaseSeconds ) )
+            {
+                // lease still good
+                return current;
+            }
+        }
+
+        return reconnect();
+    }
+
+    /**
+     * Re-validate the connection (if there is one) or make a new one.
+     *
+     * @return a GuiControllerMBean instance
+     */
+    private synchronized GuiControllerMBean reconnect()
     {
+        final long now = System.currentTimeMillis();
+
         if ( controller != null )
         {
+            if ( now - lastContact < DateUtils.secondsToMillis( connectionLeaseSeconds ) )
+            {
+                // another thread got here first
+                return controller;
+            }
+
             try
             {
+                // renews the lease
                 controller.echo( "echo" );
 
                 // good bean
@@ -125,11 +359,29 @@ public abstract class AbstractGuiLocalDriver implements GuiDriver
             }
         }
 
+        // don't leak the old connection's sockets and threads
+        closeConnector();
+
+        if ( !circuitBreaker.allowRequest() )
+        {
+            throw new GuiDriverException(
+                    format( "[%s] Harness unavailable; not reconnecting for another [%s] ms: url=[%s], id=[%s], %s.",
+                            serial,
+                            circuitBreaker.getRemainingMillis(),
+                            jmxRmiUrl,
+                            mBeanRef,
+                            circuitBreaker ) );
+        }
+
         try
         {
             JMXServiceURL url = new JMXServiceURL( jmxRmiUrl );
             JMXConnector jmxc = JMXConnectorFactory.connect( url, null );
 
+            connector = jmxc;
+
+            jmxc.addConnectionNotificationListener( connectionNotificationListener, null, jmxc );
+
             serverConnection = jmxc.getMBeanServerConnection();
 
             mbeanName = new ObjectName( mBeanRef );
@@ -144,7 +396,7 @@ public abstract class AbstractGuiLocalDriver implements GuiDriver
             // to receive relayed notifications
             // allow retries - as can fail first time
             new Waiter8()
-                    .withTimeoutMillis( 5000 )
+                    .withTimeoutMillis( DateUtils.secondsToMillis( remoteListenerAttachSeconds ) )
                     .withDelayMillis( 100 )
                     .onTimeout( t -> {
                         String msg = format( "[%s] Giving up trying to attach remote notification listener: %s", serial,
@@ -154,203 +406,1129 @@ public abstract class AbstractGuiLocalDriver implements GuiDriver
                     } )
                     .until( this::attachRemoteNotificationListener );
 
-            controller = mbeanProxy;
+            final GuiControllerMBean leased = lease( mbeanProxy, jmxc );
+
+            circuitBreaker.recordSuccess();
+
+            // can't know what happened while disconnected
+            snapshotCache.invalidate();
 
             if ( logger.isDebugEnabled() )
             {
-                logger.debug( format( "[%s] Created new MBeanProxy: %s", serial, controller ) );
+                logger.debug( format( "[%s] Created new MBeanProxy: %s", serial, mbeanProxy ) );
             }
 
-            return mbeanProxy;
+            return leased;
         }
         catch ( Exception e )
         {
             // so on next call
             controller = null;
-            serverConnection = null;
+
+            closeConnector();
+
+            circuitBreaker.recordFailure();
 
             throw new GuiDriverException(
-                    format( "[%s] Failed to obtain MBean: url=[%s], id=[%s], cause=[%s].",
+                    format( "[%s] Failed to obtain MBean: url=[%s], id=[%s], cause=[%s], %s.",
                             serial,
                             jmxRmiUrl,
-                            mBeanRef, e ),
+                            mBeanRef,
+                            e,
+                            circuitBreaker ),
                     e );
         }
     }
 
-    public void cleanup()
+    /**
+     * Make a connection the one in use.
+     * <p/>
+     * Each call that succeeds renews the lease; a call that fails with an IOException
+     * drops the connection (if it's still the one made by <code>handback</code>),
+     * so the next call to remote() rebuilds it.
+     *
+     * @param mbeanProxy the connection
+     * @param handback   the connector the connection was made by
+     * @return the connection in use
+     */
+    synchronized GuiControllerMBean lease( GuiControllerMBean mbeanProxy, Object handback )
     {
-        removeAllNotificationListeners();
-        detachRemoteNotificationListener();
+        final GuiControllerMBean leased = ( GuiControllerMBean ) Proxy.newProxyInstance(
+                GuiControllerMBean.class.getClassLoader(),
+                new Class[]{ GuiControllerMBean.class },
+                ( proxy, method, args ) -> {
+
+                    if ( method.getDeclaringClass() == Object.class )
+                    {
+                        switch ( method.getName() )
+                        {
+                            case "equals":
+                                return proxy == args[ 0 ];
+
+                            case "hashCode":
+                                return System.identityHashCode( proxy );
+
+                            default:
+                                return mbeanProxy.toString();
+                        }
+                    }
+
+                    try
+                    {
+                        final Object result = method.invoke( mbeanProxy, args );
+
+                        lastContact = System.currentTimeMillis();
+
+                        return result;
+                    }
+                    catch ( InvocationTargetException e )
+                    {
+                        if ( isConnectionFailure( e.getCause() ) )
+                        {
+                            synchronized ( this )
+                            {
+                                // ignore news about connectors we've already abandoned
+                                if ( handback == connector )
+                                {
+                                    controller = null;
+                                }
+                            }
+
+                            logger.debug( format( "[%s] Connection failed: url=[%s], cause=[%s].", serial, jmxRmiUrl, e.getCause() ) );
+                        }
+
+                        throw e.getCause();
+                    }
+                } );
+
+        controller = leased;
+        lastContact = System.currentTimeMillis();
+
+        return leased;
     }
 
-    public boolean attachRemoteNotificationListener()
+    private static boolean isConnectionFailure( Throwable t )
     {
-        if ( serverConnection != null )
+        // the MBean proxy wraps IOExceptions (and other checked JMX exceptions) in UndeclaredThrowableExceptions
+        for ( ; t != null; t = t.getCause() )
         {
-            try
+            if ( t instanceof IOException || t instanceof UndeclaredThrowableException )
             {
-                serverConnection.addNotificationListener( mbeanName, remoteNotificationListener, null, null );
-
-                logger.debug( format( "[%s] Attached harness listener: [%s], listener=[%s].", serial, mBeanRef,
-                        remoteNotificationListener ) );
-
                 return true;
             }
-            catch ( Exception e )
-            {
-                // logger.warn( format( "[%s] Error attaching harness listener: [%s],
-                // listener=[%s]", serial, mBeanRef, remoteNotificationListener ), e );
-            }
         }
 
         return false;
     }
 
-    public void detachRemoteNotificationListener()
+    /**
+     * Close the current connector (if any), forgetting the connection.
+     */
+    private synchronized void closeConnector()
     {
-        if ( serverConnection != null )
+        final JMXConnector jmxc = connector;
+
+        connector = null;
+        serverConnection = null;
+        remoteListenerAttached = false;
+        remoteNotificationFilter = null;
+        remoteNotificationTypes = null;
+
+        if ( jmxc == null )
         {
-            try
-            {
-                serverConnection.removeNotificationListener(
-                        mbeanName,
-                        remoteNotificationListener );
+            return;
+        }
 
-                logger.debug( format( "[%s] Detached harness listener: [%s], listener=[%s].",
-                        serial,
-                        mBeanRef,
-                        remoteNotificationListener ) );
-            }
-            catch ( IOException | ListenerNotFoundException ignored )
-            {
-                // terminated
-            }
-            catch ( Exception e )
+        try
+        {
+            jmxc.removeConnectionNotificationListener( connectionNotificationListener );
+        }
+        catch ( ListenerNotFoundException ignored )
+        {
+            // never added
+        }
+
+        try
+        {
+            jmxc.close();
+
+            if ( logger.isDebugEnabled() )
             {
-                logger.warn( format( "[%s] Error detaching harness listener: [%s], listener=[%s]; %",
-                        serial,
-                        mBeanRef,
-                        remoteNotificationListener,
-                        e ) );
+                logger.debug( format( "[%s] Closed connector: url=[%s].", serial, jmxRmiUrl ) );
             }
         }
+        catch ( IOException e )
+        {
+            // probably already broken
+            logger.debug( format( "[%s] Error closing connector: url=[%s]; %s", serial, jmxRmiUrl, e ) );
+        }
     }
 
-    public String getJmxRmiUrl()
+    /**
+     * Drop the connection to the harness (and any pooled connections);
+     * the next call makes a new one.
+     */
+    public synchronized void disconnect()
     {
-        return jmxRmiUrl;
-    }
+        controller = null;
 
-    public void setJmxRmiUrl( String jmxRmiUrl )
-    {
-        this.jmxRmiUrl = jmxRmiUrl;
+        closeConnector();
+        closeConnectionPool();
     }
 
-    public double getDefaultPollDelaySeconds()
+    /**
+     * The GuiControllerMBean to use for read operations:
+     * a pooled connection per call if the connection pool is on, otherwise the primary connection.
+     * <p/>
+     * Notifications are only attached to the primary connection, which is made first if need be.
+     *
+     * @return a GuiControllerMBean instance
+     */
+    protected GuiControllerMBean reader()
     {
-        return defaultPollDelaySeconds;
-    }
+        if ( connectionPoolSize <= 0 )
+        {
+            return remote();
+        }
 
-    public void setDefaultPollDelaySeconds( double defaultPollDelaySeconds )
-    {
-        this.defaultPollDelaySeconds = defaultPollDelaySeconds;
-    }
+        if ( controller == null )
+        {
+            remote();
+        }
 
-    public double getDefaultTimeout()
-    {
-        return defaultTimeoutSeconds;
+        return getConnectionPool().getController();
     }
 
-    public void setDefaultTimeout( double defaultTimeout )
+    public GuiDriverAsync async()
     {
-        this.defaultTimeoutSeconds = defaultTimeout;
+        GuiDriverAsync a = async;
+
+        if ( a == null )
+        {
+            // one per driver, to keep its operations in order
+            synchronized ( this )
+            {
+                a = async;
+
+                if ( a == null )
+                {
+                    a = new ExecutorGuiDriverAsync( this, asyncExecutor );
+
+                    async = a;
+                }
+            }
+        }
+
+        return a;
     }
 
-    public void setDefaultRelaxSeconds( double defaultRelaxSeconds )
+    public Executor getAsyncExecutor()
     {
-        this.defaultRelaxSeconds = defaultRelaxSeconds;
+        return asyncExecutor;
     }
 
-    public double getDefaultRelaxSeconds()
+    /**
+     * The executor that runs the operations of <code>async()</code>; by default,
+     * a virtual thread per operation if available, otherwise a pool of daemon threads.
+     * <p/>
+     * With many drivers, pass the same executor to each (or leave the default)
+     * to bound the total number of threads; each driver's operations still run one at a time.
+     *
+     * @param asyncExecutor the executor, or null for the default
+     */
+    public void setAsyncExecutor( Executor asyncExecutor )
     {
-        return defaultRelaxSeconds;
+        this.asyncExecutor = asyncExecutor;
+        this.async = null;
     }
 
-    // JMX Notification
-
-    public void addNotificationListener( NotificationListener nl )
+    /**
+     * @return the connection pool (created if need be), or null if pooling is off
+     */
+    public JmxConnectionPool getConnectionPool()
     {
-        if ( logger.isDebugEnabled() )
+        if ( connectionPoolSize <= 0 )
         {
-            logger.debug( format( "[%s] Added NotificationListener [%s].", serial, nl ) );
+            return null;
         }
 
-        notificationListeners.put( nl.hashCode(), nl );
-    }
+        JmxConnectionPool pool = connectionPool;
 
-    public void removeNotificationListener( NotificationListener nl )
-    {
-        if ( !notificationListeners.containsKey( nl.hashCode() ) )
+        if ( pool == null || !pool.getJmxRmiUrl().equals( jmxRmiUrl ) || pool.getSize() != connectionPoolSize )
         {
-            return;
-        }
+            synchronized ( this )
+            {
+                pool = connectionPool;
+
+                if ( pool == null || !pool.getJmxRmiUrl().equals( jmxRmiUrl ) || pool.getSize() != connectionPoolSize )
+                {
+                    if ( pool != null )
+                    {
+                        pool.close();
+                    }
 
-        notificationListeners.remove( nl.hashCode() );
+                    pool = new JmxConnectionPool(
+                            jmxRmiUrl,
+                            mBeanRef,
+                            connectionPoolSize,
+                            DateUtils.secondsToMillis( connectionPoolTimeoutSeconds ) );
 
-        if ( logger.isDebugEnabled() )
-        {
-            logger.debug( format( "[%s] Dropped NotificationListener [%s].", serial, nl ) );
+                    connectionPool = pool;
+                }
+            }
         }
+
+        return pool;
     }
 
-    public void removeAllNotificationListeners()
+    private synchronized void closeConnectionPool()
     {
-        if ( notificationListeners.isEmpty() )
+        if ( connectionPool != null )
         {
-            return;
+            connectionPool.close();
+            connectionPool = null;
         }
+    }
+
+    public void cleanup()
+    {
+        snapshotCache.clear();
+        closeConnectionPool();
+        removeAllNotificationListeners();
+        detachRemoteNotificationListener();
 
-        notificationListeners.clear();
+        // stop the dispatcher thread; a driver used again gets a new one
+        final NotificationDispatcher dispatcher;
 
-        if ( logger.isDebugEnabled() )
+        synchronized ( notificationListeners )
         {
-            logger.debug( format( "[%s] Dropped all NotificationListeners.", serial ) );
+            dispatcher = notificationDispatcher;
+            notificationDispatcher = null;
         }
-    }
 
-    private void notifyListeners( Notification notification )
-    {
-        if ( notificationListeners.isEmpty() )
+        if ( dispatcher != null )
         {
-            return;
+            dispatcher.close();
         }
 
-        for ( NotificationListener nl : notificationListeners.values() )
+        final NotificationJournal journal = notificationJournal;
+
+        notificationJournal = null;
+
+        if ( journal != null )
         {
-            if ( nl != null )
+            try
+            {
+                journal.close();
+            }
+            catch ( IOException e )
             {
-                nl.handleNotification( notification, null );
+                logger.warn( format( "[%s] Error closing notification journal [%s].", serial, journal.getPath() ), e );
             }
         }
     }
 
-    private AsynchBuffer< Notification > createBuffer()
+    public synchronized boolean attachRemoteNotificationListener()
     {
-        return new AsynchBuffer< Notification >( format( "[%s] Notification Buffer", serial ) ) {
-            public void process( Notification notification )
+        if ( serverConnection != null )
+        {
+            try
             {
-                if ( logger.isTraceEnabled() )
-                {
-                    logger.trace( format( "[%s] Processing Notification: type=[%s], seq[%s], timestamp=[%s].",
-                            serial,
-                            notification.getType(),
-                            notification.getSequenceNumber(),
-                            notification.getTimeStamp() ) );
-                }
+                final Set< String > types = getWantedNotificationTypes();
+                final NotificationFilterSupport filter = NotificationFilters.newFilter( types );
+
+                serverConnection.addNotificationListener( mbeanName, remoteNotificationListener, filter, null );
+
+                remoteListenerAttached = true;
+                remoteNotificationFilter = filter;
+                remoteNotificationTypes = types;
 
-                notifyListeners( notification );
+                logger.debug( format( "[%s] Attached harness listener: [%s], listener=[%s], types=%s.", serial, mBeanRef,
+                        remoteNotificationListener, types == null ? "[*]" : types ) );
+
+                return true;
             }
-        };
+            catch ( Exception e )
+            {
+                // logger.warn( format( "[%s] Error attaching harness listener: [%s],
+                // listener=[%s]", serial, mBeanRef, remoteNotificationListener ), e );
+            }
+        }
+
+        return false;
+    }
+
+    public synchronized void detachRemoteNotificationListener()
+    {
+        remoteListenerAttached = false;
+        remoteNotificationFilter = null;
+        remoteNotificationTypes = null;
+
+        if ( serverConnection != null )
+        {
+            try
+            {
+                serverConnection.removeNotificationListener(
+                        mbeanName,
+                        remoteNotificationListener );
+
+                logger.debug( format( "[%s] Detached harness listener: [%s], listener=[%s].",
+                        serial,
+                        mBeanRef,
+                        remoteNotificationListener ) );
+            }
+            catch ( IOException | ListenerNotFoundException ignored )
+            {
+                // terminated
+            }
+            catch ( Exception e )
+            {
+                logger.warn( format( "[%s] Error detaching harness listener: [%s], listener=[%s]; %",
+                        serial,
+                        mBeanRef,
+                        remoteNotificationListener,
+                        e ) );
+            }
+        }
+    }
+
+    /**
+     * The notification types wanted by the client listeners, plus the GUI activity types
+     * if some driver feature is watching GUI activity.
+     * <p/>
+     * Sources aren't filtered: every notification comes from the same harness MBean.
+     *
+     * @return the wanted type prefixes, or null if every notification is wanted
+     */
+    protected Set< String > getWantedNotificationTypes()
+    {
+        // the journal records everything
+        if ( !notificationFiltering || notificationJournal != null )
+        {
+            return null;
+        }
+
+        List< String[] > wanted = new ArrayList<>();
+
+        for ( ListenerRegistration registration : notificationListeners )
+        {
+            wanted.add( registration.getTypePrefixes() );
+        }
+
+        if ( isWatchingActivity() )
+        {
+            wanted.add( activityMonitor.getTypePrefixes() );
+        }
+
+        return NotificationFilters.union( wanted );
+    }
+
+    /**
+     * Event driven waits can start at any time, so while they are enabled the activity types are always wanted
+     * (re-registering for each wait would cost more round trips than it saves).
+     *
+     * @return true if some enabled feature depends on GUI activity notifications
+     */
+    protected boolean isWatchingActivity()
+    {
+        return eventDrivenWaits
+                || snapshotCaching
+                || relaxStrategy == RelaxStrategy.ADAPTIVE
+                || relaxPolicy.uses( RelaxStrategy.ADAPTIVE );
+    }
+
+    /**
+     * Re-register the harness listener if the wanted notification types have changed.
+     * <p/>
+     * The new registration is added before the old one is removed, so nothing is missed in between
+     * (although a notification could be received twice).
+     */
+    protected synchronized void refreshRemoteNotificationFilter()
+    {
+        if ( !remoteListenerAttached || serverConnection == null )
+        {
+            return;
+        }
+
+        final Set< String > types = getWantedNotificationTypes();
+
+        if ( Objects.equals( types, remoteNotificationTypes ) )
+        {
+            return;
+        }
+
+        final NotificationFilterSupport filter = NotificationFilters.newFilter( types );
+
+        try
+        {
+            serverConnection.addNotificationListener( mbeanName, remoteNotificationListener, filter, null );
+            serverConnection.removeNotificationListener( mbeanName, remoteNotificationListener, remoteNotificationFilter, null );
+
+            remoteNotificationFilter = filter;
+            remoteNotificationTypes = types;
+
+            if ( logger.isDebugEnabled() )
+            {
+                logger.debug( format( "[%s] Updated harness listener filter: types=%s.",
+                        serial,
+                        types == null ? "[*]" : types ) );
+            }
+        }
+        catch ( Exception e )
+        {
+            logger.warn( format( "[%s] Error updating harness listener filter: types=%s.", serial, types ), e );
+        }
+    }
+
+    public boolean isNotificationFiltering()
+    {
+        return notificationFiltering;
+    }
+
+    /**
+     * When true (the default), the harness listener is registered with a filter so that the harness
+     * only sends notifications of the types wanted by the client listeners (and by the driver's own
+     * use of GUI activity), instead of every notification.
+     *
+     * @param notificationFiltering true to filter notifications at the harness
+     */
+    public void setNotificationFiltering( boolean notificationFiltering )
+    {
+        this.notificationFiltering = notificationFiltering;
+
+        refreshRemoteNotificationFilter();
+    }
+
+    public String getJmxRmiUrl()
+    {
+        return jmxRmiUrl;
+    }
+
+    public void setJmxRmiUrl( String jmxRmiUrl )
+    {
+        this.jmxRmiUrl = jmxRmiUrl;
+    }
+
+    public double getDefaultPollDelaySeconds()
+    {
+        return defaultPollDelaySeconds;
+    }
+
+    public void setDefaultPollDelaySeconds( double defaultPollDelaySeconds )
+    {
+        this.defaultPollDelaySeconds = defaultPollDelaySeconds;
+    }
+
+    public double getDefaultTimeout()
+    {
+        return defaultTimeoutSeconds;
+    }
+
+    public void setDefaultTimeout( double defaultTimeout )
+    {
+        this.defaultTimeoutSeconds = defaultTimeout;
+    }
+
+    public double getConnectionLeaseSeconds()
+    {
+        return connectionLeaseSeconds;
+    }
+
+    public void setConnectionLeaseSeconds( double connectionLeaseSeconds )
+    {
+        this.connectionLeaseSeconds = connectionLeaseSeconds;
+    }
+
+    public void setDefaultRelaxSeconds( double defaultRelaxSeconds )
+    {
+        this.defaultRelaxSeconds = defaultRelaxSeconds;
+    }
+
+    public double getDefaultRelaxSeconds()
+    {
+        return defaultRelaxSeconds;
+    }
+
+    public RelaxStrategy getRelaxStrategy()
+    {
+        return relaxStrategy;
+    }
+
+    public void setRelaxStrategy( RelaxStrategy relaxStrategy )
+    {
+        this.relaxStrategy = relaxStrategy;
+
+        refreshRemoteNotificationFilter();
+    }
+
+    public boolean isSnapshotCaching()
+    {
+        return snapshotCaching;
+    }
+
+    /**
+     * When true, snapshot queries (e.g. <code>getResultText</code>) reuse the last parsed snapshot
+     * until a GUI activity notification arrives or a command that may change the GUI is sent.
+     * <p/>
+     * The harness should be notifying GUI events (see <code>notifyAWTEvents</code>,
+     * <code>notifyFXEvents</code> and <code>notifyDOMEvents</code>) otherwise changes the GUI
+     * makes by itself will go unnoticed.
+     *
+     * @param snapshotCaching true to cache snapshots
+     */
+    public void setSnapshotCaching( boolean snapshotCaching )
+    {
+        this.snapshotCaching = snapshotCaching;
+
+        snapshotCache.invalidate();
+
+        refreshRemoteNotificationFilter();
+    }
+
+    public boolean isStreamingEvaluation()
+    {
+        return streamingEvaluation;
+    }
+
+    /**
+     * When true, paths in the simple subset that snapshot paths usually use
+     * (see <code>SimplePath</code>) are evaluated by streaming over the snapshot text
+     * and stopping at the first match, rather than by building a DOM.
+     * <p/>
+     * Anything outside the subset is still evaluated using DOM.
+     * While snapshot caching is on, queries use the cached DOM instead.
+     *
+     * @param streamingEvaluation true to evaluate by streaming
+     */
+    public void setStreamingEvaluation( boolean streamingEvaluation )
+    {
+        this.streamingEvaluation = streamingEvaluation;
+    }
+
+    public boolean isEventDrivenWaits()
+    {
+        return eventDrivenWaits;
+    }
+
+    /**
+     * When true, <code>waitFor</code> re-evaluates its condition as soon as the harness reports GUI activity,
+     * falling back to polling at the poll interval if nothing is reported.
+     * <p/>
+     * The harness should be notifying GUI events (see <code>notifyAWTEvents</code>,
+     * <code>notifyFXEvents</code> and <code>notifyDOMEvents</code>).
+     *
+     * @param eventDrivenWaits true to wait on GUI activity
+     */
+    public void setEventDrivenWaits( boolean eventDrivenWaits )
+    {
+        this.eventDrivenWaits = eventDrivenWaits;
+
+        refreshRemoteNotificationFilter();
+    }
+
+    public int getNotificationBufferSize()
+    {
+        return notificationBufferSize;
+    }
+
+    /**
+     * The number of harness notifications that may be waiting for delivery to listeners
+     * (rounded up to a power of two); when full, further notifications are dropped
+     * (see <code>getNotificationDispatcher().getDropped()</code>).
+     * <p/>
+     * Only takes effect if set before the first notification arrives.
+     *
+     * @param notificationBufferSize the capacity of the notification buffer
+     */
+    public void setNotificationBufferSize( int notificationBufferSize )
+    {
+        this.notificationBufferSize = notificationBufferSize;
+    }
+
+    public int getNotificationBatchSize()
+    {
+        return notificationBatchSize;
+    }
+
+    /**
+     * The maximum number of notifications taken from the buffer in one go.
+     * <p/>
+     * Only takes effect if set before the first notification arrives.
+     *
+     * @param notificationBatchSize the maximum batch size
+     */
+    public void setNotificationBatchSize( int notificationBatchSize )
+    {
+        this.notificationBatchSize = notificationBatchSize;
+    }
+
+    public CircuitBreaker getCircuitBreaker()
+    {
+        return circuitBreaker;
+    }
+
+    /**
+     * After <code>failures</code> consecutive failed attempts to connect to the harness, calls fail fast
+     * (without trying to connect) for <code>initialBackoffSeconds</code>; then one attempt is allowed,
+     * and if that fails too, the wait is doubled, up to <code>maxBackoffSeconds</code>.
+     *
+     * @param failures              the number of consecutive failures before failing fast
+     * @param initialBackoffSeconds the first wait
+     * @param maxBackoffSeconds     the longest wait
+     */
+    public void setReconnectBackoff( int failures, double initialBackoffSeconds, double maxBackoffSeconds )
+    {
+        circuitBreaker.setFailureThreshold( failures );
+        circuitBreaker.setInitialBackoffMillis( DateUtils.secondsToMillis( initialBackoffSeconds ) );
+        circuitBreaker.setMaxBackoffMillis( DateUtils.secondsToMillis( maxBackoffSeconds ) );
+    }
+
+    public double getRemoteListenerAttachSeconds()
+    {
+        return remoteListenerAttachSeconds;
+    }
+
+    /**
+     * @param remoteListenerAttachSeconds how long to keep trying to attach the harness listener to a new connection
+     */
+    public void setRemoteListenerAttachSeconds( double remoteListenerAttachSeconds )
+    {
+        this.remoteListenerAttachSeconds = remoteListenerAttachSeconds;
+    }
+
+    public int getConnectionPoolSize()
+    {
+        return connectionPoolSize;
+    }
+
+    /**
+     * When more than zero, read operations (e.g. <code>getText</code>, <code>exists</code> and snapshots)
+     * are made on a pool of up to this many extra connections to the harness, one per call,
+     * so that calls from different threads don't share a connection.
+     * <p/>
+     * Other operations, and notifications, use the primary connection.
+     *
+     * @param connectionPoolSize the most pooled connections, or zero for no pool
+     */
+    public void setConnectionPoolSize( int connectionPoolSize )
+    {
+        this.connectionPoolSize = connectionPoolSize;
+
+        if ( connectionPoolSize <= 0 )
+        {
+            closeConnectionPool();
+        }
+    }
+
+    public double getConnectionPoolTimeoutSeconds()
+    {
+        return connectionPoolTimeoutSeconds;
+    }
+
+    /**
+     * @param connectionPoolTimeoutSeconds how long a call waits for a pooled connection when all are in use
+     */
+    public void setConnectionPoolTimeoutSeconds( double connectionPoolTimeoutSeconds )
+    {
+        this.connectionPoolTimeoutSeconds = connectionPoolTimeoutSeconds;
+    }
+
+    public NotificationJournal getNotificationJournal()
+    {
+        return notificationJournal;
+    }
+
+    /**
+     * Record every notification received from the harness (type, sequence, timestamp and message)
+     * in a memory-mapped journal file, that can be read back with <code>NotificationJournal.replay</code>.
+     * <p/>
+     * The file is used as a ring of <code>notificationJournalSize</code> bytes, so the oldest
+     * notifications are overwritten. An existing journal of the same size is continued.
+     * <p/>
+     * While journaling, the harness is asked for every notification (see <code>setNotificationFiltering</code>).
+     *
+     * @param journalFile the journal file, or null (or empty) to stop journaling
+     */
+    public void setNotificationJournal( String journalFile )
+    {
+        NotificationJournal journal = null;
+
+        if ( journalFile != null && !journalFile.trim().isEmpty() )
+        {
+            try
+            {
+                journal = new NotificationJournal( Paths.get( journalFile.trim() ), notificationJournalSize );
+            }
+            catch ( IOException e )
+            {
+                throw new GuiDriverException( format( "[%s] Failed to open notification journal [%s]: %s", serial, journalFile, e ), e );
+            }
+        }
+
+        NotificationJournal previous = notificationJournal;
+
+        notificationJournal = journal;
+
+        if ( previous != null )
+        {
+            try
+            {
+                previous.close();
+            }
+            catch ( IOException e )
+            {
+                logger.warn( format( "[%s] Error closing notification journal [%s].", serial, previous.getPath() ), e );
+            }
+        }
+
+        refreshRemoteNotificationFilter();
+    }
+
+    public int getNotificationJournalSize()
+    {
+        return notificationJournalSize;
+    }
+
+    /**
+     * @param notificationJournalSize the number of bytes of notifications a new journal holds
+     */
+    public void setNotificationJournalSize( int notificationJournalSize )
+    {
+        this.notificationJournalSize = notificationJournalSize;
+    }
+
+    public boolean isSharedNotificationDispatch()
+    {
+        return sharedNotificationDispatch;
+    }
+
+    /**
+     * When true, notifications are delivered to this driver's listeners by tasks on an executor
+     * shared by all drivers (virtual threads if available, otherwise a small pool),
+     * instead of by a thread belonging to this driver.
+     * <p/>
+     * Each driver's notifications are still delivered in order, one batch at a time.
+     * <p/>
+     * Only takes effect if set before the first notification arrives.
+     *
+     * @param sharedNotificationDispatch true to use the shared executor
+     */
+    public void setSharedNotificationDispatch( boolean sharedNotificationDispatch )
+    {
+        this.sharedNotificationDispatch = sharedNotificationDispatch;
+    }
+
+    public boolean isSnapshotIndexing()
+    {
+        return snapshotIndexing;
+    }
+
+    /**
+     * When true, each parsed snapshot gets an index (built once, when first queried) from element name,
+     * attribute and value to elements, so that paths like <code>//JMenuItem[@text='Exit']</code> are
+     * answered without a full descendant scan.
+     * <p/>
+     * This pays off when a snapshot is queried more than once, i.e. with snapshot caching
+     * or batch queries (<code>getResultTexts</code>).
+     *
+     * @param snapshotIndexing true to index snapshots
+     */
+    public void setSnapshotIndexing( boolean snapshotIndexing )
+    {
+        this.snapshotIndexing = snapshotIndexing;
+    }
+
+    public Set< String > getIndexedAttributes()
+    {
+        return indexedAttributes;
+    }
+
+    /**
+     * @param attributes a comma separated list of the attribute names to index.
+     */
+    public void setIndexedAttributes( String attributes )
+    {
+        this.indexedAttributes = Collections.unmodifiableSet(
+                new LinkedHashSet<>( Arrays.asList( attributes.trim().split( "\\s*,\\s*" ) ) ) );
+    }
+
+    public SnapshotIndex.Statistics getIndexStatistics()
+    {
+        return indexStatistics;
+    }
+
+    public SnapshotCache getSnapshotCache()
+    {
+        return snapshotCache;
+    }
+
+    public RelaxPolicy getRelaxPolicy()
+    {
+        return relaxPolicy;
+    }
+
+    /**
+     * Assign per-operation relax strategies.
+     *
+     * @param spec a comma separated list of <code>operation=STRATEGY</code> pairs.
+     * @see RelaxPolicy#configure(String)
+     */
+    public void setRelaxPolicy( String spec )
+    {
+        relaxPolicy.configure( spec );
+
+        refreshRemoteNotificationFilter();
+    }
+
+    public double getRelaxSettleSeconds()
+    {
+        return relaxSettleSeconds;
+    }
+
+    public void setRelaxSettleSeconds( double relaxSettleSeconds )
+    {
+        this.relaxSettleSeconds = relaxSettleSeconds;
+    }
+
+    /**
+     * Assign the notification types (a comma separated list of prefixes) that count as GUI activity
+     * when relaxing adaptively.
+     *
+     * @param typePrefixes the type prefixes, or null or empty for every notification.
+     */
+    public void setRelaxActivityTypes( String typePrefixes )
+    {
+        activityMonitor.setTypePrefixes(
+                typePrefixes == null || typePrefixes.trim().isEmpty()
+                        ? null
+                        : typePrefixes.trim().split( "\\s*,\\s*" ) );
+
+        refreshRemoteNotificationFilter();
+    }
+
+    // JMX Notification
+
+    public void addNotificationListener( NotificationListener nl )
+    {
+        addNotificationListener( nl, ( String[] ) null );
+    }
+
+    public void addNotificationListener( NotificationListener nl, String... typePrefixes )
+    {
+        addNotificationListener( nl, listenerOverflowPolicy, listenerQueueSize, typePrefixes );
+    }
+
+    /**
+     * Add a listener with a delivery queue of its own.
+     * <p/>
+     * Adding a listener that is already registered replaces its registration.
+     *
+     * @param nl           the listener
+     * @param policy       what to do when the listener falls behind and its queue is full
+     * @param queueSize    the maximum number of notifications waiting for the listener
+     * @param typePrefixes the notification type prefixes (none meaning every notification)
+     * @return the listener's channel (e.g. for its metrics)
+     */
+    public ListenerChannel addNotificationListener( NotificationListener nl, OverflowPolicy policy, int queueSize, String... typePrefixes )
+    {
+        ListenerChannel channel = new ListenerChannel( nl, policy, queueSize, null, typePrefixes );
+
+        synchronized ( notificationListeners )
+        {
+            closeChannel( nl );
+
+            notificationListeners.add( channel );
+        }
+
+        if ( logger.isDebugEnabled() )
+        {
+            logger.debug( format( "[%s] Added NotificationListener [%s].", serial, channel ) );
+        }
+
+        refreshRemoteNotificationFilter();
+
+        return channel;
+    }
+
+    private boolean closeChannel( NotificationListener nl )
+    {
+        for ( ListenerChannel channel : notificationListeners )
+        {
+            if ( channel.getListener() == nl )
+            {
+                channel.close();
+
+                return notificationListeners.remove( channel );
+            }
+        }
+
+        return false;
+    }
+
+    public void removeNotificationListener( NotificationListener nl )
+    {
+        synchronized ( notificationListeners )
+        {
+            if ( !closeChannel( nl ) )
+            {
+                return;
+            }
+        }
+
+        if ( logger.isDebugEnabled() )
+        {
+            logger.debug( format( "[%s] Dropped NotificationListener [%s].", serial, nl ) );
+        }
+
+        refreshRemoteNotificationFilter();
+    }
+
+    public void removeAllNotificationListeners()
+    {
+        synchronized ( notificationListeners )
+        {
+            if ( notificationListeners.isEmpty() )
+            {
+                return;
+            }
+
+            notificationListeners.forEach( ListenerChannel::close );
+            notificationListeners.clear();
+        }
+
+        if ( logger.isDebugEnabled() )
+        {
+            logger.debug( format( "[%s] Dropped all NotificationListeners.", serial ) );
+        }
+
+        refreshRemoteNotificationFilter();
+    }
+
+    /**
+     * A reactive publisher of this driver's notifications, which listens to the driver
+     * (for the given types) only while it has subscribers.
+     * <p/>
+     * e.g. to wait without a thread:
+     * <pre>
+     *     driver.newNotificationPublisher( "awt." )
+     *         .awaitFirst( n -&gt; n.getMessage().contains( "Exit" ) )
+     *         .thenRun( ... );
+     * </pre>
+     *
+     * @param typePrefixes the notification type prefixes to publish (none meaning every notification)
+     * @return a new publisher
+     */
+    public NotificationPublisher newNotificationPublisher( String... typePrefixes )
+    {
+        return new NotificationPublisher( this, listenerQueueSize, typePrefixes );
+    }
+
+    /**
+     * @return the registered listeners' channels, e.g. for their lag, drop and coalesce metrics
+     */
+    public List< ListenerChannel > getNotificationListenerChannels()
+    {
+        return Collections.unmodifiableList( notificationListeners );
+    }
+
+    public int getListenerQueueSize()
+    {
+        return listenerQueueSize;
+    }
+
+    /**
+     * @param listenerQueueSize the default maximum number of notifications waiting for each listener
+     */
+    public void setListenerQueueSize( int listenerQueueSize )
+    {
+        this.listenerQueueSize = listenerQueueSize;
+    }
+
+    public OverflowPolicy getListenerOverflowPolicy()
+    {
+        return listenerOverflowPolicy;
+    }
+
+    /**
+     * The default policy for when a listener falls behind and its queue is full:
+     * <code>DROP_OLDEST</code> (the default) discards the oldest waiting notification,
+     * <code>BLOCK</code> holds up delivery until there's room (for up to a second, then drops the oldest),
+     * and <code>COALESCE_BY_TYPE</code> also replaces a waiting notification with a newer one of the same type.
+     *
+     * @param listenerOverflowPolicy the default policy for new listeners
+     */
+    public void setListenerOverflowPolicy( OverflowPolicy listenerOverflowPolicy )
+    {
+        this.listenerOverflowPolicy = listenerOverflowPolicy;
+    }
+
+    private void notifyListeners( List< Notification > notifications )
+    {
+        if ( notificationListeners.isEmpty() )
+        {
+            return;
+        }
+
+        for ( Notification notification : notifications )
+        {
+            if ( logger.isTraceEnabled() )
+            {
+                logger.trace( format( "[%s] Processing Notification: type=[%s], seq[%s], timestamp=[%s].",
+                        serial,
+                        notification.getType(),
+                        notification.getSequenceNumber(),
+                        notification.getTimeStamp() ) );
+            }
+
+            // make a copy to decouple from rmi
+            Notification copy = new Notification(
+                    notification.getType(),
+                    "" + notification.getSource(),
+                    notification.getSequenceNumber(),
+                    notification.getTimeStamp(),
+                    notification.getMessage() );
+
+            for ( ListenerChannel channel : notificationListeners )
+            {
+                if ( channel.accepts( copy ) )
+                {
+                    channel.offer( copy );
+                }
+            }
+        }
+    }
+
+    /**
+     * The dispatcher is created on first use, with the buffer and batch sizes configured at that time.
+     *
+     * @return the dispatcher that delivers harness notifications to the listeners
+     */
+    public NotificationDispatcher getNotificationDispatcher()
+    {
+        NotificationDispatcher dispatcher = notificationDispatcher;
+
+        if ( dispatcher == null )
+        {
+            synchronized ( notificationListeners )
+            {
+                dispatcher = notificationDispatcher;
+
+                if ( dispatcher == null )
+                {
+                    dispatcher = new NotificationDispatcher(
+                            format( "[%s] Notification Dispatcher", serial ),
+                            notificationBufferSize,
+                            notificationBatchSize,
+                            this::notifyListeners,
+                            sharedNotificationDispatch
+                                    ? NotificationDispatcher.getSharedExecutor()
+                                    : null );
+
+                    notificationDispatcher = dispatcher;
+                }
+            }
+        }
+
+        return dispatcher;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,446 @@
+package com.brentcroft.gtd.driver.client;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import org.apache.log4j.Logger;
+
+import static com.brentcroft.util.DateUtils.secondsToMillis;
+import static java.lang.String.format;
+
+/**
+ * Application class data sharing for a launched JVM:
+ * the first launch records the classes it loads into an archive, and later launches map the archive,
+ * rather than loading and verifying each class again.
+ * <p/>
+ * Archives are kept in a directory, keyed by a hash of everything that must match for an archive to be valid
+ * (java command, VM options other than system properties, classpath and main class),
+ * so changing any of them makes a new archive.
+ * Only one launch records an archive for a key; launches meanwhile go without.
+ * The recording (class list or archive) is written as the recording JVM runs, or as it exits,
+ * so it isn't used until the launcher reports that the recording launch has ended (see <code>recorded()</code>).
+ * <p/>
+ * The startup time of launches with and without the archive are kept with it, so the saving can be reported.
+ * <p/>
+ * The launched JVM must support the options of the mode (DYNAMIC needs Java 13 or later, CLASSLIST Java 10);
+ * a JVM finding an archive it can't use ignores it.
+ */
+public class AppCds
+{
+    private final static Logger logger = Logger.getLogger( AppCds.class );
+
+    public enum Mode
+    {
+        /**
+         * The first launch writes the archive when its JVM exits.
+         */
+        DYNAMIC {
+            @Override
+            List< String > recordOptions( AppCds cds, String key )
+            {
+                return Collections.singletonList( "-XX:ArchiveClassesAtExit=" + cds.getArchive( key ).getAbsolutePath() );
+            }
+
+            @Override
+            void createArchive( AppCds cds, String key, String javaExecutable, String classpath, File workingDirectory )
+            {
+                // written by the recording JVM
+            }
+        },
+
+        /**
+         * The first launch writes a list of the classes it loads,
+         * and the next launch after it has ended first runs a JVM to dump an archive from the list.
+         */
+        CLASSLIST {
+            @Override
+            List< String > recordOptions( AppCds cds, String key )
+            {
+                return Collections.singletonList( "-XX:DumpLoadedClassList=" + cds.getClassList( key ).getAbsolutePath() );
+            }
+
+            @Override
+            void createArchive( AppCds cds, String key, String javaExecutable, String classpath, File workingDirectory )
+            {
+                File classList = cds.getClassList( key );
+
+                if ( classList.isFile() && classList.length() > 0 )
+                {
+                    cds.dump( key, javaExecutable, classpath, workingDirectory );
+                }
+            }
+        };
+
+        abstract List< String > recordOptions( AppCds cds, String key );
+
+        abstract void createArchive( AppCds cds, String key, String javaExecutable, String classpath, File workingDirectory );
+    }
+
+    private File directory = new File( System.getProperty( "java.io.tmpdir" ), "gtd-cds" );
+    private Mode mode = Mode.DYNAMIC;
+    private double dumpTimeoutSeconds = 120.0;
+    private double recordingExpirySeconds = 3600.0;
+
+    public String toString()
+    {
+        return format( "directory=[%s], mode=[%s]", directory, mode );
+    }
+
+    /**
+     * @param parts everything an archive depends on
+     * @return a hex SHA-256 hash of the parts
+     */
+    public static String key( String... parts )
+    {
+        try
+        {
+            MessageDigest digest = MessageDigest.getInstance( "SHA-256" );
+
+            for ( String part : parts )
+            {
+                digest.update( String.valueOf( part ).getBytes( StandardCharsets.UTF_8 ) );
+                digest.update( ( byte ) 0 );
+            }
+
+            StringBuilder b = new StringBuilder();
+
+            for ( byte x : digest.digest() )
+            {
+                b.append( format( "%02x", x ) );
+            }
+
+            return b.toString();
+        }
+        catch ( NoSuchAlgorithmException e )
+        {
+            throw new GuiDriverException( "SHA-256 unavailable.", e );
+        }
+    }
+
+    /**
+     * The VM options that matter to an archive: system properties (<code>-D</code>) are left out,
+     * since they don't affect whether an archive can be used, and some (e.g. JMX ports) change every launch.
+     *
+     * @param javaVmOptions the VM options (may be null)
+     * @return the options that should be part of the key
+     */
+    public static String keyOptions( String javaVmOptions )
+    {
+        if ( javaVmOptions == null )
+        {
+            return "";
+        }
+
+        StringBuilder b = new StringBuilder();
+
+        for ( String option : javaVmOptions.trim().split( "\\s+" ) )
+        {
+            if ( !option.isEmpty() && !option.startsWith( "-D" ) )
+            {
+                if ( b.length() > 0 )
+                {
+                    b.append( " " );
+                }
+
+                b.append( option );
+            }
+        }
+
+        return b.toString();
+    }
+
+    public File getArchive( String key )
+    {
+        return new File( directory, key + ".jsa" );
+    }
+
+    public File getClassList( String key )
+    {
+        return new File( directory, key + ".classlist" );
+    }
+
+    private File getRecordingMarker( String key )
+    {
+        return new File( directory, key + ".recording" );
+    }
+
+    private File getTimings( String key )
+    {
+        return new File( directory, key + ".properties" );
+    }
+
+    /**
+     * @param key the archive key
+     * @return true if the archive exists, and isn't still being recorded
+     */
+    public boolean hasArchive( String key )
+    {
+        return !isRecording( key ) && getArchive( key ).isFile() && getArchive( key ).length() > 0;
+    }
+
+    /**
+     * @param key the archive key
+     * @return true if a launch is recording the archive
+     */
+    public boolean isRecording( String key )
+    {
+        return getRecordingMarker( key ).exists();
+    }
+
+    /**
+     * Report that the launch recording an archive has ended (whether or not it produced anything),
+     * so later launches can use the recording.
+     *
+     * @param key the archive key
+     */
+    public synchronized void recorded( String key )
+    {
+        getRecordingMarker( key ).delete();
+
+        logger.info( format( "Recorded CDS: key=[%s], archived=[%s], %s", key, hasArchive( key ), this ) );
+    }
+
+    /**
+     * The VM options for a launch: to use the archive if there is one,
+     * otherwise to record one (unless another launch already is).
+     *
+     * @param key              the archive key
+     * @param javaExecutable   the java command (used by CLASSLIST to dump an archive)
+     * @param classpath        the classpath of the launch
+     * @param workingDirectory the working directory of the launch
+     * @return the VM options
+     */
+    public synchronized List< String > options( String key, String javaExecutable, String classpath, File workingDirectory )
+    {
+        if ( !directory.isDirectory() && !directory.mkdirs() )
+        {
+            logger.warn( format( "Unable to create CDS directory: %s", this ) );
+
+            return Collections.emptyList();
+        }
+
+        expireRecording( key );
+
+        if ( isRecording( key ) )
+        {
+            // the recording isn't complete
+            return Collections.emptyList();
+        }
+
+        if ( !hasArchive( key ) )
+        {
+            mode.createArchive( this, key, javaExecutable, classpath, workingDirectory );
+        }
+
+        if ( hasArchive( key ) )
+        {
+            return Arrays.asList( "-XX:SharedArchiveFile=" + getArchive( key ).getAbsolutePath(), "-Xshare:auto" );
+        }
+
+        if ( claimRecording( key ) )
+        {
+            logger.info( format( "Recording CDS archive: key=[%s], %s", key, this ) );
+
+            return mode.recordOptions( this, key );
+        }
+
+        return Collections.emptyList();
+    }
+
+    private void expireRecording( String key )
+    {
+        File marker = getRecordingMarker( key );
+
+        final long expiry = secondsToMillis( recordingExpirySeconds );
+
+        if ( marker.exists() && System.currentTimeMillis() - marker.lastModified() > expiry )
+        {
+            // the recording launch never reported its end
+            marker.delete();
+        }
+    }
+
+    private boolean claimRecording( String key )
+    {
+        try
+        {
+            Files.createFile( getRecordingMarker( key ).toPath() );
+
+            return true;
+        }
+        catch ( FileAlreadyExistsException e )
+        {
+            return false;
+        }
+        catch ( IOException e )
+        {
+            logger.warn( format( "Unable to claim CDS recording: key=[%s]; %s", key, e ) );
+
+            return false;
+        }
+    }
+
+    private void dump( String key, String javaExecutable, String classpath, File workingDirectory )
+    {
+        final List< String > commands = new ArrayList<>();
+
+        commands.add( javaExecutable );
+        commands.add( "-Xshare:dump" );
+        commands.add( "-XX:SharedClassListFile=" + getClassList( key ).getAbsolutePath() );
+        commands.add( "-XX:SharedArchiveFile=" + getArchive( key ).getAbsolutePath() );
+        commands.add( "-cp" );
+        commands.add( classpath );
+
+        final ProcessBuilder pb = new ProcessBuilder( commands )
+                .directory( workingDirectory )
+                .redirectErrorStream( true )
+                .redirectOutput( new File( directory, key + ".dump.log" ) );
+
+        logger.info( format( "Dumping CDS archive: %s", pb.command() ) );
+
+        try
+        {
+            Process process = pb.start();
+
+            if ( !process.waitFor( secondsToMillis( dumpTimeoutSeconds ), TimeUnit.MILLISECONDS ) )
+            {
+                process.destroy();
+
+                logger.warn( format( "CDS dump timed out after [%s] seconds: key=[%s].", dumpTimeoutSeconds, key ) );
+            }
+            else if ( process.exitValue() != 0 )
+            {
+                logger.warn( format( "CDS dump failed: key=[%s], exitValue=[%s].", key, process.exitValue() ) );
+            }
+        }
+        catch ( IOException e )
+        {
+            logger.warn( format( "CDS dump failed: key=[%s]; %s", key, e ) );
+        }
+        catch ( InterruptedException e )
+        {
+            Thread.currentThread().interrupt();
+        }
+
+        if ( !hasArchive( key ) )
+        {
+            // don't try again with the same list
+            getClassList( key ).delete();
+        }
+    }
+
+    /**
+     * Keep the startup time of a launch, and work out how much the archive saved.
+     *
+     * @param key           the archive key
+     * @param archived      whether the launch used the archive
+     * @param startupMillis how long the launch took to be ready
+     * @return the time saved by the archive (compared to the first launch without it),
+     * or zero if unknown or not archived
+     */
+    public synchronized long recordStartup( String key, boolean archived, long startupMillis )
+    {
+        final File file = getTimings( key );
+        final Properties timings = new Properties();
+
+        if ( file.isFile() )
+        {
+            try ( InputStream is = new FileInputStream( file ) )
+            {
+                timings.load( is );
+            }
+            catch ( IOException e )
+            {
+                logger.warn( format( "Unable to read CDS timings: [%s]; %s", file, e ) );
+            }
+        }
+
+        final String property = archived
+                ? "archived.millis"
+                : "baseline.millis";
+
+        if ( !archived && timings.getProperty( property ) != null )
+        {
+            // keep the first (un-archived) baseline
+            return 0;
+        }
+
+        timings.setProperty( property, Long.toString( startupMillis ) );
+
+        try ( OutputStream os = new FileOutputStream( file ) )
+        {
+            timings.store( os, "launch startup times" );
+        }
+        catch ( IOException e )
+        {
+            logger.warn( format( "Unable to write CDS timings: [%s]; %s", file, e ) );
+        }
+
+        final String baseline = timings.getProperty( "baseline.millis" );
+
+        return archived && baseline != null
+                ? Long.parseLong( baseline ) - startupMillis
+                : 0;
+    }
+
+    public File getDirectory()
+    {
+        return directory;
+    }
+
+    /**
+     * @param directory where archives are kept
+     */
+    public void setDirectory( File directory )
+    {
+        this.directory = directory;
+    }
+
+    public Mode getMode()
+    {
+        return mode;
+    }
+
+    public void setMode( Mode mode )
+    {
+        this.mode = mode;
+    }
+
+    public double getDumpTimeoutSeconds()
+    {
+        return dumpTimeoutSeconds;
+    }
+
+    public void setDumpTimeoutSeconds( double dumpTimeoutSeconds )
+    {
+        this.dumpTimeoutSeconds = dumpTimeoutSeconds;
+    }
+
+    public double getRecordingExpirySeconds()
+    {
+        return recordingExpirySeconds;
+    }
+
+    /**
+     * @param recordingExpirySeconds how long before a launch that claimed the recording of an archive,
+     *                               but never reported its end, is presumed to have failed
+     */
+    public void setRecordingExpirySeconds( double recordingExpirySeconds )
+    {
+        this.recordingExpirySeconds = recordingExpirySeconds;
+    }
+}
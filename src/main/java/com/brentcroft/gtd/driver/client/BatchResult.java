@@ -0,0 +1,153 @@
+package com.brentcroft.gtd.driver.client;
+
+import java.util.Collections;
+import java.util.List;
+
+import static java.lang.String.format;
+
+/**
+ * The outcome of running a GuiBatch: the result and timing of each step that ran,
+ * up to and including the first failure.
+ */
+public class BatchResult
+{
+    /**
+     * The outcome of one step.
+     */
+    public static class StepResult
+    {
+        private final int index;
+        private final String operation;
+        private final Object result;
+        private final Throwable error;
+        private final long nanos;
+
+        StepResult( int index, String operation, Object result, Throwable error, long nanos )
+        {
+            this.index = index;
+            this.operation = operation;
+            this.result = result;
+            this.error = error;
+            this.nanos = nanos;
+        }
+
+        public String toString()
+        {
+            return format( "%s: %s, millis=[%.3f], %s",
+                    index,
+                    operation,
+                    nanos / 1000000.0,
+                    error == null
+                            ? format( "result=[%s]", result )
+                            : format( "error=[%s]", error ) );
+        }
+
+        public int getIndex()
+        {
+            return index;
+        }
+
+        public String getOperation()
+        {
+            return operation;
+        }
+
+        /**
+         * @return the value returned by the step (null for operations without a result)
+         */
+        public Object getResult()
+        {
+            return result;
+        }
+
+        public Throwable getError()
+        {
+            return error;
+        }
+
+        public boolean isSuccess()
+        {
+            return error == null;
+        }
+
+        public long getNanos()
+        {
+            return nanos;
+        }
+    }
+
+    private final List< StepResult > steps;
+    private final int size;
+    private final long elapsedNanos;
+    private final long relaxMillis;
+
+    BatchResult( List< StepResult > steps, int size, long elapsedNanos, long relaxMillis )
+    {
+        this.steps = Collections.unmodifiableList( steps );
+        this.size = size;
+        this.elapsedNanos = elapsedNanos;
+        this.relaxMillis = relaxMillis;
+    }
+
+    public String toString()
+    {
+        StringBuilder b = new StringBuilder( format( "batch: steps=[%s/%s], success=[%s], millis=[%.3f], relax.millis=[%s]",
+                steps.size(),
+                size,
+                isSuccess(),
+                elapsedNanos / 1000000.0,
+                relaxMillis ) );
+
+        steps.forEach( s -> b.append( "\n  " ).append( s ) );
+
+        return b.toString();
+    }
+
+    /**
+     * @return true if every step ran without error
+     */
+    public boolean isSuccess()
+    {
+        return steps.size() == size && ( steps.isEmpty() || steps.get( steps.size() - 1 ).isSuccess() );
+    }
+
+    /**
+     * @return the failed step, or null if there wasn't one
+     */
+    public StepResult getFailure()
+    {
+        return steps.isEmpty() || steps.get( steps.size() - 1 ).isSuccess()
+                ? null
+                : steps.get( steps.size() - 1 );
+    }
+
+    /**
+     * @return the steps that ran (the last being the failure, if any)
+     */
+    public List< StepResult > getSteps()
+    {
+        return steps;
+    }
+
+    /**
+     * @param index the index of a step
+     * @return the value returned by the step
+     */
+    public Object getResult( int index )
+    {
+        return steps.get( index ).getResult();
+    }
+
+    /**
+     * @return the time taken by the steps (not including the relax)
+     */
+    public long getElapsedNanos()
+    {
+        return elapsedNanos;
+    }
+
+    public long getRelaxMillis()
+    {
+        return relaxMillis;
+    }
+}
@@ -0,0 +1,187 @@
+package com.brentcroft.gtd.driver.client;
+
+import com.brentcroft.gtd.driver.client.methods.Backoff;
+import java.util.function.LongSupplier;
+
+import static java.lang.String.format;
+
+/**
+ * Decides whether an attempt to (re)connect to a harness should be made.
+ * <p/>
+ * While <code>CLOSED</code> every attempt is allowed. After <code>failureThreshold</code> consecutive failures the
+ * circuit is <code>OPEN</code> and attempts are refused (so callers fail fast) until the backoff has elapsed.
+ * The circuit is then <code>HALF_OPEN</code>: one trial attempt is allowed;
+ * if it succeeds the circuit closes, otherwise it opens again with the backoff doubled (up to the maximum).
+ */
+public class CircuitBreaker
+{
+    public enum State
+    {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    private final LongSupplier clock;
+
+    private int failureThreshold = 3;
+    private long initialBackoffMillis = 1000;
+    private long maxBackoffMillis = 60000;
+
+    // guarded by this
+    private State state = State.CLOSED;
+    private int failures = 0;
+    private long backoffMillis = 0;
+    private long openedAt = 0;
+
+    // metrics
+    private volatile long opened = 0;
+    private volatile long refused = 0;
+
+    public CircuitBreaker()
+    {
+        this( System::currentTimeMillis );
+    }
+
+    /**
+     * @param clock supplies the current time in milliseconds
+     */
+    public CircuitBreaker( LongSupplier clock )
+    {
+        this.clock = clock;
+    }
+
+    public synchronized String toString()
+    {
+        return format( "state=[%s], failures=[%s], backoff.millis=[%s], opened=[%s], refused=[%s]",
+                state,
+                failures,
+                backoffMillis,
+                opened,
+                refused );
+    }
+
+    /**
+     * @return true if an attempt may be made now (in which case the outcome must be recorded)
+     */
+    public synchronized boolean allowRequest()
+    {
+        switch ( state )
+        {
+            case CLOSED:
+                return true;
+
+            case OPEN:
+                if ( clock.getAsLong() - openedAt >= backoffMillis )
+                {
+                    state = State.HALF_OPEN;
+                    return true;
+                }
+
+                refused++;
+                return false;
+
+            default:
+                // a trial is already under way
+                refused++;
+                return false;
+        }
+    }
+
+    public synchronized void recordSuccess()
+    {
+        state = State.CLOSED;
+        failures = 0;
+        backoffMillis = 0;
+    }
+
+    public synchronized void recordFailure()
+    {
+        failures++;
+
+        if ( state == State.HALF_OPEN || failures >= failureThreshold )
+        {
+            backoffMillis = Backoff.EXPONENTIAL.nextDelay( backoffMillis, initialBackoffMillis, maxBackoffMillis );
+            openedAt = clock.getAsLong();
+            state = State.OPEN;
+            opened++;
+        }
+    }
+
+    /**
+     * @return how long until a trial attempt will be allowed (zero unless open)
+     */
+    public synchronized long getRemainingMillis()
+    {
+        return state == State.OPEN
+                ? Math.max( 0, openedAt + backoffMillis - clock.getAsLong() )
+                : 0;
+    }
+
+    public synchronized State getState()
+    {
+        return state;
+    }
+
+    public synchronized int getFailures()
+    {
+        return failures;
+    }
+
+    /**
+     * @return the number of times the circuit has opened
+     */
+    public long getOpened()
+    {
+        return opened;
+    }
+
+    /**
+     * @return the number of attempts refused while open (or half open)
+     */
+    public long getRefused()
+    {
+        return refused;
+    }
+
+    public synchronized int getFailureThreshold()
+    {
+        return failureThreshold;
+    }
+
+    /**
+     * @param failureThreshold the number of consecutive failures that opens the circuit
+     */
+    public synchronized void setFailureThreshold( int failureThreshold )
+    {
+        this.failureThreshold = Math.max( 1, failureThreshold );
+    }
+
+    public synchronized long getInitialBackoffMillis()
+    {
+        return initialBackoffMillis;
+    }
+
+    public synchronized void setInitialBackoffMillis( long initialBackoffMillis )
+    {
+        this.initialBackoffMillis = initialBackoffMillis;
+    }
+
+    public synchronized long getMaxBackoffMillis()
+    {
+        return maxBackoffMillis;
+    }
+
+    public synchronized void setMaxBackoffMillis( long maxBackoffMillis )
+    {
+        this.maxBackoffMillis = maxBackoffMillis;
+    }
+
+    /**
+     * Close the circuit, forgetting any failures.
+     */
+    public void reset()
+    {
+        recordSuccess();
+    }
+}
@@ -0,0 +1,290 @@
+package com.brentcroft.gtd.driver.client;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Runs GuiDriver operations on an executor, one at a time in the order they're made:
+ * each operation is handed to the executor when the one before it has finished (or failed),
+ * so many drivers can share an executor while each driver's operations stay in order.
+ * <p/>
+ * The default executor starts a virtual thread per operation if available (Java 21 or later),
+ * otherwise it uses a pool of daemon threads that grows as needed.
+ */
+public class ExecutorGuiDriverAsync implements GuiDriverAsync
+{
+    private static volatile Executor defaultExecutor = null;
+
+    private final GuiDriver driver;
+    private final Executor executor;
+
+    // the last operation made; guarded by this
+    private CompletableFuture< ? > last = CompletableFuture.completedFuture( null );
+
+    /**
+     * @param driver   the driver to make operations on
+     * @param executor runs the operations, or null for the default executor
+     */
+    public ExecutorGuiDriverAsync( GuiDriver driver, Executor executor )
+    {
+        this.driver = driver;
+        this.executor = executor == null
+                ? getDefaultExecutor()
+                : executor;
+    }
+
+    /**
+     * @return an executor shared by all instances without an executor of their own
+     */
+    public static Executor getDefaultExecutor()
+    {
+        Executor e = defaultExecutor;
+
+        if ( e == null )
+        {
+            synchronized ( ExecutorGuiDriverAsync.class )
+            {
+                e = defaultExecutor;
+
+                if ( e == null )
+                {
+                    e = VirtualThreads.newExecutor( "GuiDriver Async-", 0 );
+
+                    defaultExecutor = e;
+                }
+            }
+        }
+
+        return e;
+    }
+
+    public GuiDriver getDriver()
+    {
+        return driver;
+    }
+
+    public Executor getExecutor()
+    {
+        return executor;
+    }
+
+    public synchronized < T > CompletableFuture< T > call( Function< GuiDriver, T > operation )
+    {
+        // after the last operation, however it ended
+        final CompletableFuture< T > next = last
+                .handle( ( result, failure ) -> null )
+                .thenApplyAsync( v -> operation.apply( driver ), executor );
+
+        last = next;
+
+        // so cancelling the caller's future can't let the next operation start early
+        return next.thenApply( Function.identity() );
+    }
+
+    public CompletableFuture< Void > run( Consumer< GuiDriver > operation )
+    {
+        return call( d -> {
+            operation.accept( d );
+
+            return null;
+        } );
+    }
+
+    public CompletableFuture< String > getResultText( String path )
+    {
+        return call( d -> d.getResultText( path ) );
+    }
+
+    public CompletableFuture< Map< String, String > > getResultTexts( Map< String, String > namedPaths )
+    {
+        return call( d -> d.getResultTexts( namedPaths ) );
+    }
+
+    public CompletableFuture< String > getComponentResultText( String path, String resultPath )
+    {
+        return call( d -> d.getComponentResultText( path, resultPath ) );
+    }
+
+    public CompletableFuture< Boolean > exists( String path )
+    {
+        return call( d -> d.exists( path ) );
+    }
+
+    public CompletableFuture< Boolean > exists( String path, double timeoutSeconds )
+    {
+        return call( d -> d.exists( path, timeoutSeconds ) );
+    }
+
+    public CompletableFuture< Boolean > notExists( String path )
+    {
+        return call( d -> d.notExists( path ) );
+    }
+
+    public CompletableFuture< Boolean > notExists( String path, double timeoutSeconds )
+    {
+        return call( d -> d.notExists( path, timeoutSeconds ) );
+    }
+
+    public CompletableFuture< boolean[] > existsAll( String... paths )
+    {
+        return call( d -> d.existsAll( paths ) );
+    }
+
+    public CompletableFuture< boolean[] > existsAll( double timeoutSeconds, String... paths )
+    {
+        return call( d -> d.existsAll( timeoutSeconds, paths ) );
+    }
+
+    public CompletableFuture< WaitResult > waitForAny( double timeoutSeconds, String... paths )
+    {
+        return call( d -> d.waitForAny( timeoutSeconds, paths ) );
+    }
+
+    public CompletableFuture< WaitResult > waitForAll( double timeoutSeconds, String... paths )
+    {
+        return call( d -> d.waitForAll( timeoutSeconds, paths ) );
+    }
+
+    public CompletableFuture< Boolean > waitFor( String path, String resultPath )
+    {
+        return call( d -> d.waitFor( path, resultPath ) );
+    }
+
+    public CompletableFuture< Boolean > waitFor( String path, String resultPath, double timeoutSeconds )
+    {
+        return call( d -> d.waitFor( path, resultPath, timeoutSeconds ) );
+    }
+
+    public CompletableFuture< Void > click( String path )
+    {
+        return run( d -> d.click( path ) );
+    }
+
+    public CompletableFuture< Void > click( String path, double timeoutSeconds )
+    {
+        return run( d -> d.click( path, timeoutSeconds ) );
+    }
+
+    public CompletableFuture< Void > robotClick( String path )
+    {
+        return run( d -> d.robotClick( path ) );
+    }
+
+    public CompletableFuture< Void > robotClick( String path, double timeoutSeconds )
+    {
+        return run( d -> d.robotClick( path, timeoutSeconds ) );
+    }
+
+    public CompletableFuture< Void > robotDoubleClick( String path )
+    {
+        return run( d -> d.robotDoubleClick( path ) );
+    }
+
+    public CompletableFuture< Void > robotDoubleClick( String path, double timeoutSeconds )
+    {
+        return run( d -> d.robotDoubleClick( path, timeoutSeconds ) );
+    }
+
+    public CompletableFuture< Void > robotKeys( String path, String keys )
+    {
+        return run( d -> d.robotKeys( path, keys ) );
+    }
+
+    public CompletableFuture< Void > robotKeys( String path, String keys, double timeoutSeconds )
+    {
+        return run( d -> d.robotKeys( path, keys, timeoutSeconds ) );
+    }
+
+    public CompletableFuture< Void > setText( String path, String text )
+    {
+        return run( d -> d.setText( path, text ) );
+    }
+
+    public CompletableFuture< Void > setText( String path, String text, double timeoutSeconds )
+    {
+        return run( d -> d.setText( path, text, timeoutSeconds ) );
+    }
+
+    public CompletableFuture< String > getText( String path )
+    {
+        return call( d -> d.getText( path ) );
+    }
+
+    public CompletableFuture< String > getText( String path, double timeoutSeconds )
+    {
+        return call( d -> d.getText( path, timeoutSeconds ) );
+    }
+
+    public CompletableFuture< Void > selectTableRow( String path, int row )
+    {
+        return run( d -> d.selectTableRow( path, row ) );
+    }
+
+    public CompletableFuture< Void > selectTableRow( String path, int row, double timeoutSeconds )
+    {
+        return run( d -> d.selectTableRow( path, row, timeoutSeconds ) );
+    }
+
+    public CompletableFuture< Void > selectTableColumn( String path, int column )
+    {
+        return run( d -> d.selectTableColumn( path, column ) );
+    }
+
+    public CompletableFuture< Void > selectTableColumn( String path, int column, double timeoutSeconds )
+    {
+        return run( d -> d.selectTableColumn( path, column, timeoutSeconds ) );
+    }
+
+    public CompletableFuture< Void > selectTableCell( String path, int row, int column )
+    {
+        return run( d -> d.selectTableCell( path, row, column ) );
+    }
+
+    public CompletableFuture< Void > selectTableCell( String path, int row, int column, double timeoutSeconds )
+    {
+        return run( d -> d.selectTableCell( path, row, column, timeoutSeconds ) );
+    }
+
+    public CompletableFuture< Void > setSelectedIndex( String path, int index )
+    {
+        return run( d -> d.setSelectedIndex( path, index ) );
+    }
+
+    public CompletableFuture< Void > setSelectedIndex( String path, int index, double timeoutSeconds )
+    {
+        return run( d -> d.setSelectedIndex( path, index, timeoutSeconds ) );
+    }
+
+    public CompletableFuture< Void > selectTreeNode( String path, String treePath )
+    {
+        return run( d -> d.selectTreeNode( path, treePath ) );
+    }
+
+    public CompletableFuture< Void > selectTreeNode( String path, String treePath, double timeoutSeconds )
+    {
+        return run( d -> d.selectTreeNode( path, treePath, timeoutSeconds ) );
+    }
+
+    public CompletableFuture< Integer > getSelectedIndex( String path )
+    {
+        return call( d -> d.getSelectedIndex( path ) );
+    }
+
+    public CompletableFuture< Integer > getSelectedIndex( String path, double timeoutSeconds )
+    {
+        return call( d -> d.getSelectedIndex( path, timeoutSeconds ) );
+    }
+
+    public CompletableFuture< Integer > getItemCount( String path )
+    {
+        return call( d -> d.getItemCount( path ) );
+    }
+
+    public CompletableFuture< Integer > getItemCount( String path, double timeoutSeconds )
+    {
+        return call( d -> d.getItemCount( path, timeoutSeconds ) );
+    }
+}
@@ -0,0 +1,193 @@
+package com.brentcroft.gtd.driver.client;
+
+import com.brentcroft.util.Waiter8;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.management.Notification;
+
+import static java.lang.String.format;
+
+/**
+ * Records when the harness last reported GUI activity (AWT, FX, DOM or snapshot notifications)
+ * so that a driver can wait for the GUI to go quiet rather than sleeping for a fixed time.
+ * <p/>
+ * Only notifications whose type starts with one of the activity type prefixes are counted;
+ * if no prefixes are assigned then every notification counts as activity.
+ */
+public class GuiActivityMonitor
+{
+    private volatile String[] typePrefixes = null;
+
+    private final AtomicLong activityCount = new AtomicLong();
+    private volatile long lastActivityNanos = System.nanoTime();
+
+    // threads waiting for activity wait on the signal
+    private final Object signal = new Object();
+    private volatile int waiters = 0;
+
+    public String toString()
+    {
+        return format( "activity.count=[%s], activity.types=[%s]",
+                activityCount.get(),
+                typePrefixes == null ? "*" : String.join( ",", typePrefixes ) );
+    }
+
+    /**
+     * Assign the notification type prefixes that count as GUI activity.
+     *
+     * @param typePrefixes the prefixes, or null (or empty) to count every notification
+     */
+    public void setTypePrefixes( String... typePrefixes )
+    {
+        this.typePrefixes = typePrefixes == null || typePrefixes.length == 0
+                ? null
+                : typePrefixes;
+    }
+
+    public String[] getTypePrefixes()
+    {
+        return typePrefixes;
+    }
+
+    public boolean isActivity( Notification notification )
+    {
+        final String[] prefixes = typePrefixes;
+
+        if ( prefixes == null )
+        {
+            return true;
+        }
+
+        final String type = notification.getType();
+
+        for ( String prefix : prefixes )
+        {
+            if ( type != null && type.startsWith( prefix ) )
+            {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Called for every notification received from the harness.
+     *
+     * @param notification the notification received
+     * @return true if the notification counted as GUI activity
+     */
+    public boolean notification( Notification notification )
+    {
+        if ( isActivity( notification ) )
+        {
+            activity();
+
+            return true;
+        }
+
+        return false;
+    }
+
+    public void activity()
+    {
+        lastActivityNanos = System.nanoTime();
+        activityCount.incrementAndGet();
+
+        if ( waiters > 0 )
+        {
+            synchronized ( signal )
+            {
+                signal.notifyAll();
+            }
+        }
+    }
+
+    public long getActivityCount()
+    {
+        return activityCount.get();
+    }
+
+    /**
+     * Block until no activity has been reported for <code>settleMillis</code>,
+     * or until <code>maxMillis</code> have elapsed, whichever comes first.
+     *
+     * @param settleMillis how long the GUI must be quiet
+     * @param maxMillis    the upper bound on the wait
+     * @return the number of milliseconds actually waited
+     */
+    public long awaitQuiet( long settleMillis, long maxMillis )
+    {
+        final long started = System.nanoTime();
+        final long deadline = started + maxMillis * 1000000L;
+        final long settleNanos = settleMillis * 1000000L;
+
+        while ( true )
+        {
+            final long now = System.nanoTime();
+
+            // quiet since the later of when we started and the last activity
+            final long lastActivity = lastActivityNanos;
+            final long quietSince = lastActivity - started > 0 ? lastActivity : started;
+
+            final long wakeAt = Math.min( quietSince + settleNanos, deadline );
+
+            if ( wakeAt - now <= 0 )
+            {
+                break;
+            }
+
+            Waiter8.delay( Math.max( 1, ( wakeAt - now ) / 1000000L ) );
+        }
+
+        return ( System.nanoTime() - started ) / 1000000L;
+    }
+
+    /**
+     * Block until some activity is reported after the activity count was <code>seenCount</code>,
+     * or until <code>maxMillis</code> have elapsed, whichever comes first.
+     * <p/>
+     * Callers should read the activity count before checking whatever they are waiting for,
+     * so that activity reported while checking is not missed.
+     *
+     * @param seenCount the activity count last seen by the caller
+     * @param maxMillis the upper bound on the wait
+     * @return true if there has been activity since <code>seenCount</code>
+     */
+    public boolean awaitActivity( long seenCount, long maxMillis )
+    {
+        final long deadline = System.nanoTime() + maxMillis * 1000000L;
+
+        synchronized ( signal )
+        {
+            waiters++;
+
+            try
+            {
+                while ( activityCount.get() == seenCount )
+                {
+                    long remaining = deadline - System.nanoTime();
+
+                    if ( remaining <= 0 )
+                    {
+                        return false;
+                    }
+
+                    TimeUnit.NANOSECONDS.timedWait( signal, remaining );
+                }
+
+                return true;
+            }
+            catch ( InterruptedException e )
+            {
+                Thread.currentThread().interrupt();
+
+                return activityCount.get() != seenCount;
+            }
+            finally
+            {
+                waiters--;
+            }
+        }
+    }
+}
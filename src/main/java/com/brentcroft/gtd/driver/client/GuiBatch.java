@@ -0,0 +1,234 @@
+package com.brentcroft.gtd.driver.client;
+
+import com.brentcroft.gtd.driver.GuiControllerMBean;
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.lang.String.format;
+
+/**
+ * Records a sequence of driver operations (e.g. filling in a form) and runs them together:
+ * one after another, without relaxing between them, stopping at the first failure,
+ * and then relaxing once.
+ * <p/>
+ * e.g.
+ * <pre>
+ *     BatchResult result = driver.batch()
+ *         .setText( "//JTextField[@name='user']", "fred" )
+ *         .setSelectedIndex( "//JComboBox[@name='role']", 2 )
+ *         .click( "//JButton[@text='OK']" )
+ *         .run();
+ * </pre>
+ * Operations use the driver's default timeout and poll interval.
+ */
+public class GuiBatch
+{
+    /**
+     * A recorded operation.
+     */
+    public interface Step
+    {
+        Object run( GuiControllerMBean controller ) throws Exception;
+    }
+
+    private static class Entry
+    {
+        final String operation;
+        final Step step;
+
+        Entry( String operation, Step step )
+        {
+            this.operation = operation;
+            this.step = step;
+        }
+    }
+
+    private final AbstractGuiLocalDriver driver;
+    private final double timeoutSeconds;
+    private final double pollSeconds;
+    private final List< Entry > entries = new ArrayList<>();
+
+    GuiBatch( AbstractGuiLocalDriver driver )
+    {
+        this.driver = driver;
+        this.timeoutSeconds = driver.defaultTimeoutSeconds;
+        this.pollSeconds = driver.defaultPollDelaySeconds;
+    }
+
+    public String toString()
+    {
+        StringBuilder b = new StringBuilder( format( "batch: steps=[%s]", entries.size() ) );
+
+        entries.forEach( e -> b.append( "\n  " ).append( e.operation ) );
+
+        return b.toString();
+    }
+
+    /**
+     * Record any operation.
+     *
+     * @param operation the name of the operation (used for the relax policy, and in results)
+     * @param step      the operation
+     * @return this batch
+     */
+    public GuiBatch step( String operation, Step step )
+    {
+        entries.add( new Entry( operation, step ) );
+
+        return this;
+    }
+
+    public int size()
+    {
+        return entries.size();
+    }
+
+    public GuiBatch click( String path )
+    {
+        return step( "click", c -> {
+            c.click( path, timeoutSeconds, pollSeconds );
+            return null;
+        } );
+    }
+
+    public GuiBatch robotClick( String path )
+    {
+        return step( "robotClick", c -> {
+            c.robotClick( path, timeoutSeconds, pollSeconds );
+            return null;
+        } );
+    }
+
+    public GuiBatch robotKeys( String path, String keys )
+    {
+        return step( "robotKeys", c -> {
+            c.robotKeys( path, keys, timeoutSeconds, pollSeconds );
+            return null;
+        } );
+    }
+
+    public GuiBatch setText( String path, String text )
+    {
+        return step( "setText", c -> {
+            c.setText( path, text, timeoutSeconds, pollSeconds );
+            return null;
+        } );
+    }
+
+    public GuiBatch setSelectedIndex( String path, int index )
+    {
+        return step( "setSelectedIndex", c -> {
+            c.setSelectedIndex( path, index, timeoutSeconds, pollSeconds );
+            return null;
+        } );
+    }
+
+    public GuiBatch selectTableRow( String path, int row )
+    {
+        return step( "selectTableRow", c -> {
+            c.selectTableRow( path, row, timeoutSeconds, pollSeconds );
+            return null;
+        } );
+    }
+
+    public GuiBatch selectTableCell( String path, int row, int column )
+    {
+        return step( "selectTableCell", c -> {
+            c.selectTableCell( path, row, column, timeoutSeconds, pollSeconds );
+            return null;
+        } );
+    }
+
+    public GuiBatch selectTreeNode( String path, String treePath )
+    {
+        return step( "selectTreeNode", c -> {
+            c.selectTreeNode( path, treePath, timeoutSeconds, pollSeconds );
+            return null;
+        } );
+    }
+
+    public GuiBatch execute( String path, String script )
+    {
+        return step( "execute", c -> {
+            c.execute( path, script, timeoutSeconds, pollSeconds );
+            return null;
+        } );
+    }
+
+    public GuiBatch getText( String path )
+    {
+        return step( "getText", c -> c.getText( path, timeoutSeconds, pollSeconds ) );
+    }
+
+    public GuiBatch getItemCount( String path )
+    {
+        return step( "getItemCount", c -> c.getItemCount( path, timeoutSeconds, pollSeconds ) );
+    }
+
+    public GuiBatch getSelectedIndex( String path )
+    {
+        return step( "getSelectedIndex", c -> c.getSelectedIndex( path, timeoutSeconds, pollSeconds ) );
+    }
+
+    /**
+     * Record a check that fails the batch (and so stops it) if the path doesn't exist in time.
+     */
+    public GuiBatch exists( String path )
+    {
+        return step( "exists", c -> {
+            if ( !c.exists( path, timeoutSeconds, pollSeconds ) )
+            {
+                throw new GuiDriverException( format( "Path does not exist: [%s].", path ) );
+            }
+            return true;
+        } );
+    }
+
+    /**
+     * Run the recorded operations in order, stopping at the first failure, and then relax once.
+     * <p/>
+     * If every operation is a read, the relax is the one for the first operation (by default, none);
+     * otherwise it is the one for "batch".
+     *
+     * @return the result and timing of each step run
+     */
+    public BatchResult run()
+    {
+        final List< BatchResult.StepResult > results = new ArrayList<>( entries.size() );
+        final GuiControllerMBean controller = driver.remote();
+
+        boolean readOnly = true;
+
+        final long started = System.nanoTime();
+
+        for ( int i = 0; i < entries.size(); i++ )
+        {
+            final Entry entry = entries.get( i );
+            final long stepStarted = System.nanoTime();
+
+            readOnly &= RelaxPolicy.isReadOperation( entry.operation );
+
+            try
+            {
+                Object result = entry.step.run( controller );
+
+                results.add( new BatchResult.StepResult( i, entry.operation, result, null, System.nanoTime() - stepStarted ) );
+            }
+            catch ( Exception e )
+            {
+                results.add( new BatchResult.StepResult( i, entry.operation, null, e, System.nanoTime() - stepStarted ) );
+                break;
+            }
+        }
+
+        final long elapsed = System.nanoTime() - started;
+
+        driver.relax( readOnly && !entries.isEmpty()
+                ? entries.get( 0 ).operation
+                : "batch" );
+
+        final long relaxed = ( System.nanoTime() - started - elapsed ) / 1000000;
+
+        return new BatchResult( results, entries.size(), elapsed, relaxed );
+    }
+}
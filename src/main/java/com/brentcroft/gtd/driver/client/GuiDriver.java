@@ -1,6 +1,7 @@
 package com.brentcroft.gtd.driver.client;
 
 import com.brentcroft.gtd.driver.GuiControllerMBean;
+import java.util.Map;
 import javax.management.NotificationListener;
 
 /**
@@ -10,15 +11,49 @@ public interface GuiDriver extends GuiControllerMBean
 {
     String getResultText( String path );
 
+    /**
+     * Evaluate many paths against a single GUI snapshot.
+     *
+     * @param namedPaths a map of names to the paths to be evaluated
+     * @return a map of the same names to the text result of each evaluation (in the same order)
+     */
+    Map< String, String > getResultTexts( Map< String, String > namedPaths );
+
     String getComponentResultText( String path, String resultPath );
+
+    /**
+     * Evaluate many result paths against a single snapshot of the component at the given path.
+     *
+     * @param path             the address of the component
+     * @param namedResultPaths a map of names to the result paths to be evaluated
+     * @return a map of the same names to the text result of each evaluation (in the same order)
+     */
+    Map< String, String > getComponentResultTexts( String path, Map< String, String > namedResultPaths );
+
     boolean getComponentResult( String path, String resultPath );
 
     void addNotificationListener( NotificationListener nl );
 
+    /**
+     * Add a listener that only receives notifications whose type starts with one of the prefixes.
+     * <p/>
+     * Only the types wanted by some listener (or by the driver itself) are sent by the harness.
+     *
+     * @param nl           the listener
+     * @param typePrefixes the notification type prefixes (none meaning every notification)
+     */
+    void addNotificationListener( NotificationListener nl, String... typePrefixes );
+
     void removeNotificationListener( NotificationListener nl );
 
     void removeAllNotificationListeners();
 
+    /**
+     * @return this driver's operations, returning CompletableFutures instead of blocking,
+     * and run one at a time in the order they're made
+     */
+    GuiDriverAsync async();
+
 
 
 
@@ -37,6 +72,28 @@ public interface GuiDriver extends GuiControllerMBean
 
     boolean[] existsAll( double timeoutSeconds, String... paths );
 
+    /**
+     * Wait until at least one of the paths exists, evaluating all of them in one remote call per cycle.
+     *
+     * @param timeoutSeconds how long to wait
+     * @param paths          the paths to wait for
+     * @return which paths were seen to exist, and when (check <code>anyMatched()</code> for success)
+     */
+    WaitResult waitForAny( double timeoutSeconds, String... paths );
+
+    WaitResult waitForAny( String... paths );
+
+    /**
+     * Wait until all of the paths exist, evaluating all of them in one remote call per cycle.
+     *
+     * @param timeoutSeconds how long to wait
+     * @param paths          the paths to wait for
+     * @return which paths were seen to exist, and when (check <code>allMatched()</code> for success)
+     */
+    WaitResult waitForAll( double timeoutSeconds, String... paths );
+
+    WaitResult waitForAll( String... paths );
+
 
     boolean waitFor( final String path, final String resultPath );
     boolean waitFor( final String path, final String resultPath, double timeoutSeconds );
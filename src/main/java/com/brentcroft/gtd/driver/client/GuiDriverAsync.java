@@ -0,0 +1,118 @@
+package com.brentcroft.gtd.driver.client;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * The GuiDriver operations, each returning a CompletableFuture instead of blocking,
+ * so that one thread can drive many harnesses at once and compose the results.
+ * <p/>
+ * Each operation (including its relax) runs on the executor of the implementation;
+ * operations on the same driver run one at a time, in the order they were made,
+ * since they share the driver's state (e.g. its relax and snapshots).
+ * So <code>click( a ); click( b )</code> clicks a then b, and only operations on different drivers run at once.
+ */
+public interface GuiDriverAsync
+{
+    /**
+     * @return the driver that the operations are made on
+     */
+    GuiDriver getDriver();
+
+    /**
+     * Run any driver operation asynchronously.
+     *
+     * @param operation the operation
+     * @param <T>       the type of the result
+     * @return the future result
+     */
+    < T > CompletableFuture< T > call( Function< GuiDriver, T > operation );
+
+    /**
+     * Run any driver operation asynchronously.
+     *
+     * @param operation the operation
+     * @return a future completed when the operation is done
+     */
+    CompletableFuture< Void > run( Consumer< GuiDriver > operation );
+
+    CompletableFuture< String > getResultText( String path );
+
+    CompletableFuture< Map< String, String > > getResultTexts( Map< String, String > namedPaths );
+
+    CompletableFuture< String > getComponentResultText( String path, String resultPath );
+
+    CompletableFuture< Boolean > exists( String path );
+
+    CompletableFuture< Boolean > exists( String path, double timeoutSeconds );
+
+    CompletableFuture< Boolean > notExists( String path );
+
+    CompletableFuture< Boolean > notExists( String path, double timeoutSeconds );
+
+    CompletableFuture< boolean[] > existsAll( String... paths );
+
+    CompletableFuture< boolean[] > existsAll( double timeoutSeconds, String... paths );
+
+    CompletableFuture< WaitResult > waitForAny( double timeoutSeconds, String... paths );
+
+    CompletableFuture< WaitResult > waitForAll( double timeoutSeconds, String... paths );
+
+    CompletableFuture< Boolean > waitFor( String path, String resultPath );
+
+    CompletableFuture< Boolean > waitFor( String path, String resultPath, double timeoutSeconds );
+
+    CompletableFuture< Void > click( String path );
+
+    CompletableFuture< Void > click( String path, double timeoutSeconds );
+
+    CompletableFuture< Void > robotClick( String path );
+
+    CompletableFuture< Void > robotClick( String path, double timeoutSeconds );
+
+    CompletableFuture< Void > robotDoubleClick( String path );
+
+    CompletableFuture< Void > robotDoubleClick( String path, double timeoutSeconds );
+
+    CompletableFuture< Void > robotKeys( String path, String keys );
+
+    CompletableFuture< Void > robotKeys( String path, String keys, double timeoutSeconds );
+
+    CompletableFuture< Void > setText( String path, String text );
+
+    CompletableFuture< Void > setText( String path, String text, double timeoutSeconds );
+
+    CompletableFuture< String > getText( String path );
+
+    CompletableFuture< String > getText( String path, double timeoutSeconds );
+
+    CompletableFuture< Void > selectTableRow( String path, int row );
+
+    CompletableFuture< Void > selectTableRow( String path, int row, double timeoutSeconds );
+
+    CompletableFuture< Void > selectTableColumn( String path, int column );
+
+    CompletableFuture< Void > selectTableColumn( String path, int column, double timeoutSeconds );
+
+    CompletableFuture< Void > selectTableCell( String path, int row, int column );
+
+    CompletableFuture< Void > selectTableCell( String path, int row, int column, double timeoutSeconds );
+
+    CompletableFuture< Void > setSelectedIndex( String path, int index );
+
+    CompletableFuture< Void > setSelectedIndex( String path, int index, double timeoutSeconds );
+
+    CompletableFuture< Void > selectTreeNode( String path, String treePath );
+
+    CompletableFuture< Void > selectTreeNode( String path, String treePath, double timeoutSeconds );
+
+    CompletableFuture< Integer > getSelectedIndex( String path );
+
+    CompletableFuture< Integer > getSelectedIndex( String path, double timeoutSeconds );
+
+    CompletableFuture< Integer > getItemCount( String path );
+
+    CompletableFuture< Integer > getItemCount( String path, double timeoutSeconds );
+}
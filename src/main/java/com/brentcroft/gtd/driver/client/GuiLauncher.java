@@ -2,15 +2,24 @@ package com.brentcroft.gtd.driver.client;
 
 import com.brentcroft.gtd.driver.harness.GuiHarness;
 import com.brentcroft.util.Waiter8;
-import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
+import java.net.InetSocketAddress;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 import org.apache.log4j.Logger;
 
@@ -25,6 +34,17 @@ public class GuiLauncher
     private final static transient Logger logger = Logger.getLogger( GuiLauncher.class );
     private final static transient Logger harnessLogger = Logger.getLogger( "HARNESS" );
 
+    private static final long READY_POLL_MILLIS = 50;
+
+    // how much harness output to put in a launch failure
+    private static final int FAILURE_OUTPUT_BYTES = 4096;
+
+    // a stream gobbler mostly blocks reading, so needn't hold a platform thread
+    private static final ThreadFactory GOBBLER_THREADS = VirtualThreads.newThreadFactory( "Harness Gobbler-" );
+
+    // the registry host and port in a url like service:jmx:rmi:///jndi/rmi://host:9999/jmxrmi
+    private static final Pattern JMX_RMI_ADDRESS = Pattern.compile( "/jndi/rmi://([^:/]*):(\\d+)/" );
+
     protected File workingDirectory = null;
 
     private String applicationUri = null;
@@ -43,11 +63,30 @@ public class GuiLauncher
     //
     private double firstEchoTimeout = 1.0;
 
+    // readiness before echo polling
+    private String readyMarker = null;
+    private boolean readyProbe = true;
+    private double readyTimeout = 60.0;
+
     private boolean addShutdownHook = true;
 
     private Thread shutdownHook;
 
-    private Process processRun = null;
+    private volatile Process processRun = null;
+
+    // class data sharing, if wanted
+    private AppCds appCds = null;
+    private String cdsKey = null;
+    private boolean cdsArchived = false;
+    private boolean cdsRecording = false;
+
+    // the most harness output kept in memory
+    private int outputCaptureBytes = 64 * 1024;
+
+    private volatile HarnessOutputBuffer harnessOutput = null;
+
+    private long lastStartupMillis = 0;
+    private long startupMillisSaved = 0;
 
     private GuiDriver driver = null;
 
@@ -70,7 +109,14 @@ public class GuiLauncher
                         "applicationNotifySnapshotDelay=%s%n" +
                         "applicationHashCache=%s%n" +
                         "firstEchoTimeout=%s%n" +
-                        "addShutdownHook=%s",
+                        "readyMarker=%s%n" +
+                        "readyProbe=%s%n" +
+                        "readyTimeout=%s%n" +
+                        "addShutdownHook=%s%n" +
+                        "outputCaptureBytes=%s%n" +
+                        "appCds=%s%n" +
+                        "lastStartupMillis=%s%n" +
+                        "startupMillisSaved=%s",
                 applicationUri,
                 javaCommand,
                 javaVmOptions,
@@ -82,15 +128,59 @@ public class GuiLauncher
                 applicationNotifySnapshotDelay,
                 applicationHashCache,
                 firstEchoTimeout,
-                addShutdownHook );
+                readyMarker,
+                readyProbe,
+                readyTimeout,
+                addShutdownHook,
+                outputCaptureBytes,
+                appCds,
+                lastStartupMillis,
+                startupMillisSaved );
     }
     
 
+    /**
+     * A new launcher, for another driver, with the same configuration as this one.
+     *
+     * @param driver the driver of the new launcher
+     * @return the new launcher
+     */
+    public GuiLauncher copy( GuiDriver driver )
+    {
+        GuiLauncher copy = new GuiLauncher( driver );
+
+        copy.workingDirectory = workingDirectory;
+        copy.applicationUri = applicationUri;
+        copy.javaCommand = javaCommand;
+        copy.javaVmOptions = javaVmOptions;
+        copy.javaClassPathRoot = javaClassPathRoot;
+        copy.javaClassPath = javaClassPath;
+        copy.applicationMainClass = applicationMainClass;
+        copy.applicationServiceClass = applicationServiceClass;
+        copy.applicationNotifyAWTMask = applicationNotifyAWTMask;
+        copy.applicationNotifySnapshotDelay = applicationNotifySnapshotDelay;
+        copy.applicationHashCache = applicationHashCache;
+        copy.firstEchoTimeout = firstEchoTimeout;
+        copy.readyMarker = readyMarker;
+        copy.readyProbe = readyProbe;
+        copy.readyTimeout = readyTimeout;
+        copy.addShutdownHook = addShutdownHook;
+        copy.outputCaptureBytes = outputCaptureBytes;
+        copy.appCds = appCds;
+
+        return copy;
+    }
+
     public boolean isLaunchable()
     {
         return javaCommand != null;
     }    
 
+    public boolean isRunning()
+    {
+        return processRun != null;
+    }
+
     public boolean isWebStart()
     {
         if ( javaCommand == null )
@@ -118,8 +208,27 @@ public class GuiLauncher
                 Collections.addAll( commands, javaVmOptions.split( "\\s+" ) );
             }
 
+            final String classpath = buildClasspath();
+
+            if ( appCds != null )
+            {
+                cdsKey = AppCds.key(
+                        javaCommand,
+                        AppCds.keyOptions( javaVmOptions ),
+                        classpath,
+                        GuiHarness.class.getName(),
+                        applicationMainClass );
+
+                final List< String > cdsOptions = appCds.options( cdsKey, commands.get( 0 ), classpath, workingDirectory );
+
+                commands.addAll( cdsOptions );
+
+                cdsArchived = cdsOptions.stream().anyMatch( option -> option.startsWith( "-XX:SharedArchiveFile=" ) );
+                cdsRecording = !cdsArchived && !cdsOptions.isEmpty();
+            }
+
             commands.add( "-cp" );
-            commands.add( buildClasspath() );
+            commands.add( classpath );
 
             commands.add( GuiHarness.class.getName() );
 
@@ -207,30 +316,44 @@ public class GuiLauncher
 
         final ProcessBuilder pb = new ProcessBuilder( commands );
 
+        final long launched = System.currentTimeMillis();
+
         pb.directory( workingDirectory );
         pb.redirectErrorStream( true );
 
         logger.info( format( "Starting program under test:\n  DIRECTORY: %s%n  COMMAND: %s", workingDirectory,
                 pb.command() ) );
 
-        new Thread( () -> {
+        // counted down when the harness prints the ready marker, or its output ends
+        final CountDownLatch readySignal = new CountDownLatch( 1 );
+        final AtomicBoolean ended = new AtomicBoolean( false );
+
+        final HarnessOutputBuffer output = new HarnessOutputBuffer( outputCaptureBytes );
+
+        if ( readyMarker != null )
+        {
+            output.setMarker( readyMarker, readySignal::countDown );
+        }
+
+        harnessOutput = output;
+
+        // this launch is recording a CDS archive
+        final String recordingKey = appCds != null && cdsRecording
+                ? cdsKey
+                : null;
+
+        GOBBLER_THREADS.newThread( () -> {
+
+            Process process = null;
+
             try
             {
-                processRun = pb.start();
+                process = pb.start();
 
-                InputStream is = processRun.getInputStream();
-                InputStreamReader isr = new InputStreamReader( is );
-                BufferedReader br = new BufferedReader( isr );
+                processRun = process;
 
                 // this thread will keep blocking here until the process stream is closed
-                String line;
-                while ( ( line = br.readLine() ) != null )
-                {
-                    if ( harnessLogger.isDebugEnabled() )
-                    {
-                        harnessLogger.debug( line );
-                    }
-                }
+                gobble( process.getInputStream(), output );
 
                 logger.info( "Stream gobbler terminated." );
 
@@ -256,6 +379,16 @@ public class GuiLauncher
 
                 processRun = null;
             }
+            finally
+            {
+                ended.set( true );
+                readySignal.countDown();
+
+                if ( recordingKey != null )
+                {
+                    cdsRecorded( recordingKey, process );
+                }
+            }
         } ).start();
 
         if ( addShutdownHook )
@@ -268,14 +401,197 @@ public class GuiLauncher
             Runtime.getRuntime().addShutdownHook( shutdownHook );
         }
 
+        awaitReadiness( readySignal, ended, output );
+
         logger.info(
                 format( "Waiting for harness to become available ...: firstEchoTimeout=[%s].", firstEchoTimeout ) );
 
         if ( !isHarnessAccessible( driver, firstEchoTimeout ) )
         {
             throw new RuntimeException(
-                    format( "Harness was not accessible after [%s] seconds (first echo timed out).",
-                            firstEchoTimeout ) );
+                    format( "Harness was not accessible after [%s] seconds (first echo timed out); output:%n%s",
+                            firstEchoTimeout,
+                            output.getText( FAILURE_OUTPUT_BYTES ) ) );
+        }
+
+        lastStartupMillis = System.currentTimeMillis() - launched;
+
+        if ( appCds != null && cdsKey != null )
+        {
+            startupMillisSaved = appCds.recordStartup( cdsKey, cdsArchived, lastStartupMillis );
+
+            logger.info( format( "Harness started in [%s] ms: cds.archived=[%s], saved=[%s] ms.",
+                    lastStartupMillis,
+                    cdsArchived,
+                    startupMillisSaved ) );
+        }
+    }
+
+    /**
+     * Copy the harness output, in raw chunks, into the output buffer;
+     * lines are only decoded if the HARNESS logger is at debug.
+     *
+     * @param is     the process output
+     * @param output the buffer
+     * @throws IOException if the stream fails
+     */
+    private static void gobble( InputStream is, HarnessOutputBuffer output ) throws IOException
+    {
+        final byte[] chunk = new byte[ 8192 ];
+        final ByteArrayOutputStream line = new ByteArrayOutputStream();
+
+        int n;
+
+        while ( ( n = is.read( chunk ) ) >= 0 )
+        {
+            output.write( chunk, 0, n );
+
+            if ( harnessLogger.isDebugEnabled() )
+            {
+                for ( int i = 0; i < n; i++ )
+                {
+                    if ( chunk[ i ] == '\n' )
+                    {
+                        harnessLogger.debug( line.toString().replaceFirst( "\r$", "" ) );
+
+                        line.reset();
+                    }
+                    else
+                    {
+                        line.write( chunk[ i ] );
+                    }
+                }
+            }
+        }
+
+        if ( line.size() > 0 && harnessLogger.isDebugEnabled() )
+        {
+            harnessLogger.debug( line.toString() );
+        }
+    }
+
+    /**
+     * Wait until the harness is probably ready for an echo, so that echo attempts
+     * (each trying to make a JMX connection) aren't wasted while it starts.
+     * <p/>
+     * The harness is ready when it prints a line containing the ready marker (if there is one),
+     * or when its JMX port accepts a connection (if probing).
+     * If neither happens within <code>readyTimeout</code> seconds, echo polling decides.
+     *
+     * @param readySignal counted down by the stream gobbler
+     * @param ended       set by the stream gobbler when the output ends
+     * @param output      the harness output
+     */
+    private void awaitReadiness( CountDownLatch readySignal, AtomicBoolean ended, HarnessOutputBuffer output )
+    {
+        final InetSocketAddress jmxAddress = readyProbe
+                ? getJmxAddress()
+                : null;
+
+        if ( readyMarker == null && jmxAddress == null )
+        {
+            return;
+        }
+
+        final long started = System.currentTimeMillis();
+        final long deadline = started + secondsToMillis( readyTimeout );
+
+        try
+        {
+            while ( System.currentTimeMillis() < deadline )
+            {
+                if ( readySignal.await( READY_POLL_MILLIS, TimeUnit.MILLISECONDS ) )
+                {
+                    if ( ended.get() )
+                    {
+                        throw new RuntimeException(
+                                format( "Harness process ended after [%s] ms, before it was ready; output:%n%s",
+                                        System.currentTimeMillis() - started,
+                                        output.getText( FAILURE_OUTPUT_BYTES ) ) );
+                    }
+
+                    logger.info( format( "Harness printed ready marker after [%s] ms.", System.currentTimeMillis() - started ) );
+
+                    return;
+                }
+
+                if ( jmxAddress != null && isListening( jmxAddress, READY_POLL_MILLIS ) )
+                {
+                    logger.info( format( "Harness JMX port [%s] open after [%s] ms.",
+                            jmxAddress.getPort(),
+                            System.currentTimeMillis() - started ) );
+
+                    return;
+                }
+            }
+        }
+        catch ( InterruptedException e )
+        {
+            Thread.currentThread().interrupt();
+
+            return;
+        }
+
+        logger.warn( format( "Harness not seen to be ready after [%s] seconds: readyMarker=[%s], jmx=[%s].",
+                readyTimeout,
+                readyMarker,
+                jmxAddress ) );
+    }
+
+    /**
+     * @return the address of the RMI registry in the driver's JMX url, or null if there isn't one
+     */
+    private InetSocketAddress getJmxAddress()
+    {
+        if ( !( driver instanceof AbstractGuiLocalDriver ) )
+        {
+            return null;
+        }
+
+        final String url = ( ( AbstractGuiLocalDriver ) driver ).getJmxRmiUrl();
+        final Matcher m = url == null
+                ? null
+                : JMX_RMI_ADDRESS.matcher( url );
+
+        if ( m == null || !m.find() )
+        {
+            return null;
+        }
+
+        final String host = m.group( 1 ).isEmpty()
+                ? "localhost"
+                : m.group( 1 );
+
+        return new InetSocketAddress( host, Integer.parseInt( m.group( 2 ) ) );
+    }
+
+    /**
+     * A TCP connect to an address, without any RMI or JMX.
+     *
+     * @param address       the address
+     * @param timeoutMillis how long to wait for the connection
+     * @return true if the connection was accepted
+     */
+    static boolean isListening( InetSocketAddress address, long timeoutMillis )
+    {
+        try ( SocketChannel channel = SocketChannel.open();
+              Selector selector = Selector.open() )
+        {
+            channel.configureBlocking( false );
+
+            if ( channel.connect( address ) )
+            {
+                return true;
+            }
+
+            channel.register( selector, SelectionKey.OP_CONNECT );
+
+            return selector.select( timeoutMillis ) > 0 && channel.finishConnect();
+        }
+        catch ( IOException e )
+        {
+            // not listening yet
+            return false;
         }
     }
 
@@ -325,6 +641,9 @@ public class GuiLauncher
      * In general this should be pretty quick, as the harness sets up the JMX
      * apparatus early.
      * <p>
+     * Failed echoes don't count against the driver's circuit breaker,
+     * so polling a starting harness doesn't hold off the connection once it's ready.
+     * <p>
      *
      * @param timeoutSeconds
      *            how long to wait before timing out
@@ -339,6 +658,13 @@ public class GuiLauncher
                 .withTimeoutMillis( secondsToMillis( timeoutSeconds ) )
                 .onTimeout( millis -> wasAccessed[ 0 ] = false )
                 .until( () -> {
+
+                    // failed echoes while the harness is starting don't count against it
+                    if ( driver instanceof AbstractGuiLocalDriver )
+                    {
+                        ( ( AbstractGuiLocalDriver ) driver ).getCircuitBreaker().reset();
+                    }
+
                     try
                     {
                         wasAccessed[ 0 ] = ( "hello".equals( driver.echo( "hello" ) ) );
@@ -363,6 +689,32 @@ public class GuiLauncher
         return wasAccessed[ 0 ];
     }
 
+    /**
+     * Report the end of a launch recording a CDS archive, once its JVM has exited
+     * (and so finished writing the archive or class list).
+     *
+     * @param key     the archive key
+     * @param process the recording process (null if it didn't start)
+     */
+    private void cdsRecorded( String key, Process process )
+    {
+        try
+        {
+            if ( process != null )
+            {
+                // its output has ended, so it's exiting
+                process.waitFor();
+            }
+
+            appCds.recorded( key );
+        }
+        catch ( InterruptedException e )
+        {
+            // left for the recording to expire
+            Thread.currentThread().interrupt();
+        }
+    }
+
     public void setApplicationUri( String applicationUri )
     {
         this.applicationUri = applicationUri;
@@ -373,11 +725,26 @@ public class GuiLauncher
         this.javaCommand = javaCommand;
     }
 
+    public GuiDriver getDriver()
+    {
+        return driver;
+    }
+
+    public String getJavaVmOptions()
+    {
+        return javaVmOptions;
+    }
+
     public void setJavaVmOptions( String javaVmOptions )
     {
         this.javaVmOptions = javaVmOptions;
     }
 
+    public String getJavaClassPathRoot()
+    {
+        return javaClassPathRoot;
+    }
+
     public void setJavaClassPathRoot( String javaClassPathRoot )
     {
         this.javaClassPathRoot = javaClassPathRoot;
@@ -388,6 +755,11 @@ public class GuiLauncher
         this.javaClassPath = javaClassPath;
     }
 
+    public File getWorkingDirectory()
+    {
+        return workingDirectory;
+    }
+
     public void setWorkingDirectory( File directory )
     {
         this.workingDirectory = directory;
@@ -423,11 +795,96 @@ public class GuiLauncher
         this.firstEchoTimeout = firstEchoTimeout;
     }
 
+    /**
+     * @param readyMarker text in a line of harness output that shows the harness is ready (or null for none)
+     */
+    public void setReadyMarker( String readyMarker )
+    {
+        this.readyMarker = readyMarker == null || readyMarker.isEmpty()
+                ? null
+                : readyMarker;
+    }
+
+    /**
+     * @param readyProbe whether to wait for the harness JMX port to accept a connection before polling with echo
+     */
+    public void setReadyProbe( boolean readyProbe )
+    {
+        this.readyProbe = readyProbe;
+    }
+
+    /**
+     * @param readyTimeout how long to wait for the ready marker or JMX port before polling with echo anyway
+     */
+    public void setReadyTimeout( double readyTimeout )
+    {
+        this.readyTimeout = readyTimeout;
+    }
+
     public void setAddShutdownHook( boolean addShutdownHook )
     {
         this.addShutdownHook = addShutdownHook;
     }
 
+    /**
+     * @param outputCaptureBytes the most harness output to keep in memory (zero to keep none)
+     */
+    public void setOutputCaptureBytes( int outputCaptureBytes )
+    {
+        this.outputCaptureBytes = outputCaptureBytes;
+    }
+
+    /**
+     * @return the output of the last launched harness (or null if none launched)
+     */
+    public HarnessOutputBuffer getHarnessOutput()
+    {
+        return harnessOutput;
+    }
+
+    /**
+     * @param maxBytes the most output wanted
+     * @return the most recent output of the last launched harness (empty if none)
+     */
+    public String getHarnessOutputText( int maxBytes )
+    {
+        final HarnessOutputBuffer output = harnessOutput;
+
+        return output == null
+                ? ""
+                : output.getText( maxBytes );
+    }
+
+    public AppCds getAppCds()
+    {
+        return appCds;
+    }
+
+    /**
+     * @param appCds records a class data sharing archive on the first launch, and uses it on later launches
+     *               (or null for none)
+     */
+    public void setAppCds( AppCds appCds )
+    {
+        this.appCds = appCds;
+    }
+
+    /**
+     * @return how long the last launch took to answer an echo
+     */
+    public long getLastStartupMillis()
+    {
+        return lastStartupMillis;
+    }
+
+    /**
+     * @return how much faster the last launch was for using a class data sharing archive
+     */
+    public long getStartupMillisSaved()
+    {
+        return startupMillisSaved;
+    }
+
     private Thread newShutdownHook()
     {
         return new Thread( () -> {
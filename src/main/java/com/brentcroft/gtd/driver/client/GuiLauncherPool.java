@@ -0,0 +1,385 @@
+package com.brentcroft.gtd.driver.client;
+
+import java.io.Closeable;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import org.apache.log4j.Logger;
+
+import static com.brentcroft.util.DateUtils.secondsToMillis;
+import static java.lang.String.format;
+
+/**
+ * Launches several harness processes at once, each from a copy of a prototype launcher,
+ * with its own free JMX port and working directory, and its own driver.
+ * <p/>
+ * Tests on separate threads <code>acquire()</code> a harness, use its driver, and <code>release()</code> it,
+ * so that as many applications under test are driven at once as there are harnesses.
+ * <p/>
+ * Each harness working directory is a sub-directory (<code>harness-0</code>, <code>harness-1</code>, ...)
+ * of the base directory, which defaults to the prototype's working directory.
+ * Since a harness runs in its own directory, relative classpath entries are resolved against the prototype's
+ * working directory (unless the prototype has a classpath root).
+ */
+public class GuiLauncherPool implements Closeable
+{
+    private final static Logger logger = Logger.getLogger( GuiLauncherPool.class );
+
+    private final GuiLauncher prototype;
+    private final Supplier< ? extends GuiLocalDriver > driverFactory;
+
+    private int size = Runtime.getRuntime().availableProcessors();
+    private File baseDirectory = null;
+
+    private final List< Harness > harnesses = new ArrayList<>();
+    private final LinkedBlockingQueue< Harness > idle = new LinkedBlockingQueue<>();
+
+    private volatile boolean started = false;
+
+    /**
+     * One launched harness: its launcher, driver, JMX port and working directory.
+     */
+    public static class Harness
+    {
+        private final int index;
+        private final int port;
+        private final File workingDirectory;
+        private final GuiLocalDriver driver;
+        private final GuiLauncher launcher;
+
+        private volatile long launchMillis = 0;
+
+        Harness( int index, int port, File workingDirectory, GuiLocalDriver driver, GuiLauncher launcher )
+        {
+            this.index = index;
+            this.port = port;
+            this.workingDirectory = workingDirectory;
+            this.driver = driver;
+            this.launcher = launcher;
+        }
+
+        public String toString()
+        {
+            return format( "harness=[%s], port=[%s], directory=[%s], launch.millis=[%s]",
+                    index,
+                    port,
+                    workingDirectory,
+                    launchMillis );
+        }
+
+        void start()
+        {
+            final long started = System.currentTimeMillis();
+
+            if ( !workingDirectory.isDirectory() && !workingDirectory.mkdirs() )
+            {
+                throw new GuiDriverException( format( "Failed to create working directory: %s", this ) );
+            }
+
+            launcher.startApplication();
+
+            launchMillis = System.currentTimeMillis() - started;
+
+            logger.info( format( "Launched: %s", this ) );
+        }
+
+        void stop()
+        {
+            try
+            {
+                driver.shutdown( 0 );
+            }
+            catch ( Exception e )
+            {
+                // it was a speculative attempt
+                logger.warn( format( "An exception was raised while shutting down the harness: %s; %s", this, e ) );
+            }
+            finally
+            {
+                driver.cleanup();
+                driver.disconnect();
+            }
+
+            try
+            {
+                launcher.stopApplication();
+            }
+            catch ( Exception e )
+            {
+                // it was a speculative attempt
+                logger.warn( format( "An exception was raised while stopping the application: %s; %s", this, e ) );
+            }
+        }
+
+        public int getIndex()
+        {
+            return index;
+        }
+
+        public int getPort()
+        {
+            return port;
+        }
+
+        public File getWorkingDirectory()
+        {
+            return workingDirectory;
+        }
+
+        public GuiLocalDriver getDriver()
+        {
+            return driver;
+        }
+
+        public GuiLauncher getLauncher()
+        {
+            return launcher;
+        }
+
+        /**
+         * @return how long the harness took to start and answer an echo
+         */
+        public long getLaunchMillis()
+        {
+            return launchMillis;
+        }
+    }
+
+    /**
+     * @param prototype     the configuration to copy for each harness
+     * @param driverFactory provides a new (configured) driver for each harness; its url is replaced
+     */
+    public GuiLauncherPool( GuiLauncher prototype, Supplier< ? extends GuiLocalDriver > driverFactory )
+    {
+        this.prototype = prototype;
+        this.driverFactory = driverFactory;
+    }
+
+    public String toString()
+    {
+        return format( "size=[%s], started=[%s], idle=[%s], base.directory=[%s]",
+                size,
+                started,
+                idle.size(),
+                baseDirectory );
+    }
+
+    /**
+     * Launch every harness at once, and wait for them all to answer an echo.
+     * <p/>
+     * If any fails to launch, every harness is stopped.
+     */
+    public synchronized void start()
+    {
+        if ( started )
+        {
+            throw new GuiDriverException( format( "Launcher pool already started: %s", this ) );
+        }
+
+        final File base = baseDirectory != null
+                ? baseDirectory
+                : prototype.getWorkingDirectory() != null
+                        ? prototype.getWorkingDirectory()
+                        : new File( "." );
+
+        final int[] ports = JmxPorts.allocate( size );
+
+        for ( int i = 0; i < size; i++ )
+        {
+            harnesses.add( newHarness( i, ports[ i ], new File( base, "harness-" + i ) ) );
+        }
+
+        final ExecutorService executor = VirtualThreads.newExecutor( "Harness Launcher-", size );
+
+        final List< CompletableFuture< Void > > launches = new ArrayList<>();
+
+        try
+        {
+            for ( Harness harness : harnesses )
+            {
+                launches.add( CompletableFuture.runAsync( harness::start, executor ) );
+            }
+
+            final List< Throwable > failures = new ArrayList<>();
+
+            for ( CompletableFuture< Void > launch : launches )
+            {
+                try
+                {
+                    launch.join();
+                }
+                catch ( RuntimeException e )
+                {
+                    failures.add( e.getCause() == null ? e : e.getCause() );
+                }
+            }
+
+            if ( !failures.isEmpty() )
+            {
+                stopAll();
+
+                GuiDriverException e = new GuiDriverException(
+                        format( "[%s] of [%s] harnesses failed to launch: %s",
+                                failures.size(),
+                                size,
+                                failures.get( 0 ) ),
+                        failures.get( 0 ) );
+
+                failures.stream().skip( 1 ).forEach( e::addSuppressed );
+
+                throw e;
+            }
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+
+        idle.addAll( harnesses );
+
+        started = true;
+
+        logger.info( format( "Launcher pool started: %s", this ) );
+    }
+
+    private Harness newHarness( int index, int port, File workingDirectory )
+    {
+        final GuiLocalDriver driver = driverFactory.get();
+
+        driver.setJmxRmiUrl( JmxPorts.toJmxRmiUrl( port ) );
+
+        final GuiLauncher launcher = prototype.copy( driver );
+
+        launcher.setWorkingDirectory( workingDirectory );
+        launcher.setJavaVmOptions( JmxPorts.withJmxPort( prototype.getJavaVmOptions(), port ) );
+
+        final String root = prototype.getJavaClassPathRoot();
+
+        if ( ( root == null || root.isEmpty() ) && prototype.getWorkingDirectory() != null )
+        {
+            launcher.setJavaClassPathRoot( prototype.getWorkingDirectory().getAbsolutePath() + File.separator );
+        }
+
+        return new Harness( index, port, workingDirectory, driver, launcher );
+    }
+
+    /**
+     * Take a harness that isn't in use, waiting if necessary.
+     *
+     * @param timeoutSeconds how long to wait for one
+     * @return the harness
+     */
+    public Harness acquire( double timeoutSeconds )
+    {
+        if ( !started )
+        {
+            throw new GuiDriverException( format( "Launcher pool not started: %s", this ) );
+        }
+
+        try
+        {
+            Harness harness = idle.poll( secondsToMillis( timeoutSeconds ), TimeUnit.MILLISECONDS );
+
+            if ( harness == null )
+            {
+                throw new GuiDriverException(
+                        format( "No harness available after [%s] seconds: %s", timeoutSeconds, this ) );
+            }
+
+            return harness;
+        }
+        catch ( InterruptedException e )
+        {
+            Thread.currentThread().interrupt();
+
+            throw new GuiDriverException( format( "Interrupted waiting for a harness: %s", this ), e );
+        }
+    }
+
+    /**
+     * Return a harness taken by <code>acquire()</code>.
+     *
+     * @param harness the harness
+     */
+    public void release( Harness harness )
+    {
+        if ( !harnesses.contains( harness ) )
+        {
+            throw new GuiDriverException( format( "Not a harness of this pool: %s", harness ) );
+        }
+
+        if ( started && !idle.contains( harness ) )
+        {
+            idle.offer( harness );
+        }
+    }
+
+    /**
+     * Stop every harness (including any in use).
+     */
+    public synchronized void close()
+    {
+        started = false;
+
+        idle.clear();
+
+        stopAll();
+    }
+
+    private void stopAll()
+    {
+        for ( Harness harness : harnesses )
+        {
+            harness.stop();
+        }
+
+        harnesses.clear();
+    }
+
+    public List< Harness > getHarnesses()
+    {
+        return Collections.unmodifiableList( harnesses );
+    }
+
+    public int getIdle()
+    {
+        return idle.size();
+    }
+
+    public int getSize()
+    {
+        return size;
+    }
+
+    /**
+     * @param size the number of harnesses to launch (defaults to the number of processors)
+     */
+    public void setSize( int size )
+    {
+        this.size = Math.max( 1, size );
+    }
+
+    public File getBaseDirectory()
+    {
+        return baseDirectory;
+    }
+
+    /**
+     * @param baseDirectory the directory in which each harness's working directory is created
+     */
+    public void setBaseDirectory( File baseDirectory )
+    {
+        this.baseDirectory = baseDirectory;
+    }
+
+    public boolean isStarted()
+    {
+        return started;
+    }
+}
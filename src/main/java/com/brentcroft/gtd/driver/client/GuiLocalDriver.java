@@ -1,15 +1,22 @@
 package com.brentcroft.gtd.driver.client;
 
 
+import com.brentcroft.gtd.driver.client.snapshot.SimplePath;
+import com.brentcroft.gtd.driver.client.snapshot.SnapshotIndex;
+import com.brentcroft.gtd.driver.client.snapshot.StreamingEvaluator;
 import com.brentcroft.gtd.driver.utils.CanonicalPath;
 import com.brentcroft.gtd.driver.utils.DataLimit;
 import com.brentcroft.util.Waiter8;
 import com.brentcroft.util.XPathUtils;
 import com.brentcroft.util.XmlUtils;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Properties;
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLStreamException;
 import javax.xml.xpath.XPathConstants;
 import javax.xml.xpath.XPathExpressionException;
+import org.apache.log4j.Logger;
 import org.w3c.dom.Document;
 import org.w3c.dom.Node;
 
@@ -21,6 +28,9 @@ import static java.lang.String.format;
  */
 public class GuiLocalDriver extends AbstractGuiLocalDriver implements GuiDriver
 {
+    private final static Logger logger = Logger.getLogger( GuiLocalDriver.class );
+
+    private volatile SnapshotIndex snapshotIndex = null;
 
     public Object shutdown( int status )
     {
@@ -37,6 +47,138 @@ public class GuiLocalDriver extends AbstractGuiLocalDriver implements GuiDriver
         }
     }
 
+    /**
+     * Start recording a batch of operations, to be run one after another with a single relax at the end.
+     *
+     * @return a new batch
+     */
+    public GuiBatch batch()
+    {
+        return new GuiBatch( this );
+    }
+
+    /**
+     * Obtain a parsed snapshot of the whole GUI,
+     * from the snapshot cache if snapshot caching is on and nothing has happened since.
+     *
+     * @return the GUI serialization as a Document.
+     */
+    protected Document getSnapshotDocument()
+    {
+        if ( snapshotCaching )
+        {
+            return snapshotCache.getDocument( this::fetchSnapshotXmlText );
+        }
+
+        return XmlUtils.parse( fetchSnapshotXmlText() );
+    }
+
+    private String fetchSnapshotXmlText()
+    {
+        String xmlText = reader().getSnapshotXmlText();
+
+        relax( "getSnapshotXmlText" );
+
+        return xmlText;
+    }
+
+    /**
+     * Evaluate an xpath against the XML text of a snapshot,
+     * by streaming if streaming evaluation is on and the xpath is simple enough, otherwise using DOM.
+     *
+     * @param xpath      the xpath to evaluate.
+     * @param xmlText    the snapshot.
+     * @param returnType the XPathConstants type of the result.
+     * @return the result of the evaluation.
+     */
+    protected Object evaluate( String xpath, String xmlText, QName returnType ) throws XPathExpressionException
+    {
+        if ( streamingEvaluation )
+        {
+            SimplePath simplePath = SimplePath.compile( xpath );
+
+            if ( simplePath != null )
+            {
+                try
+                {
+                    Object result = StreamingEvaluator.evaluate( simplePath, xmlText, returnType );
+
+                    if ( result != null )
+                    {
+                        return result;
+                    }
+                }
+                catch ( XMLStreamException e )
+                {
+                    throw new XPathExpressionException( e );
+                }
+            }
+        }
+
+        return XPathUtils
+                .getCompiledPath( xpath )
+                .evaluate(
+                        XmlUtils.parse( xmlText ),
+                        returnType );
+    }
+
+    /**
+     * Obtain the index for a parsed snapshot, building it if it isn't the one last indexed.
+     *
+     * @param document the parsed snapshot.
+     * @return the index.
+     */
+    protected SnapshotIndex getSnapshotIndex( Document document )
+    {
+        SnapshotIndex index = snapshotIndex;
+
+        if ( index == null || index.getDocument() != document || !index.isIndexing( indexedAttributes ) )
+        {
+            index = SnapshotIndex.build( document, indexedAttributes, indexStatistics );
+
+            snapshotIndex = index;
+
+            if ( logger.isDebugEnabled() )
+            {
+                logger.debug( format( "[%s] Indexed snapshot: %s", serial, index ) );
+            }
+        }
+
+        return index;
+    }
+
+    /**
+     * Evaluate an xpath against a parsed snapshot,
+     * using the snapshot index if snapshot indexing is on and the xpath is eligible, otherwise using XPath.
+     *
+     * @param xpath      the xpath to evaluate.
+     * @param document   the parsed snapshot.
+     * @param returnType the XPathConstants type of the result.
+     * @return the result of the evaluation.
+     */
+    protected Object evaluate( String xpath, Document document, QName returnType ) throws XPathExpressionException
+    {
+        if ( snapshotIndexing )
+        {
+            SimplePath simplePath = SimplePath.compile( xpath );
+
+            Object result = simplePath == null
+                    ? null
+                    : getSnapshotIndex( document ).evaluate( simplePath, returnType, indexStatistics );
+
+            if ( result != null )
+            {
+                return result;
+            }
+        }
+
+        return XPathUtils
+                .getCompiledPath( xpath )
+                .evaluate(
+                        document,
+                        returnType );
+    }
+
     /**
      * Apply the path to the GUI serialization to obtain and return a text result.
      *
@@ -48,20 +190,20 @@ public class GuiLocalDriver extends AbstractGuiLocalDriver implements GuiDriver
     {
         CanonicalPath canonicalPath = CanonicalPath.newCanonicalPath( path );
 
-        String xmlText = remote().getSnapshotXmlText();
-
-        relax();
-
         try
         {
-            return ( String ) XPathUtils
-                    .getCompiledPath(
-                            canonicalPath
-                                    .getXPath() )
-                    .evaluate(
-                            XmlUtils
-                                    .parse( xmlText ),
-                            XPathConstants.STRING );
+            if ( streamingEvaluation && !snapshotCaching )
+            {
+                return ( String ) evaluate(
+                        canonicalPath.getXPath(),
+                        fetchSnapshotXmlText(),
+                        XPathConstants.STRING );
+            }
+
+            return ( String ) evaluate(
+                    canonicalPath.getXPath(),
+                    getSnapshotDocument(),
+                    XPathConstants.STRING );
         }
         catch ( XPathExpressionException e )
         {
@@ -69,42 +211,92 @@ public class GuiLocalDriver extends AbstractGuiLocalDriver implements GuiDriver
         }
     }
 
+    /**
+     * Apply each path to a single GUI serialization to obtain and return text results.
+     *
+     * @param namedPaths a map of names to the xpaths to be evaluated on the GUI serialization.
+     * @return a map of the same names to the text result of each xpath evaluation.
+     */
+    @Override
+    public Map< String, String > getResultTexts( Map< String, String > namedPaths )
+    {
+        Document document = getSnapshotDocument();
+
+        Map< String, String > results = new LinkedHashMap<>();
+
+        for ( Map.Entry< String, String > namedPath : namedPaths.entrySet() )
+        {
+            String path = namedPath.getValue();
+
+            try
+            {
+                results.put(
+                        namedPath.getKey(),
+                        ( String ) evaluate(
+                                CanonicalPath
+                                        .newCanonicalPath( path )
+                                        .getXPath(),
+                                document,
+                                XPathConstants.STRING ) );
+            }
+            catch ( XPathExpressionException e )
+            {
+                throw new RuntimeException(
+                        format( "Failed to evaluate path expression [%s] named [%s]", path, namedPath.getKey() ), e );
+            }
+        }
+
+        return results;
+    }
 
     /**
-     * Get a snapshot the object at the given path and then Apply the path to the GUI serialization to obtain and return
-     * a text result.
+     * Obtain a snapshot of the component at the given path.
      *
-     * @param path the xpath to be evaluated on the GUI serialization.
-     * @return the text result of the xpath evaluation.
+     * @return the component element, or null if there's no such component.
      */
-    public String getComponentResultText( String path, String resultPath, Map< String, Object > options )
+    private Node getComponentNode( String path, Map< String, Object > options )
     {
-        String xmlText = remote()
+        String xmlText = reader()
                 .getSnapshotXmlText( path, options );
 
-        relax();
+        relax( "getSnapshotXmlText" );
 
-        try
+        Document document = XmlUtils
+                .parse( xmlText );
+
+        XmlUtils.removeTrimmedEmptyTextNodes( document );
+
+        Node node = document
+                .getDocumentElement()
+                .getFirstChild();
+
+        while ( node != null && node.getNodeType() != Node.ELEMENT_NODE )
         {
-            Document document = XmlUtils
-                    .parse( xmlText );
+            node = node.getNextSibling();
+        }
 
-            XmlUtils.removeTrimmedEmptyTextNodes( document );
+        return node;
+    }
 
-            Node node = document
-                    .getDocumentElement()
-                    .getFirstChild();
 
-            while ( node != null && node.getNodeType() != Node.ELEMENT_NODE )
-            {
-                node = node.getNextSibling();
-            }
+    /**
+     * Get a snapshot the object at the given path and then Apply the path to the GUI serialization to obtain and return
+     * a text result.
+     *
+     * @param path the xpath to be evaluated on the GUI serialization.
+     * @return the text result of the xpath evaluation.
+     */
+    public String getComponentResultText( String path, String resultPath, Map< String, Object > options )
+    {
+        Node node = getComponentNode( path, options );
 
-            if ( node == null || node.getNodeType() != Node.ELEMENT_NODE )
-            {
-                return null;
-            }
+        if ( node == null )
+        {
+            return null;
+        }
 
+        try
+        {
             return ( String ) XPathUtils
                     .getCompiledPath( resultPath )
                     .evaluate( node, XPathConstants.STRING );
@@ -135,6 +327,51 @@ public class GuiLocalDriver extends AbstractGuiLocalDriver implements GuiDriver
         return getComponentResultText( path, resultPath, options );
     }
 
+    /**
+     * Get a snapshot of the object at the given path and then apply each result path to it
+     * to obtain and return text results.
+     *
+     * @param path             the address of the component.
+     * @param namedResultPaths a map of names to the xpaths to be evaluated on the component serialization.
+     * @return a map of the same names to the text result of each xpath evaluation
+     * (all null if there's no component at the path).
+     */
+    @Override
+    public Map< String, String > getComponentResultTexts( String path, Map< String, String > namedResultPaths )
+    {
+        Node node = getComponentNode( path, DataLimit.getMaxDataLimitsOptions() );
+
+        Map< String, String > results = new LinkedHashMap<>();
+
+        for ( Map.Entry< String, String > namedResultPath : namedResultPaths.entrySet() )
+        {
+            String resultPath = namedResultPath.getValue();
+
+            try
+            {
+                results.put(
+                        namedResultPath.getKey(),
+                        node == null
+                                ? null
+                                : ( String ) XPathUtils
+                                        .getCompiledPath( resultPath )
+                                        .evaluate( node, XPathConstants.STRING ) );
+            }
+            catch ( XPathExpressionException e )
+            {
+                throw new RuntimeException(
+                        format(
+                                "Failed to process xpath [%s] named [%s] at location [%s].",
+                                resultPath,
+                                namedResultPath.getKey(),
+                                path ),
+                        e );
+            }
+        }
+
+        return results;
+    }
+
     /**
      * Apply the path to the GUI serialization to obtain and return a boolean result.
      *
@@ -145,19 +382,16 @@ public class GuiLocalDriver extends AbstractGuiLocalDriver implements GuiDriver
     {
         Map< String, Object > options = DataLimit.getMaxDataLimitsOptions();
 
-        String xmlText = remote().getSnapshotXmlText( path, options );
+        String xmlText = reader().getSnapshotXmlText( path, options );
 
-        relax();
+        relax( "getSnapshotXmlText" );
 
         try
         {
-            Node node = XmlUtils.parse( xmlText );
-
-            return ( boolean ) XPathUtils
-                    .getCompiledPath( booleanPath )
-                    .evaluate(
-                            node,
-                            XPathConstants.BOOLEAN );
+            return ( boolean ) evaluate(
+                    booleanPath,
+                    xmlText,
+                    XPathConstants.BOOLEAN );
         }
         catch ( XPathExpressionException e )
         {
@@ -191,7 +425,7 @@ public class GuiLocalDriver extends AbstractGuiLocalDriver implements GuiDriver
         }
         finally
         {
-            relax();
+            relax( "configure" );
         }
     }
 
@@ -240,7 +474,7 @@ public class GuiLocalDriver extends AbstractGuiLocalDriver implements GuiDriver
         }
         finally
         {
-            relax();
+            relax( "gc" );
         }
     }
 
@@ -260,11 +494,11 @@ public class GuiLocalDriver extends AbstractGuiLocalDriver implements GuiDriver
     {
         try
         {
-            return remote().getSnapshotXmlText();
+            return reader().getSnapshotXmlText();
         }
         finally
         {
-            relax();
+            relax( "getSnapshotXmlText" );
         }
     }
 
@@ -274,11 +508,11 @@ public class GuiLocalDriver extends AbstractGuiLocalDriver implements GuiDriver
     {
         try
         {
-            return remote().getSnapshotXmlText( options );
+            return reader().getSnapshotXmlText( options );
         }
         finally
         {
-            relax();
+            relax( "getSnapshotXmlText" );
         }
     }
 
@@ -289,7 +523,7 @@ public class GuiLocalDriver extends AbstractGuiLocalDriver implements GuiDriver
         try
         {
             // TODO: options can't be null, until fix bug in harness implementation
-            return remote()
+            return reader()
                     .getSnapshotXmlText(
                             path,
                             options == null
@@ -298,7 +532,7 @@ public class GuiLocalDriver extends AbstractGuiLocalDriver implements GuiDriver
         }
         finally
         {
-            relax();
+            relax( "getSnapshotXmlText" );
         }
     }
 
@@ -326,7 +560,7 @@ public class GuiLocalDriver extends AbstractGuiLocalDriver implements GuiDriver
     {
         try
         {
-            return remote()
+            return reader()
                     .exists(
                             path,
                             timeoutSeconds,
@@ -334,7 +568,7 @@ public class GuiLocalDriver extends AbstractGuiLocalDriver implements GuiDriver
         }
         finally
         {
-            relax();
+            relax( "exists" );
         }
     }
 
@@ -358,7 +592,7 @@ public class GuiLocalDriver extends AbstractGuiLocalDriver implements GuiDriver
     {
         try
         {
-            return remote()
+            return reader()
                     .notExists(
                             path,
                             timeoutSeconds,
@@ -366,7 +600,7 @@ public class GuiLocalDriver extends AbstractGuiLocalDriver implements GuiDriver
         }
         finally
         {
-            relax();
+            relax( "notExists" );
         }
     }
 
@@ -384,16 +618,76 @@ public class GuiLocalDriver extends AbstractGuiLocalDriver implements GuiDriver
     {
         try
         {
-            new Waiter8()
-                    .withDelayMillis( secondsToMillis( pollIntervalSeconds ) )
-                    .withTimeoutMillis( secondsToMillis( timeoutSeconds ) )
-                    .until( () -> getComponentResult( path, booleanPath ) );
+            if ( eventDrivenWaits )
+            {
+                waitForActivity( path, booleanPath, timeoutSeconds, pollIntervalSeconds );
+            }
+            else
+            {
+                new Waiter8()
+                        .withDelayMillis( secondsToMillis( pollIntervalSeconds ) )
+                        .withTimeoutMillis( secondsToMillis( timeoutSeconds ) )
+                        .until( () -> getComponentResult( path, booleanPath ) );
+            }
 
             return true;
         }
         finally
         {
-            relax();
+            relax( "waitFor" );
+        }
+    }
+
+
+    /**
+     * Evaluate the condition, and then again each time the harness reports GUI activity
+     * (or after the poll interval if there is none), until it is true.
+     *
+     * @throws GuiDriverException if the condition is not true before the timeout.
+     */
+    private void waitForActivity( String path, String booleanPath, double timeoutSeconds, double pollIntervalSeconds )
+    {
+        final long started = System.currentTimeMillis();
+        final long deadline = started + secondsToMillis( timeoutSeconds );
+        final long pollMillis = Math.max( 1, secondsToMillis( pollIntervalSeconds ) );
+
+        int evaluations = 0;
+
+        while ( true )
+        {
+            // read before evaluating so activity during evaluation isn't missed
+            long seen = activityMonitor.getActivityCount();
+
+            evaluations++;
+
+            if ( getComponentResult( path, booleanPath ) )
+            {
+                if ( logger.isDebugEnabled() )
+                {
+                    logger.debug( format( "[%s] Waited for [%s] at [%s]: millis=[%s], evaluations=[%s].",
+                            serial,
+                            booleanPath,
+                            path,
+                            System.currentTimeMillis() - started,
+                            evaluations ) );
+                }
+
+                return;
+            }
+
+            long remaining = deadline - System.currentTimeMillis();
+
+            if ( remaining <= 0 )
+            {
+                throw new GuiDriverException(
+                        format( "[%s] Timed out after [%s] seconds waiting for [%s] at [%s].",
+                                serial,
+                                timeoutSeconds,
+                                booleanPath,
+                                path ) );
+            }
+
+            activityMonitor.awaitActivity( seen, Math.min( remaining, pollMillis ) );
         }
     }
 
@@ -416,7 +710,7 @@ public class GuiLocalDriver extends AbstractGuiLocalDriver implements GuiDriver
         }
         finally
         {
-            relax();
+            relax( "click" );
         }
     }
 
@@ -452,7 +746,7 @@ public class GuiLocalDriver extends AbstractGuiLocalDriver implements GuiDriver
         }
         finally
         {
-            relax();
+            relax( "robotDoubleClick" );
         }
 
     }
@@ -501,7 +795,7 @@ public class GuiLocalDriver extends AbstractGuiLocalDriver implements GuiDriver
         }
         finally
         {
-            relax();
+            relax( "robotClick" );
         }
     }
 
@@ -545,7 +839,7 @@ public class GuiLocalDriver extends AbstractGuiLocalDriver implements GuiDriver
         }
         finally
         {
-            relax();
+            relax( "robotClickPoint" );
         }
     }
 
@@ -559,7 +853,7 @@ public class GuiLocalDriver extends AbstractGuiLocalDriver implements GuiDriver
         }
         finally
         {
-            relax();
+            relax( "robotDoubleClickPoint" );
         }
     }
 
@@ -583,7 +877,7 @@ public class GuiLocalDriver extends AbstractGuiLocalDriver implements GuiDriver
         }
         finally
         {
-            relax();
+            relax( "robotKeys" );
         }
     }
 
@@ -604,7 +898,7 @@ public class GuiLocalDriver extends AbstractGuiLocalDriver implements GuiDriver
         }
         finally
         {
-            relax();
+            relax( "robotKeysPoint" );
         }
     }
 
@@ -657,7 +951,7 @@ public class GuiLocalDriver extends AbstractGuiLocalDriver implements GuiDriver
         }
         finally
         {
-            relax();
+            relax( "execute" );
         }
     }
 
@@ -676,7 +970,7 @@ public class GuiLocalDriver extends AbstractGuiLocalDriver implements GuiDriver
         }
         finally
         {
-            relax();
+            relax( "selectTableRow" );
         }
     }
 
@@ -708,7 +1002,7 @@ public class GuiLocalDriver extends AbstractGuiLocalDriver implements GuiDriver
         }
         finally
         {
-            relax();
+            relax( "selectTableColumn" );
         }
     }
 
@@ -741,7 +1035,7 @@ public class GuiLocalDriver extends AbstractGuiLocalDriver implements GuiDriver
         }
         finally
         {
-            relax();
+            relax( "selectTableCell" );
         }
     }
 
@@ -774,7 +1068,7 @@ public class GuiLocalDriver extends AbstractGuiLocalDriver implements GuiDriver
         }
         finally
         {
-            relax();
+            relax( "selectTreeNode" );
         }
     }
 
@@ -805,7 +1099,7 @@ public class GuiLocalDriver extends AbstractGuiLocalDriver implements GuiDriver
         }
         finally
         {
-            relax();
+            relax( "setSelectedIndex" );
         }
     }
 
@@ -828,7 +1122,7 @@ public class GuiLocalDriver extends AbstractGuiLocalDriver implements GuiDriver
     {
         try
         {
-            return remote()
+            return reader()
                     .getSelectedIndex(
                             path,
                             timeoutSeconds,
@@ -836,7 +1130,7 @@ public class GuiLocalDriver extends AbstractGuiLocalDriver implements GuiDriver
         }
         finally
         {
-            relax();
+            relax( "getSelectedIndex" );
         }
     }
 
@@ -859,7 +1153,7 @@ public class GuiLocalDriver extends AbstractGuiLocalDriver implements GuiDriver
     {
         try
         {
-            return remote()
+            return reader()
                     .getItemCount(
                             path,
                             timeoutSeconds,
@@ -867,7 +1161,7 @@ public class GuiLocalDriver extends AbstractGuiLocalDriver implements GuiDriver
         }
         finally
         {
-            relax();
+            relax( "getItemCount" );
         }
     }
 
@@ -897,7 +1191,7 @@ public class GuiLocalDriver extends AbstractGuiLocalDriver implements GuiDriver
     {
         try
         {
-            return remote()
+            return reader()
                     .getText(
                             path,
                             timeoutSeconds,
@@ -905,7 +1199,7 @@ public class GuiLocalDriver extends AbstractGuiLocalDriver implements GuiDriver
         }
         finally
         {
-            relax();
+            relax( "getText" );
         }
     }
 
@@ -944,7 +1238,7 @@ public class GuiLocalDriver extends AbstractGuiLocalDriver implements GuiDriver
         }
         finally
         {
-            relax();
+            relax( "setText" );
         }
     }
 
@@ -968,7 +1262,7 @@ public class GuiLocalDriver extends AbstractGuiLocalDriver implements GuiDriver
     {
         try
         {
-            return remote()
+            return reader()
                     .existsAll(
                             timeoutSeconds,
                             pollIntervalSeconds,
@@ -976,7 +1270,7 @@ public class GuiLocalDriver extends AbstractGuiLocalDriver implements GuiDriver
         }
         finally
         {
-            relax();
+            relax( "existsAll" );
         }
     }
 
@@ -995,6 +1289,102 @@ public class GuiLocalDriver extends AbstractGuiLocalDriver implements GuiDriver
     }
 
 
+    @Override
+    public WaitResult waitForAny( double timeoutSeconds, String... paths )
+    {
+        return waitForPaths( false, timeoutSeconds, defaultPollDelaySeconds, paths );
+    }
+
+
+    @Override
+    public WaitResult waitForAny( String... paths )
+    {
+        return waitForAny( defaultTimeoutSeconds, paths );
+    }
+
+
+    @Override
+    public WaitResult waitForAll( double timeoutSeconds, String... paths )
+    {
+        return waitForPaths( true, timeoutSeconds, defaultPollDelaySeconds, paths );
+    }
+
+
+    @Override
+    public WaitResult waitForAll( String... paths )
+    {
+        return waitForAll( defaultTimeoutSeconds, paths );
+    }
+
+
+    /**
+     * Check all the paths with one <code>existsAll</code> call per cycle until any (or all) of them exist.
+     * <p/>
+     * Between cycles, wait for GUI activity if event driven waits are on, otherwise for the poll interval.
+     * <p/>
+     * With no paths, returns at once: none matched, and so all matched.
+     */
+    private WaitResult waitForPaths( boolean all, double timeoutSeconds, double pollIntervalSeconds, String... paths )
+    {
+        final WaitResult result = new WaitResult( paths );
+
+        if ( paths.length == 0 )
+        {
+            // nothing to ask the harness
+            result.finish();
+
+            return result;
+        }
+        final long deadline = System.currentTimeMillis() + secondsToMillis( timeoutSeconds );
+        final long pollMillis = Math.max( 1, secondsToMillis( pollIntervalSeconds ) );
+
+        try
+        {
+            while ( true )
+            {
+                long seen = activityMonitor.getActivityCount();
+
+                // just check - don't wait remotely
+                result.update( reader().existsAll( 0, pollIntervalSeconds, paths ) );
+
+                if ( all ? result.allMatched() : result.anyMatched() )
+                {
+                    break;
+                }
+
+                long remaining = deadline - System.currentTimeMillis();
+
+                if ( remaining <= 0 )
+                {
+                    break;
+                }
+
+                if ( eventDrivenWaits )
+                {
+                    activityMonitor.awaitActivity( seen, Math.min( remaining, pollMillis ) );
+                }
+                else
+                {
+                    Waiter8.delay( Math.min( remaining, pollMillis ) );
+                }
+            }
+
+            result.finish();
+
+            if ( logger.isDebugEnabled() )
+            {
+                logger.debug( format( "[%s] Waited for %s: %s", serial, all ? "all" : "any", result ) );
+            }
+
+            return result;
+        }
+        finally
+        {
+            relax( "existsAll" );
+        }
+    }
+
+
     @Override
     public Object echo( Object o )
     {
@@ -178,6 +178,9 @@ public class GuiLocalSession extends AbstractGuiSession
             // primarily to drop its listeners
             getDriver().cleanup();
 
+            // and release its connection
+            getDriver().disconnect();
+
             started = null;
             stopped = System.currentTimeMillis();
 
@@ -0,0 +1,228 @@
+package com.brentcroft.gtd.driver.client;
+
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+import static java.lang.String.format;
+
+/**
+ * Keeps the most recent output of a harness process as raw bytes, in a ring preallocated when created,
+ * so capturing costs a copy per read and nothing is decoded unless asked for.
+ * <p/>
+ * Optionally watches the bytes for a marker (e.g. a line the harness prints when it's ready),
+ * running a callback the first time the marker is seen; the marker may be split across writes.
+ */
+public class HarnessOutputBuffer
+{
+    private final byte[] ring;
+    private final Charset charset;
+
+    // guarded by this
+    private long written = 0;
+
+    // marker matching (KMP), guarded by this
+    private byte[] marker = null;
+    private int[] fallback = null;
+    private int matched = 0;
+    private Runnable onMarker = null;
+
+    private volatile boolean marked = false;
+
+    /**
+     * @param capacity the most bytes kept (zero to keep none)
+     */
+    public HarnessOutputBuffer( int capacity )
+    {
+        this( capacity, Charset.defaultCharset() );
+    }
+
+    /**
+     * @param capacity the most bytes kept (zero to keep none)
+     * @param charset  the charset of the output
+     */
+    public HarnessOutputBuffer( int capacity, Charset charset )
+    {
+        this.ring = new byte[ Math.max( 0, capacity ) ];
+        this.charset = charset;
+    }
+
+    public synchronized String toString()
+    {
+        return format( "capacity=[%s], written=[%s], marked=[%s]", ring.length, written, marked );
+    }
+
+    /**
+     * @param text     the text to watch for
+     * @param onMarker run (on the writing thread) the first time the text is seen
+     */
+    public synchronized void setMarker( String text, Runnable onMarker )
+    {
+        this.marker = text.getBytes( charset );
+        this.onMarker = onMarker;
+        this.matched = 0;
+        this.marked = false;
+
+        // the length of the longest proper prefix of marker[0..i] that's also a suffix
+        this.fallback = new int[ marker.length ];
+
+        for ( int i = 1, k = 0; i < marker.length; i++ )
+        {
+            while ( k > 0 && marker[ i ] != marker[ k ] )
+            {
+                k = fallback[ k - 1 ];
+            }
+
+            if ( marker[ i ] == marker[ k ] )
+            {
+                k++;
+            }
+
+            fallback[ i ] = k;
+        }
+    }
+
+    /**
+     * Keep bytes (only the last <code>capacity</code> if there are more), and watch them for the marker.
+     *
+     * @param bytes  the source
+     * @param offset the first byte
+     * @param length the number of bytes
+     */
+    public void write( byte[] bytes, int offset, int length )
+    {
+        Runnable fire = null;
+
+        synchronized ( this )
+        {
+            final int capacity = ring.length;
+
+            if ( capacity > 0 )
+            {
+                // only the last capacity bytes can survive
+                final int skip = Math.max( 0, length - capacity );
+                final int n = length - skip;
+                final int start = ( int ) ( ( written + skip ) % capacity );
+                final int first = Math.min( n, capacity - start );
+
+                System.arraycopy( bytes, offset + skip, ring, start, first );
+                System.arraycopy( bytes, offset + skip + first, ring, 0, n - first );
+            }
+
+            written += length;
+
+            if ( marker != null && !marked && match( bytes, offset, length ) )
+            {
+                marked = true;
+                fire = onMarker;
+            }
+        }
+
+        if ( fire != null )
+        {
+            fire.run();
+        }
+    }
+
+    private boolean match( byte[] bytes, int offset, int length )
+    {
+        if ( marker.length == 0 )
+        {
+            return true;
+        }
+
+        for ( int i = offset, end = offset + length; i < end; i++ )
+        {
+            while ( matched > 0 && bytes[ i ] != marker[ matched ] )
+            {
+                matched = fallback[ matched - 1 ];
+            }
+
+            if ( bytes[ i ] == marker[ matched ] )
+            {
+                matched++;
+
+                if ( matched == marker.length )
+                {
+                    return true;
+                }
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * @param maxBytes the most bytes wanted
+     * @return the most recent bytes (no more than <code>maxBytes</code>, or than are kept)
+     */
+    public synchronized byte[] getBytes( int maxBytes )
+    {
+        final int capacity = ring.length;
+        final int n = ( int ) Math.min( Math.min( maxBytes, capacity ), written );
+        final byte[] bytes = new byte[ n ];
+
+        if ( n > 0 )
+        {
+            final int start = ( int ) ( ( written - n ) % capacity );
+            final int first = Math.min( n, capacity - start );
+
+            System.arraycopy( ring, start, bytes, 0, first );
+            System.arraycopy( ring, 0, bytes, first, n - first );
+        }
+
+        return bytes;
+    }
+
+    /**
+     * Decode the most recent output.
+     *
+     * @param maxBytes the most bytes to decode
+     * @return the text
+     */
+    public String getText( int maxBytes )
+    {
+        final byte[] bytes = getBytes( maxBytes );
+
+        int start = 0;
+
+        if ( StandardCharsets.UTF_8.equals( charset ) )
+        {
+            // don't start part way through a character
+            while ( start < bytes.length && start < 3 && ( bytes[ start ] & 0xC0 ) == 0x80 )
+            {
+                start++;
+            }
+        }
+
+        return new String( bytes, start, bytes.length - start, charset );
+    }
+
+    /**
+     * @return all the output kept, decoded
+     */
+    public String getText()
+    {
+        return getText( ring.length );
+    }
+
+    public int getCapacity()
+    {
+        return ring.length;
+    }
+
+    /**
+     * @return the number of bytes ever written (including those no longer kept)
+     */
+    public synchronized long getWritten()
+    {
+        return written;
+    }
+
+    /**
+     * @return true if the marker has been seen
+     */
+    public boolean isMarked()
+    {
+        return marked;
+    }
+}
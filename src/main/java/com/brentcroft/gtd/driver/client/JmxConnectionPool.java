@@ -0,0 +1,393 @@
+package com.brentcroft.gtd.driver.client;
+
+import com.brentcroft.gtd.driver.GuiControllerMBean;
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.management.JMX;
+import javax.management.NotificationListener;
+import javax.management.ObjectName;
+import javax.management.remote.JMXConnectionNotification;
+import javax.management.remote.JMXConnector;
+import javax.management.remote.JMXConnectorFactory;
+import javax.management.remote.JMXServiceURL;
+import org.apache.log4j.Logger;
+
+import static java.lang.String.format;
+
+/**
+ * A pool of JMX connections (each with its own connector and MBean proxy) to one harness,
+ * so that calls from several threads use separate connections.
+ * <p/>
+ * <code>getController()</code> provides a GuiControllerMBean that checks out a connection for each call,
+ * and returns it afterwards. Connections are opened as needed, up to the pool size.
+ * <p/>
+ * Each connection listens to its own connector, and is discarded (rather than returned, or handed out again)
+ * when it fails or closes, or when a call fails with an IOException.
+ * No harness notification listener is attached to pooled connections: the driver's primary connection
+ * receives notifications, so that each is only received once.
+ */
+public class JmxConnectionPool implements Closeable
+{
+    private final static Logger logger = Logger.getLogger( JmxConnectionPool.class );
+
+    // the longest a waiting checkout sleeps before looking for room to open a connection
+    private static final long WAIT_SLICE_NANOS = TimeUnit.MILLISECONDS.toNanos( 50 );
+
+    private final String jmxRmiUrl;
+    private final String mBeanRef;
+    private final int size;
+    private final long checkoutTimeoutMillis;
+
+    private final BlockingQueue< PooledConnection > idle;
+    private final AtomicInteger open = new AtomicInteger();
+    private volatile boolean closed = false;
+
+    private final GuiControllerMBean controller;
+
+    // metrics
+    private final AtomicLong checkouts = new AtomicLong();
+    private final AtomicLong waits = new AtomicLong();
+    private final AtomicLong opened = new AtomicLong();
+    private final AtomicLong discarded = new AtomicLong();
+
+    private class PooledConnection
+    {
+        final JMXConnector connector;
+        final GuiControllerMBean proxy;
+        volatile boolean broken = false;
+
+        final NotificationListener connectionListener = ( notification, handback ) -> {
+
+            String type = notification.getType();
+
+            if ( JMXConnectionNotification.FAILED.equals( type ) || JMXConnectionNotification.CLOSED.equals( type ) )
+            {
+                broken = true;
+            }
+        };
+
+        PooledConnection() throws Exception
+        {
+            connector = JMXConnectorFactory.connect( new JMXServiceURL( jmxRmiUrl ), null );
+
+            try
+            {
+                connector.addConnectionNotificationListener( connectionListener, null, null );
+
+                proxy = JMX.newMBeanProxy(
+                        connector.getMBeanServerConnection(),
+                        new ObjectName( mBeanRef ),
+                        GuiControllerMBean.class,
+                        false );
+            }
+            catch ( Exception e )
+            {
+                close();
+
+                throw e;
+            }
+        }
+
+        void close()
+        {
+            try
+            {
+                connector.close();
+            }
+            catch ( IOException ignored )
+            {
+                // already gone
+            }
+        }
+    }
+
+    /**
+     * @param jmxRmiUrl             the harness url
+     * @param mBeanRef              the name of the GuiControllerMBean
+     * @param size                  the most connections to open
+     * @param checkoutTimeoutMillis how long to wait for a connection when all are in use
+     */
+    public JmxConnectionPool( String jmxRmiUrl, String mBeanRef, int size, long checkoutTimeoutMillis )
+    {
+        this.jmxRmiUrl = jmxRmiUrl;
+        this.mBeanRef = mBeanRef;
+        this.size = Math.max( 1, size );
+        this.checkoutTimeoutMillis = checkoutTimeoutMillis;
+        this.idle = new ArrayBlockingQueue<>( this.size );
+
+        this.controller = ( GuiControllerMBean ) Proxy.newProxyInstance(
+                GuiControllerMBean.class.getClassLoader(),
+                new Class[]{ GuiControllerMBean.class },
+                ( proxy, method, args ) -> {
+
+                    if ( method.getDeclaringClass() == Object.class )
+                    {
+                        switch ( method.getName() )
+                        {
+                            case "equals":
+                                return proxy == args[ 0 ];
+
+                            case "hashCode":
+                                return System.identityHashCode( proxy );
+
+                            default:
+                                return toString();
+                        }
+                    }
+
+                    PooledConnection connection = checkout();
+
+                    try
+                    {
+                        return method.invoke( connection.proxy, args );
+                    }
+                    catch ( InvocationTargetException e )
+                    {
+                        if ( isConnectionFailure( e.getCause() ) )
+                        {
+                            connection.broken = true;
+                        }
+
+                        throw e.getCause();
+                    }
+                    finally
+                    {
+                        checkin( connection );
+                    }
+                } );
+    }
+
+    public String toString()
+    {
+        return format( "url=[%s], size=[%s], open=[%s], idle=[%s], checkouts=[%s], waits=[%s], opened=[%s], discarded=[%s]",
+                jmxRmiUrl,
+                size,
+                open.get(),
+                idle.size(),
+                checkouts.get(),
+                waits.get(),
+                opened.get(),
+                discarded.get() );
+    }
+
+    private static boolean isConnectionFailure( Throwable t )
+    {
+        for ( ; t != null; t = t.getCause() )
+        {
+            if ( t instanceof IOException )
+            {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * @return a GuiControllerMBean that makes each call on a pooled connection
+     */
+    public GuiControllerMBean getController()
+    {
+        return controller;
+    }
+
+    private PooledConnection checkout()
+    {
+        if ( closed )
+        {
+            throw new GuiDriverException( format( "Connection pool is closed: url=[%s].", jmxRmiUrl ) );
+        }
+
+        checkouts.incrementAndGet();
+
+        final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos( checkoutTimeoutMillis );
+
+        boolean waited = false;
+
+        while ( true )
+        {
+            if ( closed )
+            {
+                throw new GuiDriverException( format( "Connection pool is closed: url=[%s].", jmxRmiUrl ) );
+            }
+
+            PooledConnection connection = idle.poll();
+
+            if ( connection == null )
+            {
+                connection = open();
+            }
+
+            if ( connection == null )
+            {
+                final long remaining = deadline - System.nanoTime();
+
+                if ( remaining <= 0 )
+                {
+                    throw new GuiDriverException( format( "No pooled connection available after [%s] millis: %s", checkoutTimeoutMillis, this ) );
+                }
+
+                if ( !waited )
+                {
+                    waited = true;
+                    waits.incrementAndGet();
+                }
+
+                try
+                {
+                    // wake now and then, in case a broken connection was discarded, leaving room to open another
+                    connection = idle.poll( Math.min( remaining, WAIT_SLICE_NANOS ), TimeUnit.NANOSECONDS );
+                }
+                catch ( InterruptedException e )
+                {
+                    Thread.currentThread().interrupt();
+
+                    throw new GuiDriverException( format( "Interrupted waiting for a pooled connection: %s", this ), e );
+                }
+            }
+
+            if ( connection == null )
+            {
+                continue;
+            }
+
+            if ( connection.broken )
+            {
+                // failed or closed while idle
+                discard( connection );
+                continue;
+            }
+
+            return connection;
+        }
+    }
+
+    /**
+     * @return a new connection, or null if the pool already has as many as it may
+     */
+    private PooledConnection open()
+    {
+        for ( int n = open.get(); n < size; n = open.get() )
+        {
+            if ( open.compareAndSet( n, n + 1 ) )
+            {
+                try
+                {
+                    PooledConnection connection = new PooledConnection();
+
+                    opened.incrementAndGet();
+
+                    if ( logger.isDebugEnabled() )
+                    {
+                        logger.debug( format( "Opened pooled connection: %s", this ) );
+                    }
+
+                    return connection;
+                }
+                catch ( Exception e )
+                {
+                    open.decrementAndGet();
+
+                    throw new GuiDriverException( format( "Failed to open pooled connection: url=[%s], id=[%s], cause=[%s].",
+                            jmxRmiUrl,
+                            mBeanRef,
+                            e ), e );
+                }
+            }
+        }
+
+        return null;
+    }
+
+    private void checkin( PooledConnection connection )
+    {
+        if ( closed || connection.broken || !idle.offer( connection ) )
+        {
+            discard( connection );
+        }
+        else if ( closed && idle.remove( connection ) )
+        {
+            // close() drained idle before the offer
+            discard( connection );
+        }
+    }
+
+    private void discard( PooledConnection connection )
+    {
+        connection.close();
+
+        open.decrementAndGet();
+        discarded.incrementAndGet();
+
+        if ( logger.isDebugEnabled() )
+        {
+            logger.debug( format( "Discarded pooled connection: %s", this ) );
+        }
+    }
+
+    /**
+     * Close the idle connections; connections in use are closed when the call completes.
+     */
+    public void close()
+    {
+        closed = true;
+
+        List< PooledConnection > connections = new ArrayList<>();
+
+        idle.drainTo( connections );
+
+        connections.forEach( this::discard );
+    }
+
+    public String getJmxRmiUrl()
+    {
+        return jmxRmiUrl;
+    }
+
+    public int getSize()
+    {
+        return size;
+    }
+
+    public int getOpen()
+    {
+        return open.get();
+    }
+
+    public int getIdle()
+    {
+        return idle.size();
+    }
+
+    public long getCheckouts()
+    {
+        return checkouts.get();
+    }
+
+    /**
+     * @return the number of checkouts that had to wait for a connection to be returned
+     */
+    public long getWaits()
+    {
+        return waits.get();
+    }
+
+    public long getOpened()
+    {
+        return opened.get();
+    }
+
+    public long getDiscarded()
+    {
+        return discarded.get();
+    }
+}
@@ -0,0 +1,115 @@
+package com.brentcroft.gtd.driver.client;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import static java.lang.String.format;
+
+/**
+ * Allocates free local ports for harness JMX connectors, and builds the matching options and urls.
+ */
+public class JmxPorts
+{
+    private static final Pattern PORT_OPTIONS = Pattern.compile(
+            "\\s*-Dcom\\.sun\\.management\\.jmxremote\\.(rmi\\.)?port=\\S*" );
+
+    private JmxPorts()
+    {
+    }
+
+    /**
+     * Find ports that are free now.
+     * <p/>
+     * Each port is found by binding a server socket to port zero;
+     * all the sockets are held open until every port is found, so the ports are distinct.
+     * Another process could still take a port before the harness binds it.
+     *
+     * @param count the number of ports wanted
+     * @return the ports
+     */
+    public static int[] allocate( int count )
+    {
+        final List< ServerSocket > sockets = new ArrayList<>();
+
+        try
+        {
+            final int[] ports = new int[ count ];
+
+            for ( int i = 0; i < count; i++ )
+            {
+                ServerSocket socket = new ServerSocket( 0 );
+
+                sockets.add( socket );
+
+                ports[ i ] = socket.getLocalPort();
+            }
+
+            return ports;
+        }
+        catch ( IOException e )
+        {
+            throw new GuiDriverException( format( "Failed to allocate [%s] free ports: %s", count, e ), e );
+        }
+        finally
+        {
+            for ( ServerSocket socket : sockets )
+            {
+                try
+                {
+                    socket.close();
+                }
+                catch ( IOException ignored )
+                {
+                    // nothing to do
+                }
+            }
+        }
+    }
+
+    /**
+     * @param port the JMX port
+     * @return the url of a JMX connector at the port on the local host
+     */
+    public static String toJmxRmiUrl( int port )
+    {
+        return format( "service:jmx:rmi:///jndi/rmi://:%s/jmxrmi", port );
+    }
+
+    /**
+     * Replace any JMX port options with options for a local, unauthenticated JMX connector at a port.
+     *
+     * @param javaVmOptions existing VM options (may be null)
+     * @param port          the JMX port
+     * @return the VM options
+     */
+    public static String withJmxPort( String javaVmOptions, int port )
+    {
+        String options = javaVmOptions == null
+                ? ""
+                : PORT_OPTIONS.matcher( javaVmOptions ).replaceAll( "" ).trim();
+
+        StringBuilder b = new StringBuilder( options );
+
+        if ( b.length() > 0 )
+        {
+            b.append( " " );
+        }
+
+        b.append( format( "-Dcom.sun.management.jmxremote.port=%s", port ) );
+
+        if ( !options.contains( "-Dcom.sun.management.jmxremote.authenticate=" ) )
+        {
+            b.append( " -Dcom.sun.management.jmxremote.authenticate=false" );
+        }
+
+        if ( !options.contains( "-Dcom.sun.management.jmxremote.ssl=" ) )
+        {
+            b.append( " -Dcom.sun.management.jmxremote.ssl=false" );
+        }
+
+        return b.toString();
+    }
+}
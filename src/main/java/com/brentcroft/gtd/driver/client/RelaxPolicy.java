@@ -0,0 +1,124 @@
+package com.brentcroft.gtd.driver.client;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static java.lang.String.format;
+
+/**
+ * Maps driver operations (named after the <code>GuiControllerMBean</code> methods)
+ * to the RelaxStrategy to apply after each invocation.
+ * <p/>
+ * Read-only operations don't change the GUI so by default they don't relax at all;
+ * any operation without an entry uses the driver's default strategy.
+ */
+public class RelaxPolicy
+{
+    /**
+     * Operations that only interrogate the GUI.
+     */
+    public static final Set< String > READ_OPERATIONS = Collections.unmodifiableSet( new HashSet<>( Arrays.asList(
+            "echo",
+            "exists",
+            "existsAll",
+            "notExists",
+            "getItemCount",
+            "getSelectedIndex",
+            "getSnapshotXmlText",
+            "getText",
+            "waitFor" ) ) );
+
+    private final Map< String, RelaxStrategy > strategies = new ConcurrentHashMap<>();
+
+    public RelaxPolicy()
+    {
+        for ( String operation : READ_OPERATIONS )
+        {
+            strategies.put( operation, RelaxStrategy.NONE );
+        }
+    }
+
+    public String toString()
+    {
+        return new TreeMap<>( strategies ).toString();
+    }
+
+    public static boolean isReadOperation( String operation )
+    {
+        return READ_OPERATIONS.contains( operation );
+    }
+
+    /**
+     * @param operation       the operation just invoked
+     * @param defaultStrategy the strategy to use if the operation has no entry
+     * @return the strategy to apply after the operation
+     */
+    public RelaxStrategy getStrategy( String operation, RelaxStrategy defaultStrategy )
+    {
+        RelaxStrategy strategy = operation == null
+                ? null
+                : strategies.get( operation );
+
+        return strategy == null
+                ? defaultStrategy
+                : strategy;
+    }
+
+    /**
+     * @param strategy a strategy
+     * @return true if any operation has an entry with the strategy
+     */
+    public boolean uses( RelaxStrategy strategy )
+    {
+        return strategies.containsValue( strategy );
+    }
+
+    public void setStrategy( String operation, RelaxStrategy strategy )
+    {
+        if ( strategy == null )
+        {
+            strategies.remove( operation );
+        }
+        else
+        {
+            strategies.put( operation, strategy );
+        }
+    }
+
+    /**
+     * Assign entries from a comma separated list of <code>operation=STRATEGY</code> pairs,
+     * e.g. <code>getText=NONE, click=ADAPTIVE, execute=FIXED</code>.
+     * <p/>
+     * An empty strategy (e.g. <code>click=</code>) removes the entry so that the default applies.
+     *
+     * @param spec the list of entries
+     */
+    public void configure( String spec )
+    {
+        if ( spec == null || spec.trim().isEmpty() )
+        {
+            return;
+        }
+
+        for ( String entry : spec.trim().split( "\\s*,\\s*" ) )
+        {
+            String[] kv = entry.split( "\\s*=\\s*", 2 );
+
+            if ( kv.length < 2 || kv[ 0 ].isEmpty() )
+            {
+                throw new IllegalArgumentException( format( "Bad relax policy entry [%s] in [%s].", entry, spec ) );
+            }
+
+            setStrategy(
+                    kv[ 0 ],
+                    kv[ 1 ].isEmpty()
+                            ? null
+                            : RelaxStrategy.valueOf( kv[ 1 ].toUpperCase() ) );
+        }
+    }
+}
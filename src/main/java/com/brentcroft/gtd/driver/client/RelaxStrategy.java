@@ -0,0 +1,53 @@
+package com.brentcroft.gtd.driver.client;
+
+import com.brentcroft.util.Waiter8;
+
+/**
+ * How a driver lets the GUI digest a command before returning to the caller.
+ */
+public enum RelaxStrategy
+{
+    /**
+     * Don't relax at all.
+     */
+    NONE {
+        @Override
+        public long relax( GuiActivityMonitor monitor, long settleMillis, long maxMillis )
+        {
+            return 0;
+        }
+    },
+
+    /**
+     * Always sleep for the full relax period.
+     */
+    FIXED {
+        @Override
+        public long relax( GuiActivityMonitor monitor, long settleMillis, long maxMillis )
+        {
+            Waiter8.delay( maxMillis );
+
+            return maxMillis;
+        }
+    },
+
+    /**
+     * Return as soon as the harness has reported no GUI activity for the settle period,
+     * treating the relax period as an upper bound.
+     */
+    ADAPTIVE {
+        @Override
+        public long relax( GuiActivityMonitor monitor, long settleMillis, long maxMillis )
+        {
+            return monitor.awaitQuiet( settleMillis, maxMillis );
+        }
+    };
+
+    /**
+     * @param monitor      the source of GUI activity
+     * @param settleMillis how long the GUI must be quiet (if relevant)
+     * @param maxMillis    the maximum time to relax
+     * @return the number of milliseconds spent relaxing
+     */
+    public abstract long relax( GuiActivityMonitor monitor, long settleMillis, long maxMillis );
+}
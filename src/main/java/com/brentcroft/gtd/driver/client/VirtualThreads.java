@@ -0,0 +1,160 @@
+package com.brentcroft.gtd.driver.client;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.log4j.Logger;
+
+import static java.lang.String.format;
+
+/**
+ * Creates virtual threads when running on a JVM that has them (Java 21 or later),
+ * and daemon platform threads otherwise.
+ * <p/>
+ * The virtual thread API is reached by reflection, so this compiles (and runs) on Java 8.
+ */
+public class VirtualThreads
+{
+    private final static Logger logger = Logger.getLogger( VirtualThreads.class );
+
+    private static final Method ofVirtual = findMethod( Thread.class, "ofVirtual" );
+
+    // resolved on the public Thread.Builder interface: the builder implementations aren't accessible
+    private static final Class< ? > threadBuilder = findClass( "java.lang.Thread$Builder" );
+    private static final Method builderName = findMethod( threadBuilder, "name", String.class, long.class );
+    private static final Method builderFactory = findMethod( threadBuilder, "factory" );
+
+    private VirtualThreads()
+    {
+    }
+
+    private static Class< ? > findClass( String name )
+    {
+        try
+        {
+            return Class.forName( name );
+        }
+        catch ( ClassNotFoundException e )
+        {
+            return null;
+        }
+    }
+
+    private static Method findMethod( Class< ? > type, String name, Class< ? >... parameterTypes )
+    {
+        if ( type == null )
+        {
+            return null;
+        }
+
+        try
+        {
+            return type.getMethod( name, parameterTypes );
+        }
+        catch ( NoSuchMethodException e )
+        {
+            return null;
+        }
+    }
+
+    /**
+     * @return true if virtual threads are available
+     */
+    public static boolean isAvailable()
+    {
+        return ofVirtual != null && builderName != null && builderFactory != null;
+    }
+
+    /**
+     * @param namePrefix the name of the threads, followed by a counter
+     * @return a factory for virtual threads, or null if not available
+     */
+    private static ThreadFactory newVirtualThreadFactory( String namePrefix )
+    {
+        if ( !isAvailable() )
+        {
+            return null;
+        }
+
+        try
+        {
+            // Thread.ofVirtual().name( prefix, 0 ).factory()
+            Object builder = ofVirtual.invoke( null );
+
+            builder = builderName.invoke( builder, namePrefix, 0L );
+
+            return ( ThreadFactory ) builderFactory.invoke( builder );
+        }
+        catch ( Exception e )
+        {
+            logger.warn( format( "Virtual threads unavailable: %s", e ) );
+
+            return null;
+        }
+    }
+
+    /**
+     * @param namePrefix the name of the threads, followed by a counter
+     * @return a factory for virtual threads if available, otherwise for daemon threads
+     */
+    public static ThreadFactory newThreadFactory( String namePrefix )
+    {
+        ThreadFactory factory = newVirtualThreadFactory( namePrefix );
+
+        return factory != null
+                ? factory
+                : newDaemonThreadFactory( namePrefix );
+    }
+
+    /**
+     * @param namePrefix the name of the threads, followed by a counter
+     * @return a factory for daemon platform threads
+     */
+    public static ThreadFactory newDaemonThreadFactory( String namePrefix )
+    {
+        final AtomicInteger counter = new AtomicInteger();
+
+        return runnable -> {
+            Thread thread = new Thread( runnable, namePrefix + counter.getAndIncrement() );
+
+            thread.setDaemon( true );
+
+            return thread;
+        };
+    }
+
+    /**
+     * An executor that starts a virtual thread for each task if available,
+     * otherwise one that runs tasks on a pool of daemon threads.
+     *
+     * @param namePrefix  the name of the threads, followed by a counter
+     * @param poolThreads the number of pool threads when virtual threads aren't available
+     *                    (zero or less for a cached pool that grows as needed)
+     * @return a new executor
+     */
+    public static ExecutorService newExecutor( String namePrefix, int poolThreads )
+    {
+        final ThreadFactory virtualFactory = newVirtualThreadFactory( namePrefix );
+
+        if ( virtualFactory != null )
+        {
+            try
+            {
+                // Executors.newThreadPerTaskExecutor( factory ): only with virtual threads, which are cheap
+                return ( ExecutorService ) Executors.class
+                        .getMethod( "newThreadPerTaskExecutor", ThreadFactory.class )
+                        .invoke( null, virtualFactory );
+            }
+            catch ( Exception e )
+            {
+                logger.warn( format( "Virtual thread executor unavailable: %s", e ) );
+            }
+        }
+
+        return poolThreads > 0
+                ? Executors.newFixedThreadPool( poolThreads, newDaemonThreadFactory( namePrefix ) )
+                : Executors.newCachedThreadPool( newDaemonThreadFactory( namePrefix ) );
+    }
+}
@@ -0,0 +1,174 @@
+package com.brentcroft.gtd.driver.client;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static java.lang.String.format;
+
+/**
+ * The outcome of waiting for any or all of several paths to exist:
+ * which paths were seen to exist, and when each was first seen.
+ */
+public class WaitResult
+{
+    private final String[] paths;
+    private final long started = System.currentTimeMillis();
+    private final long[] matchedAt;
+    private final boolean[] current;
+
+    private long finished = 0;
+    private int cycles = 0;
+
+    public WaitResult( String... paths )
+    {
+        this.paths = paths;
+        this.matchedAt = new long[ paths.length ];
+        this.current = new boolean[ paths.length ];
+    }
+
+    public String toString()
+    {
+        StringBuilder b = new StringBuilder();
+
+        for ( int i = 0; i < paths.length; i++ )
+        {
+            b.append( format( "%n  [%s] %s", isMatched( i ) ? getMatchedMillis( i ) + "ms" : "-", paths[ i ] ) );
+        }
+
+        return format( "elapsed=[%s], cycles=[%s]%s", getElapsedMillis(), cycles, b );
+    }
+
+    /**
+     * Record the outcome of one evaluation of all the paths.
+     *
+     * @param exists whether each path exists
+     */
+    public void update( boolean[] exists )
+    {
+        final long now = System.currentTimeMillis();
+
+        cycles++;
+
+        for ( int i = 0; i < paths.length; i++ )
+        {
+            current[ i ] = exists != null && i < exists.length && exists[ i ];
+
+            if ( current[ i ] && matchedAt[ i ] == 0 )
+            {
+                matchedAt[ i ] = now;
+            }
+        }
+    }
+
+    public void finish()
+    {
+        finished = System.currentTimeMillis();
+    }
+
+    public String[] getPaths()
+    {
+        return paths;
+    }
+
+    public int getCycles()
+    {
+        return cycles;
+    }
+
+    public long getElapsedMillis()
+    {
+        return ( finished == 0 ? System.currentTimeMillis() : finished ) - started;
+    }
+
+    /**
+     * @param index the index of a path
+     * @return true if the path has been seen to exist
+     */
+    public boolean isMatched( int index )
+    {
+        return matchedAt[ index ] != 0;
+    }
+
+    /**
+     * @param index the index of a path
+     * @return the time the path was first seen to exist, or null if it wasn't
+     */
+    public Long getMatchedAt( int index )
+    {
+        return isMatched( index )
+                ? matchedAt[ index ]
+                : null;
+    }
+
+    /**
+     * @param index the index of a path
+     * @return how long after the wait started the path was first seen to exist, or null if it wasn't
+     */
+    public Long getMatchedMillis( int index )
+    {
+        return isMatched( index )
+                ? matchedAt[ index ] - started
+                : null;
+    }
+
+    /**
+     * @return the index of the path first seen to exist (the lowest index if several were seen together),
+     * or -1 if none were
+     */
+    public int getFirstMatched()
+    {
+        int first = -1;
+
+        for ( int i = 0; i < paths.length; i++ )
+        {
+            if ( isMatched( i ) && ( first < 0 || matchedAt[ i ] < matchedAt[ first ] ) )
+            {
+                first = i;
+            }
+        }
+
+        return first;
+    }
+
+    public List< String > getMatchedPaths()
+    {
+        List< String > matched = new ArrayList<>();
+
+        for ( int i = 0; i < paths.length; i++ )
+        {
+            if ( isMatched( i ) )
+            {
+                matched.add( paths[ i ] );
+            }
+        }
+
+        return matched;
+    }
+
+    public boolean anyMatched()
+    {
+        return getFirstMatched() >= 0;
+    }
+
+    /**
+     * @return true if all the paths existed at the last evaluation
+     */
+    public boolean allMatched()
+    {
+        for ( boolean exists : current )
+        {
+            if ( !exists )
+            {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    public boolean[] getCurrent()
+    {
+        return Arrays.copyOf( current, current.length );
+    }
+}
@@ -0,0 +1,398 @@
+package com.brentcroft.gtd.driver.client;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import org.apache.log4j.Logger;
+
+import static com.brentcroft.util.DateUtils.secondsToMillis;
+import static java.lang.String.format;
+
+/**
+ * Keeps a number of sessions started (application launched and logged in) in the background,
+ * so that a test needing a fresh session gets one at once, rather than waiting for the application to start.
+ * <p/>
+ * Each session taken by <code>acquire()</code>, or swapped out by <code>recycle()</code>,
+ * is replaced by starting another in the background.
+ * Sessions that are swapped out, or found dead while on standby, are stopped in the background.
+ * <p/>
+ * The session factory must provide sessions that can run at the same time,
+ * each with its own driver and launcher on its own JMX port (see <code>JmxPorts</code>).
+ * <p/>
+ * After <code>maxConsecutiveFailures</code> sessions in a row fail to start, no more are started
+ * (until <code>start()</code> is called again), so a broken configuration doesn't keep launching processes.
+ */
+public class WarmStandbyPool implements Closeable
+{
+    private final static Logger logger = Logger.getLogger( WarmStandbyPool.class );
+
+    private final Supplier< ? extends GuiLocalSession > sessionFactory;
+
+    private int standby = 1;
+    private int maxConsecutiveFailures = 3;
+
+    private final LinkedBlockingQueue< GuiLocalSession > ready = new LinkedBlockingQueue<>();
+    private final AtomicInteger starting = new AtomicInteger();
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+
+    private volatile ExecutorService executor = null;
+    private volatile boolean closed = false;
+    private volatile Throwable lastFailure = null;
+
+    // metrics
+    private final AtomicLong started = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong acquired = new AtomicLong();
+    private final AtomicLong waits = new AtomicLong();
+    private final AtomicLong discarded = new AtomicLong();
+    private final AtomicLong startMillis = new AtomicLong();
+
+    /**
+     * @param sessionFactory provides a new (configured but not started) session
+     */
+    public WarmStandbyPool( Supplier< ? extends GuiLocalSession > sessionFactory )
+    {
+        this.sessionFactory = sessionFactory;
+    }
+
+    public String toString()
+    {
+        return format( "standby=[%s], ready=[%s], starting=[%s], started=[%s], failed=[%s], acquired=[%s], " +
+                        "waits=[%s], discarded=[%s], start.mean.millis=[%s]",
+                standby,
+                ready.size(),
+                starting.get(),
+                started.get(),
+                failed.get(),
+                acquired.get(),
+                waits.get(),
+                discarded.get(),
+                getMeanStartMillis() );
+    }
+
+    /**
+     * Start sessions in the background until <code>standby</code> are ready (or starting).
+     */
+    public synchronized void start()
+    {
+        closed = false;
+        consecutiveFailures.set( 0 );
+
+        if ( executor == null )
+        {
+            executor = VirtualThreads.newExecutor( "Warm Standby-", 0 );
+        }
+
+        replenish();
+    }
+
+    private synchronized void replenish()
+    {
+        while ( !closed
+                && consecutiveFailures.get() < maxConsecutiveFailures
+                && ready.size() + starting.get() < standby )
+        {
+            starting.incrementAndGet();
+
+            executor.execute( this::startSession );
+        }
+    }
+
+    private void startSession()
+    {
+        final long begin = System.currentTimeMillis();
+
+        GuiLocalSession session = null;
+
+        try
+        {
+            session = sessionFactory.get();
+
+            session.start();
+
+            startMillis.addAndGet( System.currentTimeMillis() - begin );
+            started.incrementAndGet();
+            consecutiveFailures.set( 0 );
+
+            if ( logger.isDebugEnabled() )
+            {
+                logger.debug( format( "Standby session started in [%s] ms: %s",
+                        System.currentTimeMillis() - begin,
+                        this ) );
+            }
+
+            final boolean offered;
+
+            // close() drains ready while holding the lock
+            synchronized ( this )
+            {
+                offered = !closed && ready.offer( session );
+            }
+
+            if ( !offered )
+            {
+                stopSession( session );
+            }
+        }
+        catch ( Exception e )
+        {
+            failed.incrementAndGet();
+            lastFailure = e;
+
+            logger.warn( format( "Standby session failed to start [%s] in a row: %s",
+                    consecutiveFailures.incrementAndGet(),
+                    this ), e );
+
+            if ( session != null )
+            {
+                stopSession( session );
+            }
+        }
+        finally
+        {
+            starting.decrementAndGet();
+        }
+
+        replenish();
+    }
+
+    private void stopSession( GuiLocalSession session )
+    {
+        discarded.incrementAndGet();
+
+        try
+        {
+            session.stop();
+        }
+        catch ( Exception e )
+        {
+            // it was a speculative attempt
+            logger.warn( format( "An exception was raised while stopping a standby session: %s", e ) );
+        }
+    }
+
+    private boolean isAlive( GuiLocalSession session )
+    {
+        return session.getState() == GuiSession.State.STARTED
+                && ( session.getLauncher() == null
+                || !session.getLauncher().isLaunchable()
+                || session.getLauncher().isRunning() );
+    }
+
+    /**
+     * Take a ready session, waiting for one to finish starting if necessary;
+     * a replacement is started in the background.
+     *
+     * @param timeoutSeconds how long to wait for a session
+     * @return a started session, now belonging to the caller
+     */
+    public GuiLocalSession acquire( double timeoutSeconds )
+    {
+        if ( closed || executor == null )
+        {
+            throw new GuiDriverException( format( "Standby pool not started: %s", this ) );
+        }
+
+        final long deadline = System.currentTimeMillis() + secondsToMillis( timeoutSeconds );
+
+        try
+        {
+            GuiLocalSession session = ready.poll();
+
+            if ( session == null )
+            {
+                waits.incrementAndGet();
+            }
+
+            while ( true )
+            {
+                if ( session == null )
+                {
+                    if ( starting.get() == 0 && consecutiveFailures.get() >= maxConsecutiveFailures )
+                    {
+                        throw new GuiDriverException(
+                                format( "Standby sessions are failing to start: %s", this ),
+                                lastFailure );
+                    }
+
+                    final long remaining = deadline - System.currentTimeMillis();
+
+                    if ( remaining <= 0 )
+                    {
+                        throw new GuiDriverException(
+                                format( "No standby session ready after [%s] seconds: %s", timeoutSeconds, this ) );
+                    }
+
+                    // wake up now and then to notice failures
+                    session = ready.poll( Math.min( remaining, 1000 ), TimeUnit.MILLISECONDS );
+                }
+                else if ( isAlive( session ) )
+                {
+                    acquired.incrementAndGet();
+
+                    return session;
+                }
+                else
+                {
+                    logger.warn( format( "Standby session died while waiting: %s", this ) );
+
+                    discard( session );
+
+                    session = ready.poll();
+                }
+            }
+        }
+        catch ( InterruptedException e )
+        {
+            Thread.currentThread().interrupt();
+
+            throw new GuiDriverException( format( "Interrupted waiting for a standby session: %s", this ), e );
+        }
+        finally
+        {
+            replenish();
+        }
+    }
+
+    /**
+     * Swap a session (e.g. after a test failed) for a ready one;
+     * the old session is stopped in the background.
+     *
+     * @param session        the session to swap out (may be null)
+     * @param timeoutSeconds how long to wait for a session
+     * @return a started session
+     */
+    public GuiLocalSession recycle( GuiLocalSession session, double timeoutSeconds )
+    {
+        discard( session );
+
+        return acquire( timeoutSeconds );
+    }
+
+    /**
+     * Stop a session in the background.
+     *
+     * @param session the session (may be null)
+     */
+    public void discard( GuiLocalSession session )
+    {
+        if ( session == null )
+        {
+            return;
+        }
+
+        final ExecutorService e = executor;
+
+        try
+        {
+            if ( e != null )
+            {
+                e.execute( () -> stopSession( session ) );
+                return;
+            }
+        }
+        catch ( RejectedExecutionException ignored )
+        {
+            // closed meanwhile
+        }
+
+        stopSession( session );
+    }
+
+    /**
+     * Stop the ready sessions; sessions still starting are stopped once they've started.
+     * <p/>
+     * The pool can be started again.
+     * <p/>
+     * Sessions that have been acquired belong to their callers, and aren't stopped.
+     */
+    public synchronized void close()
+    {
+        closed = true;
+
+        final List< GuiLocalSession > sessions = new ArrayList<>();
+
+        ready.drainTo( sessions );
+
+        sessions.forEach( this::stopSession );
+
+        // sessions still starting finish (and are stopped) on their threads
+        if ( executor != null )
+        {
+            executor.shutdown();
+            executor = null;
+        }
+    }
+
+    public int getStandby()
+    {
+        return standby;
+    }
+
+    /**
+     * @param standby the number of sessions to keep ready
+     */
+    public void setStandby( int standby )
+    {
+        this.standby = Math.max( 0, standby );
+    }
+
+    public int getMaxConsecutiveFailures()
+    {
+        return maxConsecutiveFailures;
+    }
+
+    public void setMaxConsecutiveFailures( int maxConsecutiveFailures )
+    {
+        this.maxConsecutiveFailures = Math.max( 1, maxConsecutiveFailures );
+    }
+
+    public int getReady()
+    {
+        return ready.size();
+    }
+
+    public int getStarting()
+    {
+        return starting.get();
+    }
+
+    public long getStarted()
+    {
+        return started.get();
+    }
+
+    public long getFailed()
+    {
+        return failed.get();
+    }
+
+    public long getAcquired()
+    {
+        return acquired.get();
+    }
+
+    /**
+     * @return the number of acquisitions that had to wait for a session to start
+     */
+    public long getWaits()
+    {
+        return waits.get();
+    }
+
+    public long getMeanStartMillis()
+    {
+        final long n = started.get();
+
+        return n == 0
+                ? 0
+                : startMillis.get() / n;
+    }
+}
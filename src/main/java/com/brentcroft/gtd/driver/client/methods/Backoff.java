@@ -0,0 +1,60 @@
+package com.brentcroft.gtd.driver.client.methods;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * How long to wait between successive evaluations of a condition.
+ */
+public enum Backoff
+{
+    /**
+     * Always the initial delay.
+     */
+    FIXED {
+        @Override
+        public long nextDelay( long previousMillis, long initialMillis, long maxMillis )
+        {
+            return Math.min( initialMillis, maxMillis );
+        }
+    },
+
+    /**
+     * Start at the initial delay and double each time, up to the maximum.
+     */
+    EXPONENTIAL {
+        @Override
+        public long nextDelay( long previousMillis, long initialMillis, long maxMillis )
+        {
+            return previousMillis <= 0
+                    ? Math.min( initialMillis, maxMillis )
+                    : Math.min( previousMillis * 2, maxMillis );
+        }
+    },
+
+    /**
+     * Like exponential, but randomised (between the initial delay and three times the previous delay, up to the
+     * maximum) so that many waiters don't evaluate in lock-step.
+     */
+    JITTERED {
+        @Override
+        public long nextDelay( long previousMillis, long initialMillis, long maxMillis )
+        {
+            if ( previousMillis <= 0 )
+            {
+                return Math.min( initialMillis, maxMillis );
+            }
+
+            long upper = Math.max( initialMillis + 1, previousMillis * 3 );
+
+            return Math.min( ThreadLocalRandom.current().nextLong( initialMillis, upper ), maxMillis );
+        }
+    };
+
+    /**
+     * @param previousMillis the previous delay (zero before the first)
+     * @param initialMillis  the initial delay
+     * @param maxMillis      the maximum delay
+     * @return the next delay
+     */
+    public abstract long nextDelay( long previousMillis, long initialMillis, long maxMillis );
+}
@@ -0,0 +1,125 @@
+package com.brentcroft.gtd.driver.client.methods;
+
+import com.brentcroft.util.Waiter8;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+import static java.lang.String.format;
+
+/**
+ * Repeatedly probes the GUI until a condition is satisfied or a deadline passes.
+ * <p/>
+ * There is a single monotonic deadline for the whole wait. Each probe is given the time remaining,
+ * so that a remote call can do its own waiting (e.g. for a component to appear) within the deadline,
+ * rather than each call carrying a timeout of its own. Between probes the waiter backs off.
+ */
+public class ConditionWaiter
+{
+    private long timeoutMillis = 5000;
+    private Backoff backoff = Backoff.EXPONENTIAL;
+    private long initialDelayMillis = 50;
+    private long maxDelayMillis = 1000;
+
+    private int probes = 0;
+
+    /**
+     * Obtains a value from the GUI.
+     *
+     * @param <T> the type of value
+     */
+    public interface Probe< T >
+    {
+        /**
+         * @param remainingSeconds the time remaining before the deadline
+         * @return the value
+         */
+        T probe( double remainingSeconds );
+    }
+
+    public String toString()
+    {
+        return format( "timeout=[%s], backoff=[%s], initialDelay=[%s], maxDelay=[%s]",
+                timeoutMillis,
+                backoff,
+                initialDelayMillis,
+                maxDelayMillis );
+    }
+
+    public ConditionWaiter withTimeoutMillis( long timeoutMillis )
+    {
+        this.timeoutMillis = timeoutMillis;
+        return this;
+    }
+
+    public ConditionWaiter withBackoff( Backoff backoff )
+    {
+        this.backoff = backoff;
+        return this;
+    }
+
+    public ConditionWaiter withInitialDelayMillis( long initialDelayMillis )
+    {
+        this.initialDelayMillis = initialDelayMillis;
+        return this;
+    }
+
+    public ConditionWaiter withMaxDelayMillis( long maxDelayMillis )
+    {
+        this.maxDelayMillis = maxDelayMillis;
+        return this;
+    }
+
+    /**
+     * @return how many probes the last wait made
+     */
+    public int getProbes()
+    {
+        return probes;
+    }
+
+    /**
+     * Probe until the value satisfies the condition.
+     * <p/>
+     * The probe is always made at least once, even with a zero timeout.
+     *
+     * @param probe     obtains a value from the GUI
+     * @param satisfied the condition
+     * @param failure   builds the failure message from the last value obtained
+     * @param <T>       the type of value
+     * @return the value that satisfied the condition
+     * @throws RuntimeException if the condition is not satisfied before the deadline
+     */
+    public < T > T until( Probe< T > probe, Predicate< T > satisfied, Function< T, String > failure )
+    {
+        final long deadline = System.nanoTime() + timeoutMillis * 1000000L;
+
+        long delay = 0;
+
+        probes = 0;
+
+        while ( true )
+        {
+            long remaining = deadline - System.nanoTime();
+
+            probes++;
+
+            T value = probe.probe( Math.max( 0, remaining ) / 1.0e9 );
+
+            if ( satisfied.test( value ) )
+            {
+                return value;
+            }
+
+            remaining = deadline - System.nanoTime();
+
+            if ( remaining <= 0 )
+            {
+                throw new RuntimeException( failure.apply( value ) );
+            }
+
+            delay = backoff.nextDelay( delay, initialDelayMillis, maxDelayMillis );
+
+            Waiter8.delay( Math.max( 1, Math.min( delay, remaining / 1000000L ) ) );
+        }
+    }
+}
@@ -1,9 +1,7 @@
 package com.brentcroft.gtd.driver.client.methods;
 
 import com.brentcroft.gtd.driver.client.GuiDriver;
-import com.brentcroft.util.Waiter8;
 
-import static com.brentcroft.util.DateUtils.secondsToMillis;
 import static java.lang.String.format;
 
 /**
@@ -67,18 +65,8 @@ public class GenericActions
             public void executeAction( final GuiDriver driver, final String path, String dummy,
                     final Double secondsToWait )
             {
-                new Waiter8()
-                        .withTimeoutMillis( secondsToMillis( secondsToWait ) )
-                        .onTimeout( millis -> {
-                            throw new RuntimeException(
-                                    format( "Path [%s] still exists even after [%s] seconds.", path, secondsToWait ) );
-
-                        } )
-                        .until( () -> {
-                            // don't want to hang around waiting for it to exist
-                            // since we don't expect it to exist
-                            return !driver.exists( path, 0.01 );
-                        } );
+                // the harness waits for it to go
+                GenericMethods.waitUntilNotExists( driver, path, secondsToWait );
             }
         },
 
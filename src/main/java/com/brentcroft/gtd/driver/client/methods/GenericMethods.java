@@ -14,6 +14,11 @@ public class GenericMethods
 {
     private final static transient Logger logger = Logger.getLogger( GenericMethods.class );
 
+    // how the waits back off between evaluations
+    private static volatile Backoff backoff = Backoff.EXPONENTIAL;
+    private static volatile long initialDelayMillis = 50;
+    private static volatile long maxDelayMillis = 1000;
+
     /**
      * Select a node in a tree.<br/>
      * <p>
@@ -197,153 +202,111 @@ public class GenericMethods
     }
 
 
-    public static void waitUntilItemCountMoreThan( final GuiDriver driver, String path, final Integer expectedCount,
-                                                   final Double secondsToWait )
+    /**
+     * Assign how all the waits back off between evaluations.
+     *
+     * @param backoff            how the delay grows
+     * @param initialDelayMillis the first delay
+     * @param maxDelayMillis     the maximum delay
+     */
+    public static void setBackoff( Backoff backoff, long initialDelayMillis, long maxDelayMillis )
     {
-        final long started = System.currentTimeMillis();
+        GenericMethods.backoff = backoff;
+        GenericMethods.initialDelayMillis = initialDelayMillis;
+        GenericMethods.maxDelayMillis = maxDelayMillis;
+    }
 
-        Integer actualAmount = null;
+    private static ConditionWaiter newConditionWaiter( double secondsToWait )
+    {
+        return new ConditionWaiter()
+                .withTimeoutMillis( secondsToMillis( secondsToWait ) )
+                .withBackoff( backoff )
+                .withInitialDelayMillis( initialDelayMillis )
+                .withMaxDelayMillis( maxDelayMillis );
+    }
 
-        while ( ( System.currentTimeMillis() - started ) < secondsToMillis( secondsToWait ) )
-        {
-            actualAmount = driver.getItemCount( path,
-                    ( secondsToWait - ( System.currentTimeMillis() - started ) ) );
-
-            if ( actualAmount != null && actualAmount > expectedCount )
-            {
-                // ok
-                return;
-            }
-        }
-        throw new RuntimeException(
-                format( "Path [%s] still has item count [%s] which is not more than [%s] even after [%s] seconds.",
-                        path, actualAmount, expectedCount, secondsToWait ) );
+
+    public static void waitUntilItemCountMoreThan( final GuiDriver driver, String path, final Integer expectedCount,
+                                                   final Double secondsToWait )
+    {
+        newConditionWaiter( secondsToWait )
+                .until(
+                        remaining -> driver.getItemCount( path, remaining ),
+                        actualAmount -> actualAmount != null && actualAmount > expectedCount,
+                        actualAmount -> format(
+                                "Path [%s] still has item count [%s] which is not more than [%s] even after [%s] seconds.",
+                                path, actualAmount, expectedCount, secondsToWait ) );
     }
 
 
     public static void waitUntilItemCountEqual( final GuiDriver driver, String path, final Integer expectedCount,
                                                 final Double secondsToWait )
     {
-        final long started = System.currentTimeMillis();
-
-        Integer actualAmount = null;
-
-        while ( ( System.currentTimeMillis() - started ) < secondsToMillis( secondsToWait ) )
-        {
-            actualAmount = driver.getItemCount( path,
-                    ( secondsToWait - ( System.currentTimeMillis() - started ) ) );
-
-            if ( actualAmount != null && Objects.equals( actualAmount, expectedCount ) )
-            {
-                // ok
-                return;
-            }
-        }
-        throw new RuntimeException(
-                format( "Path [%s] still has item count [%s] which is not equal to [%s] even after [%s] seconds.",
-                        path, actualAmount, expectedCount, secondsToWait ) );
+        newConditionWaiter( secondsToWait )
+                .until(
+                        remaining -> driver.getItemCount( path, remaining ),
+                        actualAmount -> actualAmount != null && Objects.equals( actualAmount, expectedCount ),
+                        actualAmount -> format(
+                                "Path [%s] still has item count [%s] which is not equal to [%s] even after [%s] seconds.",
+                                path, actualAmount, expectedCount, secondsToWait ) );
     }
 
 
     public static void waitUntilItemCountLessThan( final GuiDriver driver, String path, final Integer expectedCount,
                                                    final Double secondsToWait )
     {
-        final long started = System.currentTimeMillis();
-
-        Integer actualAmount = null;
-
-        while ( ( System.currentTimeMillis() - started ) < secondsToMillis( secondsToWait ) )
-        {
-            actualAmount = driver.getItemCount( path,
-                    ( secondsToWait - ( System.currentTimeMillis() - started ) ) );
-
-            if ( actualAmount != null && actualAmount < expectedCount )
-            {
-                // ok
-                return;
-            }
-        }
-        throw new RuntimeException(
-                format( "Path [%s] still has item count [%s] which is not less than [%s] even after [%s] seconds.",
-                        path, actualAmount, expectedCount, secondsToWait ) );
+        newConditionWaiter( secondsToWait )
+                .until(
+                        remaining -> driver.getItemCount( path, remaining ),
+                        actualAmount -> actualAmount != null && actualAmount < expectedCount,
+                        actualAmount -> format(
+                                "Path [%s] still has item count [%s] which is not less than [%s] even after [%s] seconds.",
+                                path, actualAmount, expectedCount, secondsToWait ) );
     }
 
 
     public static void waitUntilNotEmpty( GuiDriver driver, String path, Double secondsToWait )
     {
-        final long started = System.currentTimeMillis();
-
-        String text = null;
-
-        while ( ( System.currentTimeMillis() - started ) < secondsToMillis( secondsToWait ) )
-        {
-            text = driver.getText( path,
-                    ( secondsToWait - ( System.currentTimeMillis() - started ) ) );
-
-            if ( null == text )
-            {
-                // ok
-                return;
-            }
-        }
-        throw new RuntimeException(
-                format( "Path [%s] still has text [%s] even after [%s] seconds.", path, text, secondsToWait ) );
+        newConditionWaiter( secondsToWait )
+                .until(
+                        remaining -> driver.getText( path, remaining ),
+                        text -> text != null && !text.isEmpty(),
+                        text -> format( "Path [%s] still has empty text [%s] even after [%s] seconds.", path, text, secondsToWait ) );
     }
 
     public static void waitUntilText( GuiDriver driver, String path, final String expectedText, double secondsToWait )
     {
-        final long started = System.currentTimeMillis();
-
-        String text = null;
-
-        while ( ( System.currentTimeMillis() - started ) < secondsToMillis( secondsToWait ) )
-        {
-            text = driver.getText( path,
-                    ( secondsToWait - ( System.currentTimeMillis() - started ) ) );
-
-            if ( 0 == expectedText.compareTo( text ) )
-            {
-                // ok
-                return;
-            }
-        }
-        throw new RuntimeException(
-                format( "Path [%s] expected [%s] but still has text [%s] even after [%s] seconds.", path, expectedText,
-                        text, secondsToWait ) );
-
+        newConditionWaiter( secondsToWait )
+                .until(
+                        remaining -> driver.getText( path, remaining ),
+                        text -> 0 == expectedText.compareTo( text ),
+                        text -> format( "Path [%s] expected [%s] but still has text [%s] even after [%s] seconds.", path, expectedText,
+                                text, secondsToWait ) );
     }
 
 
+    /**
+     * The harness waits for the path to exist, so this usually needs just one remote call.
+     */
     public static void waitUntilExists( GuiDriver driver, String path, double secondsToWait )
     {
-        final long started = System.currentTimeMillis();
-
-        while ( ( System.currentTimeMillis() - started ) < secondsToMillis( secondsToWait ) )
-        {
-            if ( driver.exists( path,
-                    ( secondsToWait - ( System.currentTimeMillis() - started ) ) ) )
-            {
-                return;
-            }
-        }
-        throw new RuntimeException(
-                format( "Path [%s] does not exist even after [%s] seconds.", path, secondsToWait ) );
+        newConditionWaiter( secondsToWait )
+                .until(
+                        remaining -> driver.exists( path, remaining ),
+                        exists -> exists,
+                        exists -> format( "Path [%s] does not exist even after [%s] seconds.", path, secondsToWait ) );
     }
 
 
+    /**
+     * The harness waits for the path to not exist, so this usually needs just one remote call.
+     */
     public static void waitUntilNotExists( GuiDriver driver, String path, Double secondsToWait )
     {
-        final long started = System.currentTimeMillis();
-
-        while ( ( System.currentTimeMillis() - started ) < secondsToMillis( secondsToWait ) )
-        {
-            if ( ! driver.exists( path,
-                    ( secondsToWait - ( System.currentTimeMillis() - started ) ) ) )
-            {
-                return;
-            }
-        }
-        throw new RuntimeException(
-                format( "Path [%s] still exists even after [%s] seconds.", path, secondsToWait ) );
+        newConditionWaiter( secondsToWait )
+                .until(
+                        remaining -> driver.notExists( path, remaining ),
+                        notExists -> notExists,
+                        notExists -> format( "Path [%s] still exists even after [%s] seconds.", path, secondsToWait ) );
     }
 }
@@ -0,0 +1,386 @@
+package com.brentcroft.gtd.driver.client.notification;
+
+import com.brentcroft.gtd.driver.client.VirtualThreads;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import javax.management.Notification;
+import javax.management.NotificationListener;
+import org.apache.log4j.Logger;
+
+import static java.lang.String.format;
+
+/**
+ * Delivers notifications to one listener from a bounded queue of its own,
+ * so that a slow listener doesn't hold up delivery to the others.
+ * <p/>
+ * Deliveries are made by a task on an executor; only one task per channel is scheduled at a time,
+ * so the listener receives notifications in order, and never concurrently.
+ * <p/>
+ * When the listener falls behind and the queue fills, the channel's OverflowPolicy decides what happens.
+ */
+public class ListenerChannel extends ListenerRegistration
+{
+    private final static Logger logger = Logger.getLogger( ListenerChannel.class );
+
+    // the most notifications a delivery task handles before giving other channels a turn
+    private static final int NOTIFICATIONS_PER_TASK = 256;
+
+    /**
+     * The longest a BLOCK channel holds up an offer before discarding the oldest pending notification.
+     */
+    public static final long MAX_BLOCK_MILLIS = 1000;
+
+    private static volatile Executor sharedExecutor = null;
+
+    private static class Pending
+    {
+        Notification notification;
+        final long enqueuedNanos;
+
+        Pending( Notification notification, long enqueuedNanos )
+        {
+            this.notification = notification;
+            this.enqueuedNanos = enqueuedNanos;
+        }
+    }
+
+    private final OverflowPolicy policy;
+    private final int capacity;
+    private final Executor executor;
+
+    // guarded by this
+    private final Deque< Pending > queue = new ArrayDeque<>();
+    private final Map< String, Pending > pendingByType = new HashMap<>();
+    private boolean closed = false;
+
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+    private final Runnable deliveryTask = this::deliveryTask;
+
+    // metrics
+    private volatile long enqueued = 0;
+    private volatile long delivered = 0;
+    private volatile long dropped = 0;
+    private volatile long coalesced = 0;
+    private volatile long failed = 0;
+    private volatile long maxLagNanos = 0;
+
+    /**
+     * @param listener     the listener
+     * @param policy       what to do when the queue is full, or null for DROP_OLDEST
+     * @param capacity     the maximum number of pending notifications
+     * @param executor     runs deliveries, or null for the shared executor
+     * @param typePrefixes the notification type prefixes of interest, or null (or empty) for every notification
+     */
+    public ListenerChannel( NotificationListener listener, OverflowPolicy policy, int capacity, Executor executor, String... typePrefixes )
+    {
+        super( listener, typePrefixes );
+
+        this.policy = policy == null
+                ? OverflowPolicy.DROP_OLDEST
+                : policy;
+        this.capacity = Math.max( 1, capacity );
+        this.executor = executor == null
+                ? getSharedExecutor()
+                : executor;
+    }
+
+    public String toString()
+    {
+        return format( "%s, policy=[%s], capacity=[%s], depth=[%s], enqueued=[%s], delivered=[%s], dropped=[%s], " +
+                        "coalesced=[%s], failed=[%s], lag.millis=[%s], lag.max.millis=[%s]",
+                super.toString(),
+                policy,
+                capacity,
+                getQueueDepth(),
+                enqueued,
+                delivered,
+                dropped,
+                coalesced,
+                failed,
+                getLagNanos() / 1000000,
+                maxLagNanos / 1000000 );
+    }
+
+    /**
+     * An executor shared by every channel that uses it:
+     * a virtual thread per delivery task if available, otherwise a pool of daemon threads
+     * that grows as needed (so a stuck listener can't starve the others).
+     *
+     * @return the shared executor
+     */
+    public static Executor getSharedExecutor()
+    {
+        Executor e = sharedExecutor;
+
+        if ( e == null )
+        {
+            synchronized ( ListenerChannel.class )
+            {
+                e = sharedExecutor;
+
+                if ( e == null )
+                {
+                    e = VirtualThreads.newExecutor( "Notification Listener-", 0 );
+
+                    sharedExecutor = e;
+                }
+            }
+        }
+
+        return e;
+    }
+
+    /**
+     * Queue a notification for the listener, applying the overflow policy if the queue is full.
+     * <p/>
+     * Only blocks with the BLOCK policy, and then for no more than <code>MAX_BLOCK_MILLIS</code>.
+     *
+     * @param notification the notification
+     */
+    public void offer( Notification notification )
+    {
+        final long now = System.nanoTime();
+
+        synchronized ( this )
+        {
+            if ( closed )
+            {
+                return;
+            }
+
+            if ( policy.coalesces() )
+            {
+                Pending pending = pendingByType.get( notification.getType() );
+
+                if ( pending != null )
+                {
+                    pending.notification = notification;
+                    coalesced++;
+                    return;
+                }
+            }
+
+            final long giveUp = now + TimeUnit.MILLISECONDS.toNanos( MAX_BLOCK_MILLIS );
+
+            while ( queue.size() >= capacity )
+            {
+                if ( policy.blocks() && System.nanoTime() < giveUp )
+                {
+                    try
+                    {
+                        wait( 100 );
+                    }
+                    catch ( InterruptedException e )
+                    {
+                        Thread.currentThread().interrupt();
+                        dropped++;
+                        return;
+                    }
+
+                    if ( closed )
+                    {
+                        return;
+                    }
+                }
+                else
+                {
+                    forget( queue.pollFirst() );
+                    dropped++;
+                }
+            }
+
+            Pending pending = new Pending( notification, now );
+
+            queue.addLast( pending );
+
+            if ( policy.coalesces() )
+            {
+                pendingByType.put( notification.getType(), pending );
+            }
+
+            enqueued++;
+        }
+
+        schedule();
+    }
+
+    private void forget( Pending pending )
+    {
+        if ( pending != null && policy.coalesces() )
+        {
+            pendingByType.remove( pending.notification.getType(), pending );
+        }
+    }
+
+    private synchronized Pending poll()
+    {
+        Pending pending = queue.pollFirst();
+
+        if ( pending != null )
+        {
+            forget( pending );
+
+            if ( policy.blocks() )
+            {
+                notifyAll();
+            }
+        }
+
+        return pending;
+    }
+
+    private void schedule()
+    {
+        if ( scheduled.compareAndSet( false, true ) )
+        {
+            try
+            {
+                executor.execute( deliveryTask );
+            }
+            catch ( RuntimeException e )
+            {
+                scheduled.set( false );
+
+                logger.warn( format( "Unable to schedule delivery: %s", super.toString() ), e );
+            }
+        }
+    }
+
+    private void deliveryTask()
+    {
+        try
+        {
+            for ( int i = 0; i < NOTIFICATIONS_PER_TASK; i++ )
+            {
+                Pending pending = poll();
+
+                if ( pending == null )
+                {
+                    break;
+                }
+
+                deliver( pending );
+            }
+        }
+        finally
+        {
+            scheduled.set( false );
+        }
+
+        if ( getQueueDepth() > 0 )
+        {
+            schedule();
+        }
+    }
+
+    private void deliver( Pending pending )
+    {
+        try
+        {
+            getListener().handleNotification( pending.notification, null );
+        }
+        catch ( Exception e )
+        {
+            failed++;
+
+            logger.warn( format( "Listener failed: %s, type=[%s]", super.toString(), pending.notification.getType() ), e );
+        }
+        finally
+        {
+            long lag = System.nanoTime() - pending.enqueuedNanos;
+
+            if ( lag > maxLagNanos )
+            {
+                maxLagNanos = lag;
+            }
+
+            delivered++;
+        }
+    }
+
+    /**
+     * Discard any pending notifications and stop delivering.
+     */
+    public synchronized void close()
+    {
+        closed = true;
+        queue.clear();
+        pendingByType.clear();
+
+        notifyAll();
+    }
+
+    public OverflowPolicy getPolicy()
+    {
+        return policy;
+    }
+
+    public int getCapacity()
+    {
+        return capacity;
+    }
+
+    public synchronized int getQueueDepth()
+    {
+        return queue.size();
+    }
+
+    /**
+     * @return how long the oldest pending notification has been waiting (zero if none are pending)
+     */
+    public synchronized long getLagNanos()
+    {
+        Pending oldest = queue.peekFirst();
+
+        return oldest == null
+                ? 0
+                : System.nanoTime() - oldest.enqueuedNanos;
+    }
+
+    /**
+     * @return the longest any notification has waited to be delivered
+     */
+    public long getMaxLagNanos()
+    {
+        return maxLagNanos;
+    }
+
+    public long getEnqueued()
+    {
+        return enqueued;
+    }
+
+    public long getDelivered()
+    {
+        return delivered;
+    }
+
+    /**
+     * @return the number of notifications discarded because the queue was full
+     */
+    public long getDropped()
+    {
+        return dropped;
+    }
+
+    /**
+     * @return the number of notifications replaced by a newer notification of the same type
+     */
+    public long getCoalesced()
+    {
+        return coalesced;
+    }
+
+    /**
+     * @return the number of times the listener threw an exception
+     */
+    public long getFailed()
+    {
+        return failed;
+    }
+}
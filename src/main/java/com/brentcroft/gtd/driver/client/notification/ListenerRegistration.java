@@ -0,0 +1,57 @@
+package com.brentcroft.gtd.driver.client.notification;
+
+import java.util.Arrays;
+import javax.management.Notification;
+import javax.management.NotificationListener;
+
+import static java.lang.String.format;
+
+/**
+ * A client NotificationListener together with the notification types it is interested in.
+ * <p/>
+ * Each registered listener has a queue of its own (see ListenerChannel), so a slow listener only delays itself:
+ * by default (<code>OverflowPolicy.DROP_OLDEST</code>) a listener that falls far enough behind loses
+ * its oldest notifications, rather than holding up delivery to other listeners (and drivers).
+ */
+public class ListenerRegistration
+{
+    private final NotificationListener listener;
+    private final String[] typePrefixes;
+
+    /**
+     * @param listener     the listener
+     * @param typePrefixes the notification type prefixes of interest, or null (or empty) for every notification
+     */
+    public ListenerRegistration( NotificationListener listener, String... typePrefixes )
+    {
+        this.listener = listener;
+        this.typePrefixes = typePrefixes == null || typePrefixes.length == 0
+                ? null
+                : typePrefixes.clone();
+    }
+
+    public String toString()
+    {
+        return format( "listener=[%s], types=%s",
+                listener,
+                typePrefixes == null ? "[*]" : Arrays.toString( typePrefixes ) );
+    }
+
+    public NotificationListener getListener()
+    {
+        return listener;
+    }
+
+    /**
+     * @return the type prefixes, or null if every notification is wanted
+     */
+    public String[] getTypePrefixes()
+    {
+        return typePrefixes;
+    }
+
+    public boolean accepts( Notification notification )
+    {
+        return NotificationFilters.matches( typePrefixes, notification.getType() );
+    }
+}
@@ -0,0 +1,494 @@
+package com.brentcroft.gtd.driver.client.notification;
+
+import com.brentcroft.gtd.driver.client.VirtualThreads;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+import javax.management.Notification;
+import org.apache.log4j.Logger;
+
+import static java.lang.String.format;
+
+/**
+ * Passes notifications from any number of producer threads (e.g. RMI notification fetchers)
+ * to a single consumer, in batches.
+ * <p/>
+ * Notifications are held in a bounded, preallocated ring of slots.
+ * Producers claim slots with a compare-and-set (no locks), and if the ring is full the notification
+ * is dropped and counted rather than blocking the producer.
+ * <p/>
+ * The consumer drains up to <code>batchSize</code> notifications at a time and hands them to the handler.
+ * <p/>
+ * The consumer is either a thread of its own, or (given an executor) a drain task that is scheduled
+ * whenever notifications arrive.
+ * Only one drain task per dispatcher is scheduled at a time, so many dispatchers can share a small pool
+ * (see <code>getSharedExecutor()</code>) and each still delivers its notifications in order.
+ */
+public class NotificationDispatcher
+{
+    private final static Logger logger = Logger.getLogger( NotificationDispatcher.class );
+
+    // the most batches a drain task delivers before giving other dispatchers a turn
+    private static final int BATCHES_PER_TASK = 16;
+
+    private static volatile Executor sharedExecutor = null;
+
+    /**
+     * Receives batches of notifications, in order, on the consumer thread.
+     */
+    public interface BatchHandler
+    {
+        /**
+         * @param batch the notifications; the list is reused so must not be retained
+         */
+        void handle( List< Notification > batch );
+    }
+
+    private final String name;
+    private final BatchHandler handler;
+
+    private final int capacity;
+    private final int mask;
+    private final int batchSize;
+
+    // each slot's sequence says whether it is free (== position) or full (== position + 1)
+    private final AtomicLongArray sequences;
+    private final Notification[] slots;
+    private final long[] enqueuedNanos;
+
+    private final AtomicLong tail = new AtomicLong();
+    private volatile long head = 0;
+
+    private final List< Notification > batch;
+
+    // consumer thread
+    private volatile Thread consumer = null;
+    private volatile boolean parked = false;
+
+    private volatile boolean closed = false;
+
+    // or consumer task
+    private final Executor executor;
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+    private final Runnable drainTask = this::drainTask;
+
+    // metrics
+    private final AtomicLong published = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private volatile long delivered = 0;
+    private volatile long batches = 0;
+    private volatile long totalLatencyNanos = 0;
+    private volatile long maxLatencyNanos = 0;
+
+    /**
+     * @param name      a name for the consumer thread
+     * @param capacity  the number of slots (rounded up to a power of two)
+     * @param batchSize the maximum number of notifications per batch
+     * @param handler   receives the batches
+     */
+    public NotificationDispatcher( String name, int capacity, int batchSize, BatchHandler handler )
+    {
+        this( name, capacity, batchSize, handler, null );
+    }
+
+    /**
+     * @param name      a name for the consumer thread
+     * @param capacity  the number of slots (rounded up to a power of two)
+     * @param batchSize the maximum number of notifications per batch
+     * @param handler   receives the batches
+     * @param executor  runs drain tasks, or null for the dispatcher to have a thread of its own
+     */
+    public NotificationDispatcher( String name, int capacity, int batchSize, BatchHandler handler, Executor executor )
+    {
+        this.name = name;
+        this.handler = handler;
+        this.executor = executor;
+        this.capacity = Integer.highestOneBit( Math.max( 2, capacity ) - 1 ) << 1;
+        this.mask = this.capacity - 1;
+        this.batchSize = Math.max( 1, batchSize );
+
+        this.sequences = new AtomicLongArray( this.capacity );
+        this.slots = new Notification[ this.capacity ];
+        this.enqueuedNanos = new long[ this.capacity ];
+        this.batch = new ArrayList<>( this.batchSize );
+
+        for ( int i = 0; i < this.capacity; i++ )
+        {
+            sequences.set( i, i );
+        }
+    }
+
+    public String toString()
+    {
+        return format( "%s: capacity=[%s], depth=[%s], published=[%s], dropped=[%s], delivered=[%s], batches=[%s], " +
+                        "latency.mean.micros=[%s], latency.max.micros=[%s]",
+                name,
+                capacity,
+                getQueueDepth(),
+                published.get(),
+                dropped.get(),
+                delivered,
+                batches,
+                getMeanLatencyNanos() / 1000,
+                maxLatencyNanos / 1000 );
+    }
+
+    /**
+     * Add a notification for delivery; never blocks.
+     *
+     * @param notification the notification
+     * @return false if there was no room (or the dispatcher is closed) and the notification was dropped
+     */
+    public boolean publish( Notification notification )
+    {
+        if ( closed )
+        {
+            dropped.incrementAndGet();
+
+            return false;
+        }
+
+        long position;
+        int index;
+
+        while ( true )
+        {
+            position = tail.get();
+            index = ( int ) ( position & mask );
+
+            long available = sequences.get( index ) - position;
+
+            if ( available == 0 )
+            {
+                if ( tail.compareAndSet( position, position + 1 ) )
+                {
+                    break;
+                }
+            }
+            else if ( available < 0 )
+            {
+                // full: the consumer hasn't freed this slot yet
+                dropped.incrementAndGet();
+
+                return false;
+            }
+
+            // else another producer claimed it first
+        }
+
+        slots[ index ] = notification;
+        enqueuedNanos[ index ] = System.nanoTime();
+
+        sequences.set( index, position + 1 );
+
+        published.incrementAndGet();
+
+        wake();
+
+        return true;
+    }
+
+    /**
+     * An executor shared by every dispatcher that uses it:
+     * a virtual thread per drain task if available, otherwise a small pool of daemon threads.
+     *
+     * @return the shared executor
+     */
+    public static Executor getSharedExecutor()
+    {
+        Executor e = sharedExecutor;
+
+        if ( e == null )
+        {
+            synchronized ( NotificationDispatcher.class )
+            {
+                e = sharedExecutor;
+
+                if ( e == null )
+                {
+                    e = VirtualThreads.newExecutor(
+                            "Notification Dispatch-",
+                            Math.max( 2, Math.min( 4, Runtime.getRuntime().availableProcessors() ) ) );
+
+                    sharedExecutor = e;
+                }
+            }
+        }
+
+        return e;
+    }
+
+    private void wake()
+    {
+        if ( executor != null )
+        {
+            schedule();
+            return;
+        }
+
+        Thread c = consumer;
+
+        if ( c == null )
+        {
+            start();
+        }
+        else if ( parked )
+        {
+            LockSupport.unpark( c );
+        }
+    }
+
+    private synchronized void start()
+    {
+        if ( consumer != null || closed )
+        {
+            return;
+        }
+
+        Thread thread = new Thread( this::consume, name );
+
+        thread.setDaemon( true );
+
+        consumer = thread;
+
+        thread.start();
+    }
+
+    private void consume()
+    {
+        while ( !closed )
+        {
+            try
+            {
+                if ( drain() == 0 )
+                {
+                    parked = true;
+
+                    // check again, now producers can see we're parked
+                    if ( isEmpty() && !closed )
+                    {
+                        LockSupport.parkNanos( this, 100000000L );
+                    }
+
+                    parked = false;
+                }
+            }
+            catch ( Exception e )
+            {
+                logger.warn( format( "%s: Error handling notifications.", name ), e );
+            }
+        }
+    }
+
+    private void schedule()
+    {
+        if ( scheduled.compareAndSet( false, true ) )
+        {
+            try
+            {
+                executor.execute( drainTask );
+            }
+            catch ( RuntimeException e )
+            {
+                scheduled.set( false );
+
+                logger.warn( format( "%s: Unable to schedule delivery.", name ), e );
+            }
+        }
+    }
+
+    private void drainTask()
+    {
+        if ( closed )
+        {
+            scheduled.set( false );
+            return;
+        }
+
+        try
+        {
+            for ( int i = 0; i < BATCHES_PER_TASK; i++ )
+            {
+                if ( drain() == 0 )
+                {
+                    break;
+                }
+            }
+        }
+        catch ( Exception e )
+        {
+            logger.warn( format( "%s: Error handling notifications.", name ), e );
+        }
+        finally
+        {
+            scheduled.set( false );
+        }
+
+        // anything published since (or left over) needs another turn
+        if ( !closed && !isEmpty() )
+        {
+            schedule();
+        }
+    }
+
+    /**
+     * Stop delivering: the consumer thread (if any) ends, and notifications published afterwards are dropped.
+     * <p/>
+     * Notifications not yet delivered are discarded.
+     */
+    public void close()
+    {
+        closed = true;
+
+        final Thread c = consumer;
+
+        if ( c != null && c != Thread.currentThread() )
+        {
+            LockSupport.unpark( c );
+
+            try
+            {
+                c.join( 1000 );
+            }
+            catch ( InterruptedException e )
+            {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    public boolean isClosed()
+    {
+        return closed;
+    }
+
+    public boolean isEmpty()
+    {
+        long h = head;
+
+        return sequences.get( ( int ) ( h & mask ) ) != h + 1;
+    }
+
+    /**
+     * Take up to one batch of notifications and hand it to the handler.
+     * <p/>
+     * Must only be called by one thread at a time.
+     *
+     * @return the number of notifications handled
+     */
+    int drain()
+    {
+        long h = head;
+
+        final long now = System.nanoTime();
+
+        long latency = 0;
+        long maxLatency = maxLatencyNanos;
+
+        batch.clear();
+
+        while ( batch.size() < batchSize )
+        {
+            int index = ( int ) ( h & mask );
+
+            if ( sequences.get( index ) != h + 1 )
+            {
+                break;
+            }
+
+            long waited = now - enqueuedNanos[ index ];
+
+            latency += waited;
+            maxLatency = Math.max( maxLatency, waited );
+
+            batch.add( slots[ index ] );
+
+            slots[ index ] = null;
+
+            // free the slot for the position one lap ahead
+            sequences.set( index, h + capacity );
+
+            h++;
+        }
+
+        head = h;
+
+        final int size = batch.size();
+
+        if ( size > 0 )
+        {
+            try
+            {
+                handler.handle( batch );
+            }
+            finally
+            {
+                batch.clear();
+
+                delivered += size;
+                batches++;
+                totalLatencyNanos += latency;
+                maxLatencyNanos = maxLatency;
+            }
+        }
+
+        return size;
+    }
+
+    public int getCapacity()
+    {
+        return capacity;
+    }
+
+    /**
+     * @return the number of notifications waiting to be delivered
+     */
+    public long getQueueDepth()
+    {
+        return Math.max( 0, tail.get() - head );
+    }
+
+    public long getPublished()
+    {
+        return published.get();
+    }
+
+    /**
+     * @return the number of notifications dropped because the ring was full
+     */
+    public long getDropped()
+    {
+        return dropped.get();
+    }
+
+    public long getDelivered()
+    {
+        return delivered;
+    }
+
+    public long getBatches()
+    {
+        return batches;
+    }
+
+    /**
+     * @return the mean time between a notification being published and being taken for delivery
+     */
+    public long getMeanLatencyNanos()
+    {
+        long d = delivered;
+
+        return d == 0
+                ? 0
+                : totalLatencyNanos / d;
+    }
+
+    public long getMaxLatencyNanos()
+    {
+        return maxLatencyNanos;
+    }
+}
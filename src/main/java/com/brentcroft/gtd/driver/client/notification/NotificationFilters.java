@@ -0,0 +1,114 @@
+package com.brentcroft.gtd.driver.client.notification;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.TreeSet;
+import javax.management.NotificationFilterSupport;
+
+/**
+ * Builds the filter sent to the harness with the remote notification listener,
+ * so that notifications nobody wants are not sent over RMI.
+ * <p/>
+ * The filter has to be a class the harness can load, so only the JDK's
+ * <code>NotificationFilterSupport</code> (which selects by type prefix) is used.
+ */
+public class NotificationFilters
+{
+    private NotificationFilters()
+    {
+    }
+
+    /**
+     * @param typePrefixes the prefixes, or null for any type
+     * @param type         a notification type
+     * @return true if the type starts with one of the prefixes
+     */
+    public static boolean matches( String[] typePrefixes, String type )
+    {
+        if ( typePrefixes == null )
+        {
+            return true;
+        }
+
+        if ( type == null )
+        {
+            return false;
+        }
+
+        for ( String prefix : typePrefixes )
+        {
+            if ( type.startsWith( prefix ) )
+            {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Combine the type prefixes wanted by each consumer.
+     *
+     * @param wanted the type prefixes wanted by each consumer (a null element meaning every type)
+     * @return the union of the prefixes (shorter prefixes absorbing longer ones),
+     * or null if some consumer wants every type
+     */
+    public static Set< String > union( Collection< String[] > wanted )
+    {
+        Set< String > prefixes = new TreeSet<>();
+
+        for ( String[] w : wanted )
+        {
+            if ( w == null )
+            {
+                return null;
+            }
+
+            for ( String prefix : w )
+            {
+                if ( prefix != null )
+                {
+                    prefixes.add( prefix );
+                }
+            }
+        }
+
+        // sorted, so any prefix of a string comes before it
+        String previous = null;
+
+        for ( Iterator< String > i = prefixes.iterator(); i.hasNext(); )
+        {
+            String prefix = i.next();
+
+            if ( previous != null && prefix.startsWith( previous ) )
+            {
+                i.remove();
+            }
+            else
+            {
+                previous = prefix;
+            }
+        }
+
+        return prefixes;
+    }
+
+    /**
+     * @param typePrefixes the type prefixes to enable, or null for every type
+     * @return a filter enabling the prefixes (an empty set enabling nothing), or null for no filter
+     */
+    public static NotificationFilterSupport newFilter( Set< String > typePrefixes )
+    {
+        if ( typePrefixes == null )
+        {
+            return null;
+        }
+
+        NotificationFilterSupport filter = new NotificationFilterSupport();
+
+        typePrefixes.forEach( filter::enableType );
+
+        return filter;
+    }
+}
@@ -0,0 +1,222 @@
+package com.brentcroft.gtd.driver.client.notification;
+
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Reactive streams interfaces with the same shape as <code>java.util.concurrent.Flow</code>
+ * (which isn't available before Java 9), together with a few operators.
+ * <p/>
+ * On Java 9 or later a <code>Flow.Subscriber</code> can be adapted with a one line lambda per method.
+ */
+public final class NotificationFlow
+{
+    private NotificationFlow()
+    {
+    }
+
+    public interface Publisher< T >
+    {
+        /**
+         * Add a subscriber, which will first receive <code>onSubscribe</code>,
+         * and then up to as many <code>onNext</code> calls as it has requested.
+         *
+         * @param subscriber the subscriber
+         */
+        void subscribe( Subscriber< ? super T > subscriber );
+    }
+
+    public interface Subscriber< T >
+    {
+        void onSubscribe( Subscription subscription );
+
+        void onNext( T item );
+
+        void onError( Throwable throwable );
+
+        void onComplete();
+    }
+
+    public interface Subscription
+    {
+        /**
+         * Add to the number of items the subscriber is ready to receive.
+         *
+         * @param n the number of items (must be positive)
+         */
+        void request( long n );
+
+        /**
+         * Stop receiving items (eventually).
+         */
+        void cancel();
+    }
+
+    /**
+     * @param upstream  the source of items
+     * @param predicate selects the items to pass on
+     * @param <T>       the type of item
+     * @return a publisher of the selected items
+     */
+    public static < T > Publisher< T > filter( Publisher< T > upstream, Predicate< ? super T > predicate )
+    {
+        return subscriber -> upstream.subscribe( new Subscriber< T >()
+        {
+            private Subscription subscription;
+
+            public void onSubscribe( Subscription subscription )
+            {
+                this.subscription = subscription;
+
+                subscriber.onSubscribe( subscription );
+            }
+
+            public void onNext( T item )
+            {
+                final boolean selected;
+
+                try
+                {
+                    selected = predicate.test( item );
+                }
+                catch ( RuntimeException e )
+                {
+                    subscription.cancel();
+                    subscriber.onError( e );
+                    return;
+                }
+
+                if ( selected )
+                {
+                    subscriber.onNext( item );
+                }
+                else
+                {
+                    // replace the demand used up by the item
+                    subscription.request( 1 );
+                }
+            }
+
+            public void onError( Throwable throwable )
+            {
+                subscriber.onError( throwable );
+            }
+
+            public void onComplete()
+            {
+                subscriber.onComplete();
+            }
+        } );
+    }
+
+    /**
+     * @param upstream the source of items
+     * @param mapper   converts each item
+     * @param <T>      the type of item
+     * @param <R>      the type of converted item
+     * @return a publisher of the converted items
+     */
+    public static < T, R > Publisher< R > map( Publisher< T > upstream, Function< ? super T, ? extends R > mapper )
+    {
+        return subscriber -> upstream.subscribe( new Subscriber< T >()
+        {
+            private Subscription subscription;
+
+            public void onSubscribe( Subscription subscription )
+            {
+                this.subscription = subscription;
+
+                subscriber.onSubscribe( subscription );
+            }
+
+            public void onNext( T item )
+            {
+                final R mapped;
+
+                try
+                {
+                    mapped = mapper.apply( item );
+                }
+                catch ( RuntimeException e )
+                {
+                    subscription.cancel();
+                    subscriber.onError( e );
+                    return;
+                }
+
+                subscriber.onNext( mapped );
+            }
+
+            public void onError( Throwable throwable )
+            {
+                subscriber.onError( throwable );
+            }
+
+            public void onComplete()
+            {
+                subscriber.onComplete();
+            }
+        } );
+    }
+
+    /**
+     * Subscribe until the first item that satisfies a predicate.
+     * <p/>
+     * Only items published after subscribing are seen, so check any existing state after calling this.
+     * Cancelling the future cancels the subscription.
+     *
+     * @param upstream  the source of items
+     * @param predicate selects the item wanted
+     * @param <T>       the type of item
+     * @return a future completed with the first selected item, or exceptionally if the publisher fails
+     * or completes first
+     */
+    public static < T > CompletableFuture< T > first( Publisher< T > upstream, Predicate< ? super T > predicate )
+    {
+        final CompletableFuture< T > future = new CompletableFuture<>();
+
+        upstream.subscribe( new Subscriber< T >()
+        {
+            public void onSubscribe( Subscription subscription )
+            {
+                future.whenComplete( ( item, e ) -> subscription.cancel() );
+
+                subscription.request( Long.MAX_VALUE );
+            }
+
+            public void onNext( T item )
+            {
+                if ( future.isDone() )
+                {
+                    return;
+                }
+
+                try
+                {
+                    if ( predicate.test( item ) )
+                    {
+                        future.complete( item );
+                    }
+                }
+                catch ( RuntimeException e )
+                {
+                    future.completeExceptionally( e );
+                }
+            }
+
+            public void onError( Throwable throwable )
+            {
+                future.completeExceptionally( throwable );
+            }
+
+            public void onComplete()
+            {
+                future.completeExceptionally( new NoSuchElementException( "Completed without a match." ) );
+            }
+        } );
+
+        return future;
+    }
+}
@@ -0,0 +1,375 @@
+package com.brentcroft.gtd.driver.client.notification;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import javax.management.Notification;
+import javax.management.NotificationListener;
+
+import static java.lang.String.format;
+
+/**
+ * Records notifications in a memory-mapped file, used as a ring so that the file never grows
+ * and the oldest records are overwritten when it is full.
+ * <p/>
+ * Recording is a few puts into mapped memory (no system calls), so a journal can be left on;
+ * the operating system writes the pages out, so the journal survives the JVM dying.
+ * <p/>
+ * The file starts with a header:
+ * <pre>
+ *     int   magic
+ *     int   version
+ *     long  capacity   (bytes of record data)
+ *     long  head       (offset of the oldest record)
+ *     long  tail       (offset of the next record)
+ *     long  count      (number of records held)
+ *     long  recorded   (number of records ever written)
+ * </pre>
+ * followed by the record data, each record being:
+ * <pre>
+ *     int   length     (of the whole record)
+ *     long  sequence
+ *     long  timestamp
+ *     short type length, followed by the type in UTF-8
+ *     int   message length (-1 for null), followed by the message in UTF-8
+ * </pre>
+ * A length of -1 (or too little room for a length) marks that the next record is at the start of the data.
+ * <p/>
+ * Use <code>replay( path, listener )</code> to read a journal back.
+ */
+public class NotificationJournal implements Closeable
+{
+    public static final int MAGIC = 0x47544A4E;
+    public static final int VERSION = 1;
+
+    private static final int HEADER_SIZE = 64;
+    private static final int WRAP = -1;
+
+    private static final int HEAD_OFFSET = 16;
+    private static final int TAIL_OFFSET = 24;
+    private static final int COUNT_OFFSET = 32;
+    private static final int RECORDED_OFFSET = 40;
+
+    // length, sequence, timestamp, type length, message length
+    private static final int RECORD_OVERHEAD = 4 + 8 + 8 + 2 + 4;
+
+    private final Path path;
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final long capacity;
+
+    // guarded by this
+    private long head;
+    private long tail;
+    private long count;
+    private long recorded;
+    private boolean closed = false;
+
+    /**
+     * Open a journal, continuing an existing one if it has the same capacity,
+     * otherwise starting a new one.
+     *
+     * @param path     the journal file
+     * @param capacity the number of bytes of record data
+     * @throws IOException if the file can't be opened or mapped
+     */
+    public NotificationJournal( Path path, int capacity ) throws IOException
+    {
+        if ( capacity < 1024 )
+        {
+            throw new IllegalArgumentException( format( "Journal capacity [%s] is less than 1024 bytes.", capacity ) );
+        }
+
+        this.path = path;
+        this.capacity = capacity;
+        this.channel = FileChannel.open(
+                path,
+                StandardOpenOption.CREATE,
+                StandardOpenOption.READ,
+                StandardOpenOption.WRITE );
+
+        try
+        {
+            boolean existing = channel.size() == HEADER_SIZE + capacity;
+
+            this.buffer = channel.map( FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE + capacity );
+
+            if ( existing
+                    && buffer.getInt( 0 ) == MAGIC
+                    && buffer.getInt( 4 ) == VERSION
+                    && buffer.getLong( 8 ) == capacity )
+            {
+                head = buffer.getLong( HEAD_OFFSET );
+                tail = buffer.getLong( TAIL_OFFSET );
+                count = buffer.getLong( COUNT_OFFSET );
+                recorded = buffer.getLong( RECORDED_OFFSET );
+            }
+            else
+            {
+                buffer.putInt( 0, MAGIC );
+                buffer.putInt( 4, VERSION );
+                buffer.putLong( 8, capacity );
+
+                writeHeader();
+            }
+        }
+        catch ( IOException | RuntimeException e )
+        {
+            channel.close();
+
+            throw e;
+        }
+    }
+
+    public String toString()
+    {
+        return format( "journal=[%s], capacity=[%s], count=[%s], recorded=[%s]", path, capacity, getCount(), getRecorded() );
+    }
+
+    private void writeHeader()
+    {
+        buffer.putLong( HEAD_OFFSET, head );
+        buffer.putLong( TAIL_OFFSET, tail );
+        buffer.putLong( COUNT_OFFSET, count );
+        buffer.putLong( RECORDED_OFFSET, recorded );
+    }
+
+    private int position( long offset )
+    {
+        return ( int ) ( HEADER_SIZE + offset );
+    }
+
+    /**
+     * Record a notification, overwriting the oldest records if there isn't room.
+     * <p/>
+     * Messages too long to fit in half the journal are truncated.
+     *
+     * @param notification the notification
+     */
+    public synchronized void record( Notification notification )
+    {
+        if ( closed )
+        {
+            return;
+        }
+
+        byte[] type = bytes( notification.getType(), Short.MAX_VALUE );
+        byte[] message = notification.getMessage() == null
+                ? null
+                : bytes( notification.getMessage(), ( int ) ( capacity / 2 ) - RECORD_OVERHEAD - type.length );
+
+        final int length = RECORD_OVERHEAD + type.length + ( message == null ? 0 : message.length );
+
+        if ( tail + length > capacity )
+        {
+            // make sure we're not about to overwrite the oldest record with the marker
+            while ( count > 0 && tail <= head )
+            {
+                evict();
+            }
+
+            if ( capacity - tail >= 4 )
+            {
+                buffer.putInt( position( tail ), WRAP );
+            }
+
+            tail = 0;
+        }
+
+        while ( count > 0 && tail <= head && head < tail + length )
+        {
+            evict();
+        }
+
+        int p = position( tail );
+
+        buffer.putInt( p, length );
+        buffer.putLong( p + 4, notification.getSequenceNumber() );
+        buffer.putLong( p + 12, notification.getTimeStamp() );
+        buffer.putShort( p + 20, ( short ) type.length );
+
+        p += 22;
+
+        for ( byte b : type )
+        {
+            buffer.put( p++, b );
+        }
+
+        if ( message == null )
+        {
+            buffer.putInt( p, -1 );
+        }
+        else
+        {
+            buffer.putInt( p, message.length );
+
+            p += 4;
+
+            for ( byte b : message )
+            {
+                buffer.put( p++, b );
+            }
+        }
+
+        if ( count == 0 )
+        {
+            head = tail;
+        }
+
+        tail += length;
+        count++;
+        recorded++;
+
+        writeHeader();
+    }
+
+    private static byte[] bytes( String text, int maxBytes )
+    {
+        byte[] bytes = text == null
+                ? new byte[ 0 ]
+                : text.getBytes( StandardCharsets.UTF_8 );
+
+        if ( bytes.length > maxBytes )
+        {
+            byte[] truncated = new byte[ Math.max( 0, maxBytes ) ];
+
+            System.arraycopy( bytes, 0, truncated, 0, truncated.length );
+
+            return truncated;
+        }
+
+        return bytes;
+    }
+
+    private void evict()
+    {
+        if ( capacity - head < 4 || buffer.getInt( position( head ) ) == WRAP )
+        {
+            head = 0;
+            return;
+        }
+
+        head += buffer.getInt( position( head ) );
+        count--;
+
+        if ( count == 0 )
+        {
+            head = tail;
+        }
+    }
+
+    public Path getPath()
+    {
+        return path;
+    }
+
+    public long getCapacity()
+    {
+        return capacity;
+    }
+
+    /**
+     * @return the number of records currently held
+     */
+    public synchronized long getCount()
+    {
+        return count;
+    }
+
+    /**
+     * @return the number of records ever written (including those since overwritten)
+     */
+    public synchronized long getRecorded()
+    {
+        return recorded;
+    }
+
+    /**
+     * Ask the operating system to write the journal to disk now.
+     */
+    public synchronized void flush()
+    {
+        if ( !closed )
+        {
+            buffer.force();
+        }
+    }
+
+    public synchronized void close() throws IOException
+    {
+        if ( closed )
+        {
+            return;
+        }
+
+        closed = true;
+
+        buffer.force();
+        channel.close();
+    }
+
+    /**
+     * Read a journal, passing each record (oldest first) to a listener as a Notification
+     * whose source is the journal path.
+     *
+     * @param path     the journal file
+     * @param listener receives the notifications
+     * @return the number of notifications replayed
+     * @throws IOException if the file can't be read or isn't a journal
+     */
+    public static long replay( Path path, NotificationListener listener ) throws IOException
+    {
+        ByteBuffer buffer = ByteBuffer.wrap( Files.readAllBytes( path ) );
+
+        if ( buffer.capacity() < HEADER_SIZE || buffer.getInt( 0 ) != MAGIC )
+        {
+            throw new IOException( format( "Not a notification journal: [%s].", path ) );
+        }
+
+        if ( buffer.getInt( 4 ) != VERSION )
+        {
+            throw new IOException( format( "Unsupported journal version [%s]: [%s].", buffer.getInt( 4 ), path ) );
+        }
+
+        final long capacity = buffer.getLong( 8 );
+        final long count = buffer.getLong( COUNT_OFFSET );
+        final String source = path.toString();
+
+        long offset = buffer.getLong( HEAD_OFFSET );
+
+        for ( long i = 0; i < count; i++ )
+        {
+            if ( capacity - offset < 4 || buffer.getInt( ( int ) ( HEADER_SIZE + offset ) ) == WRAP )
+            {
+                offset = 0;
+            }
+
+            int p = ( int ) ( HEADER_SIZE + offset );
+
+            final int length = buffer.getInt( p );
+            final long sequence = buffer.getLong( p + 4 );
+            final long timestamp = buffer.getLong( p + 12 );
+            final int typeLength = buffer.getShort( p + 20 );
+
+            final String type = new String( buffer.array(), p + 22, typeLength, StandardCharsets.UTF_8 );
+
+            final int messageLength = buffer.getInt( p + 22 + typeLength );
+
+            final String message = messageLength < 0
+                    ? null
+                    : new String( buffer.array(), p + 26 + typeLength, messageLength, StandardCharsets.UTF_8 );
+
+            listener.handleNotification( new Notification( type, source, sequence, timestamp, message ), null );
+
+            offset += length;
+        }
+
+        return count;
+    }
+}
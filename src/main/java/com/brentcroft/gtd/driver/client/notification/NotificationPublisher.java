@@ -0,0 +1,360 @@
+package com.brentcroft.gtd.driver.client.notification;
+
+import com.brentcroft.gtd.driver.client.GuiDriver;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Predicate;
+import javax.management.Notification;
+import javax.management.NotificationListener;
+import org.apache.log4j.Logger;
+
+import static java.lang.String.format;
+
+/**
+ * Publishes a driver's notifications to reactive subscribers, each receiving no more than it has requested.
+ * <p/>
+ * The publisher registers itself as a listener with the driver (for its type prefixes)
+ * while it has any subscribers.
+ * <p/>
+ * Each subscriber has a bounded buffer for notifications it hasn't yet requested;
+ * when that is full the oldest are dropped (see <code>getDropped()</code>), since a GUI can't be held back.
+ * Subscribers are signalled by tasks on an executor, one at a time, in order.
+ */
+public class NotificationPublisher implements NotificationFlow.Publisher< Notification >, NotificationListener
+{
+    private final static Logger logger = Logger.getLogger( NotificationPublisher.class );
+
+    private final GuiDriver driver;
+    private final int bufferSize;
+    private final String[] typePrefixes;
+    private final Executor executor;
+
+    private final List< BufferedSubscription > subscriptions = new CopyOnWriteArrayList<>();
+
+    /**
+     * @param driver       the source of notifications
+     * @param bufferSize   the most notifications held for each subscriber
+     * @param typePrefixes the notification type prefixes to publish (none meaning every notification)
+     */
+    public NotificationPublisher( GuiDriver driver, int bufferSize, String... typePrefixes )
+    {
+        this.driver = driver;
+        this.bufferSize = Math.max( 1, bufferSize );
+        this.typePrefixes = typePrefixes;
+        this.executor = ListenerChannel.getSharedExecutor();
+    }
+
+    public String toString()
+    {
+        return format( "NotificationPublisher: subscribers=[%s], buffer.size=[%s], dropped=[%s]",
+                subscriptions.size(),
+                bufferSize,
+                getDropped() );
+    }
+
+    public void subscribe( NotificationFlow.Subscriber< ? super Notification > subscriber )
+    {
+        if ( subscriber == null )
+        {
+            throw new NullPointerException( "subscriber" );
+        }
+
+        BufferedSubscription subscription = new BufferedSubscription( subscriber );
+
+        synchronized ( subscriptions )
+        {
+            if ( subscriptions.isEmpty() )
+            {
+                driver.addNotificationListener( this, typePrefixes );
+            }
+
+            subscriptions.add( subscription );
+        }
+
+        // onSubscribe is signalled by the delivery task
+        subscription.schedule();
+    }
+
+    private void unsubscribe( BufferedSubscription subscription )
+    {
+        synchronized ( subscriptions )
+        {
+            if ( subscriptions.remove( subscription ) && subscriptions.isEmpty() )
+            {
+                driver.removeNotificationListener( this );
+            }
+        }
+    }
+
+    public void handleNotification( Notification notification, Object handback )
+    {
+        for ( BufferedSubscription subscription : subscriptions )
+        {
+            subscription.offer( notification );
+        }
+    }
+
+    /**
+     * Signal <code>onComplete</code> to every subscriber (after anything already requested),
+     * and stop listening to the driver.
+     */
+    public void close()
+    {
+        for ( BufferedSubscription subscription : subscriptions )
+        {
+            subscription.complete();
+        }
+    }
+
+    /**
+     * @param typePrefixes notification type prefixes
+     * @return a publisher of the notifications whose type starts with one of the prefixes
+     */
+    public NotificationFlow.Publisher< Notification > ofType( String... typePrefixes )
+    {
+        return NotificationFlow.filter( this, n -> NotificationFilters.matches( typePrefixes, n.getType() ) );
+    }
+
+    /**
+     * @param predicate selects notifications
+     * @return a publisher of the selected notifications
+     */
+    public NotificationFlow.Publisher< Notification > filter( Predicate< ? super Notification > predicate )
+    {
+        return NotificationFlow.filter( this, predicate );
+    }
+
+    /**
+     * Wait (without a thread) for the first notification satisfying a predicate.
+     * <p/>
+     * Only notifications received after this call are considered.
+     *
+     * @param predicate selects the notification wanted
+     * @return a future completed with the notification; cancel it to stop waiting
+     */
+    public CompletableFuture< Notification > awaitFirst( Predicate< ? super Notification > predicate )
+    {
+        return NotificationFlow.first( this, predicate );
+    }
+
+    public int getSubscriberCount()
+    {
+        return subscriptions.size();
+    }
+
+    /**
+     * @return the number of notifications dropped because subscribers hadn't requested them
+     */
+    public long getDropped()
+    {
+        long dropped = 0;
+
+        for ( BufferedSubscription subscription : subscriptions )
+        {
+            dropped += subscription.dropped;
+        }
+
+        return dropped;
+    }
+
+    private class BufferedSubscription implements NotificationFlow.Subscription
+    {
+        private final NotificationFlow.Subscriber< ? super Notification > subscriber;
+
+        // guarded by this
+        private final Deque< Notification > buffer = new ArrayDeque<>();
+        private long demand = 0;
+        private Throwable error = null;
+        private boolean completing = false;
+
+        private volatile boolean cancelled = false;
+        private volatile long dropped = 0;
+
+        // only touched by the delivery task
+        private boolean subscribed = false;
+
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+
+        BufferedSubscription( NotificationFlow.Subscriber< ? super Notification > subscriber )
+        {
+            this.subscriber = subscriber;
+        }
+
+        public void request( long n )
+        {
+            synchronized ( this )
+            {
+                if ( n <= 0 )
+                {
+                    error = new IllegalArgumentException( format( "Non-positive request: [%s].", n ) );
+                }
+                else
+                {
+                    demand = demand + n < 0
+                            ? Long.MAX_VALUE
+                            : demand + n;
+                }
+            }
+
+            schedule();
+        }
+
+        public void cancel()
+        {
+            if ( cancelled )
+            {
+                return;
+            }
+
+            cancelled = true;
+
+            synchronized ( this )
+            {
+                buffer.clear();
+            }
+
+            unsubscribe( this );
+        }
+
+        void offer( Notification notification )
+        {
+            if ( cancelled )
+            {
+                return;
+            }
+
+            boolean deliverable;
+
+            synchronized ( this )
+            {
+                if ( completing )
+                {
+                    return;
+                }
+
+                if ( buffer.size() >= bufferSize )
+                {
+                    buffer.pollFirst();
+                    dropped++;
+                }
+
+                buffer.addLast( notification );
+
+                deliverable = demand > 0;
+            }
+
+            if ( deliverable )
+            {
+                schedule();
+            }
+        }
+
+        void complete()
+        {
+            synchronized ( this )
+            {
+                completing = true;
+            }
+
+            schedule();
+        }
+
+        void schedule()
+        {
+            if ( !cancelled && scheduled.compareAndSet( false, true ) )
+            {
+                try
+                {
+                    executor.execute( this::deliver );
+                }
+                catch ( RuntimeException e )
+                {
+                    scheduled.set( false );
+
+                    logger.warn( "Unable to schedule delivery.", e );
+                }
+            }
+        }
+
+        private synchronized Notification next()
+        {
+            if ( demand > 0 && !buffer.isEmpty() )
+            {
+                if ( demand != Long.MAX_VALUE )
+                {
+                    demand--;
+                }
+
+                return buffer.pollFirst();
+            }
+
+            return null;
+        }
+
+        private synchronized boolean hasWork()
+        {
+            return error != null || completing || ( demand > 0 && !buffer.isEmpty() );
+        }
+
+        private void deliver()
+        {
+            try
+            {
+                if ( !subscribed )
+                {
+                    subscribed = true;
+
+                    subscriber.onSubscribe( this );
+                }
+
+                Notification notification;
+
+                while ( !cancelled && ( notification = next() ) != null )
+                {
+                    subscriber.onNext( notification );
+                }
+
+                final Throwable e;
+                final boolean complete;
+
+                synchronized ( this )
+                {
+                    e = error;
+                    complete = completing;
+                }
+
+                if ( !cancelled && e != null )
+                {
+                    cancel();
+                    subscriber.onError( e );
+                }
+                else if ( !cancelled && complete )
+                {
+                    cancel();
+                    subscriber.onComplete();
+                }
+            }
+            catch ( RuntimeException e )
+            {
+                // a subscriber mustn't throw, so it can't expect more
+                logger.warn( format( "Subscriber failed, so cancelled: [%s].", subscriber ), e );
+
+                cancel();
+            }
+            finally
+            {
+                scheduled.set( false );
+            }
+
+            if ( !cancelled && hasWork() )
+            {
+                schedule();
+            }
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.brentcroft.gtd.driver.client.notification;
+
+/**
+ * What a ListenerChannel does with a notification when the listener has fallen behind.
+ */
+public enum OverflowPolicy
+{
+    /**
+     * When the queue is full, wait (for up to <code>ListenerChannel.MAX_BLOCK_MILLIS</code>)
+     * for the listener to make room, then discard the oldest pending notification.
+     * <p/>
+     * This holds up whatever delivers to the channel (the driver's dispatcher, which may be shared),
+     * so only suits listeners that mustn't miss notifications and keep up.
+     */
+    BLOCK
+            {
+                boolean coalesces()
+                {
+                    return false;
+                }
+
+                boolean blocks()
+                {
+                    return true;
+                }
+            },
+
+    /**
+     * When the queue is full, discard the oldest pending notification (the default).
+     */
+    DROP_OLDEST
+            {
+                boolean coalesces()
+                {
+                    return false;
+                }
+
+                boolean blocks()
+                {
+                    return false;
+                }
+            },
+
+    /**
+     * Replace any pending notification of the same type with the newer one
+     * (so the listener only sees the latest of each type it hasn't caught up with),
+     * and when the queue is full, discard the oldest pending notification.
+     */
+    COALESCE_BY_TYPE
+            {
+                boolean coalesces()
+                {
+                    return true;
+                }
+
+                boolean blocks()
+                {
+                    return false;
+                }
+            };
+
+    abstract boolean coalesces();
+
+    abstract boolean blocks();
+}
@@ -0,0 +1,591 @@
+package com.brentcroft.gtd.driver.client.snapshot;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.xml.namespace.QName;
+import javax.xml.xpath.XPathConstants;
+
+/**
+ * A parsed XPath expression drawn from the simple subset that snapshot paths usually use,
+ * so that it can be evaluated without building a DOM.
+ * <p/>
+ * The subset is:
+ * <ul>
+ * <li>location paths made of child (<code>/</code>) and descendant (<code>//</code>) steps,
+ * optionally starting with <code>child::</code>, <code>descendant::</code> or <code>descendant-or-self::</code>;</li>
+ * <li>steps that are an element name or <code>*</code>;</li>
+ * <li>predicates that are attribute equality tests (e.g. <code>[ @text='Exit' ]</code>,
+ * optionally joined with <code>and</code> and optionally bracketed), followed by at most one positional predicate (e.g. <code>[2]</code>);</li>
+ * <li>an optional final attribute step (e.g. <code>/@text</code>);</li>
+ * <li>optionally wrapped in <code>string()</code>, <code>count()</code> or <code>boolean()</code>.</li>
+ * </ul>
+ * Anything else is not compiled, and should be evaluated using DOM.
+ */
+public class SimplePath
+{
+    public enum Function
+    {
+        NONE,
+        STRING,
+        COUNT,
+        BOOLEAN
+    }
+
+    public static class Step
+    {
+        private final boolean descendant;
+        private final String name;
+        private final List< String[] > attributes;
+        private final Integer position;
+
+        Step( boolean descendant, String name, List< String[] > attributes, Integer position )
+        {
+            this.descendant = descendant;
+            this.name = name;
+            this.attributes = attributes;
+            this.position = position;
+        }
+
+        public boolean isDescendant()
+        {
+            return descendant;
+        }
+
+        public String getName()
+        {
+            return name;
+        }
+
+        public boolean matchesName( String elementName )
+        {
+            return "*".equals( name ) || name.equals( elementName );
+        }
+
+        /**
+         * @return the attribute equality tests, as [ name, value ] pairs.
+         */
+        public List< String[] > getAttributes()
+        {
+            return attributes;
+        }
+
+        /**
+         * @return the (one based) positional predicate, or null if there isn't one.
+         */
+        public Integer getPosition()
+        {
+            return position;
+        }
+    }
+
+    // unsupported expressions are remembered too
+    private static final SimplePath UNSUPPORTED = new SimplePath( null, null, null, null );
+
+    // expressions come from callers, so only so many are remembered
+    private static final int MAX_COMPILED = 1024;
+    private static final Map< String, SimplePath > compiled = new ConcurrentHashMap<>();
+
+    private final String xpath;
+    private final Function function;
+    private final List< Step > steps;
+    private final String resultAttribute;
+
+    private SimplePath( String xpath, Function function, List< Step > steps, String resultAttribute )
+    {
+        this.xpath = xpath;
+        this.function = function;
+        this.steps = steps;
+        this.resultAttribute = resultAttribute;
+    }
+
+    public String toString()
+    {
+        return xpath;
+    }
+
+    /**
+     * Compile an XPath expression, if it is in the supported subset.
+     *
+     * @param xpath the XPath expression
+     * @return the compiled path, or null if the expression is not in the supported subset
+     */
+    public static SimplePath compile( String xpath )
+    {
+        if ( xpath == null )
+        {
+            return null;
+        }
+
+        SimplePath path = compiled.get( xpath );
+
+        if ( path == null )
+        {
+            path = new Parser( xpath ).parse();
+
+            if ( path == null )
+            {
+                path = UNSUPPORTED;
+            }
+
+            if ( compiled.size() < MAX_COMPILED )
+            {
+                compiled.putIfAbsent( xpath, path );
+            }
+        }
+
+        return path == UNSUPPORTED
+                ? null
+                : path;
+    }
+
+    public String getXPath()
+    {
+        return xpath;
+    }
+
+    public Function getFunction()
+    {
+        return function;
+    }
+
+    public List< Step > getSteps()
+    {
+        return steps;
+    }
+
+    /**
+     * @return the name of the attribute selected by a final attribute step, or null if elements are selected.
+     */
+    public String getResultAttribute()
+    {
+        return resultAttribute;
+    }
+
+    public boolean hasPositions()
+    {
+        for ( Step step : steps )
+        {
+            if ( step.position != null )
+            {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Convert the outcome of matching this path into an XPath result.
+     *
+     * @param returnType one of <code>XPathConstants.STRING</code>, <code>BOOLEAN</code> or <code>NUMBER</code>
+     * @param count      the number of matches (only needs to be exact for <code>count()</code>)
+     * @param first      the string value of the first match, or null if there were no matches
+     * @return the result (a String, Boolean or Double), or null if the result can't be derived
+     */
+    public Object toResult( QName returnType, long count, String first )
+    {
+        final boolean wantString = XPathConstants.STRING.equals( returnType );
+        final boolean wantBoolean = XPathConstants.BOOLEAN.equals( returnType );
+        final boolean wantNumber = XPathConstants.NUMBER.equals( returnType );
+
+        switch ( function )
+        {
+            case COUNT:
+                if ( wantString )
+                {
+                    return Long.toString( count );
+                }
+
+                return wantBoolean
+                        ? ( Object ) ( count > 0 )
+                        : wantNumber
+                                ? ( Object ) ( double ) count
+                                : null;
+
+            case BOOLEAN:
+                if ( wantString )
+                {
+                    return Boolean.toString( first != null );
+                }
+
+                return wantBoolean
+                        ? ( Object ) ( first != null )
+                        : null;
+
+            case STRING:
+                if ( wantString )
+                {
+                    return first == null
+                            ? ""
+                            : first;
+                }
+
+                return wantBoolean
+                        ? ( Object ) ( first != null && !first.isEmpty() )
+                        : null;
+
+            default:
+                if ( wantString )
+                {
+                    return first == null
+                            ? ""
+                            : first;
+                }
+
+                // a node-set is true if it isn't empty
+                return wantBoolean
+                        ? ( Object ) ( first != null )
+                        : null;
+        }
+    }
+
+    /**
+     * @param returnType the XPathConstants type of the result
+     * @return true if the string value of the first match is needed to produce a result
+     */
+    public boolean needsValue( QName returnType )
+    {
+        return function == Function.STRING
+                || ( function == Function.NONE && XPathConstants.STRING.equals( returnType ) );
+    }
+
+    /**
+     * A small recursive descent parser that gives up (returning null)
+     * as soon as it meets anything outside the subset.
+     */
+    private static class Parser
+    {
+        private final String text;
+        private int pos = 0;
+
+        Parser( String text )
+        {
+            this.text = text;
+        }
+
+        SimplePath parse()
+        {
+            skipSpace();
+
+            Function function = Function.NONE;
+
+            for ( Function f : new Function[]{ Function.STRING, Function.COUNT, Function.BOOLEAN } )
+            {
+                String prefix = f.name().toLowerCase();
+
+                if ( text.startsWith( prefix, pos ) )
+                {
+                    int save = pos;
+
+                    pos += prefix.length();
+
+                    skipSpace();
+
+                    if ( accept( "(" ) )
+                    {
+                        function = f;
+                        break;
+                    }
+
+                    pos = save;
+                }
+            }
+
+            List< Step > steps = new ArrayList<>();
+            String resultAttribute = null;
+
+            boolean first = true;
+
+            while ( true )
+            {
+                skipSpace();
+
+                boolean descendant;
+
+                if ( accept( "//" ) )
+                {
+                    descendant = true;
+                }
+                else if ( accept( "/" ) )
+                {
+                    descendant = false;
+                }
+                else if ( first )
+                {
+                    // relative to the document
+                    descendant = false;
+                }
+                else
+                {
+                    break;
+                }
+
+                skipSpace();
+
+                if ( accept( "@" ) )
+                {
+                    // must be the final step
+                    resultAttribute = name();
+
+                    if ( resultAttribute == null || descendant || first )
+                    {
+                        return null;
+                    }
+
+                    skipSpace();
+                    break;
+                }
+
+                boolean descendantAxis = false;
+
+                if ( accept( "descendant::" ) || ( first && accept( "descendant-or-self::" ) ) )
+                {
+                    // only meaningful straight after a child step
+                    if ( descendant )
+                    {
+                        return null;
+                    }
+
+                    descendant = true;
+                    descendantAxis = true;
+                }
+                else
+                {
+                    accept( "child::" );
+                }
+
+                Step step = step( descendant );
+
+                if ( step == null )
+                {
+                    return null;
+                }
+
+                // descendant::a[n] counts over all matches, not per parent as //a[n] does
+                if ( descendantAxis && step.getPosition() != null )
+                {
+                    return null;
+                }
+
+                steps.add( step );
+
+                first = false;
+            }
+
+            if ( steps.isEmpty() )
+            {
+                return null;
+            }
+
+            if ( function != Function.NONE )
+            {
+                skipSpace();
+
+                if ( !accept( ")" ) )
+                {
+                    return null;
+                }
+            }
+
+            skipSpace();
+
+            if ( pos < text.length() )
+            {
+                return null;
+            }
+
+            return new SimplePath( text, function, Collections.unmodifiableList( steps ), resultAttribute );
+        }
+
+        private Step step( boolean descendant )
+        {
+            String name = accept( "*" )
+                    ? "*"
+                    : name();
+
+            if ( name == null )
+            {
+                return null;
+            }
+
+            List< String[] > attributes = new ArrayList<>();
+            Integer position = null;
+
+            skipSpace();
+
+            while ( accept( "[" ) )
+            {
+                // nothing may follow a positional predicate
+                if ( position != null )
+                {
+                    return null;
+                }
+
+                skipSpace();
+
+                if ( pos < text.length() && Character.isDigit( text.charAt( pos ) ) )
+                {
+                    int start = pos;
+
+                    while ( pos < text.length() && Character.isDigit( text.charAt( pos ) ) )
+                    {
+                        pos++;
+                    }
+
+                    position = Integer.valueOf( text.substring( start, pos ) );
+
+                    if ( position < 1 )
+                    {
+                        return null;
+                    }
+                }
+                else
+                {
+                    // e.g. [ ( @id='url' ) ]
+                    boolean bracketed = accept( "(" );
+
+                    do
+                    {
+                        String[] test = attributeTest();
+
+                        if ( test == null )
+                        {
+                            return null;
+                        }
+
+                        attributes.add( test );
+
+                        skipSpace();
+                    }
+                    while ( acceptWord( "and" ) );
+
+                    if ( bracketed && !accept( ")" ) )
+                    {
+                        return null;
+                    }
+                }
+
+                skipSpace();
+
+                if ( !accept( "]" ) )
+                {
+                    return null;
+                }
+
+                skipSpace();
+            }
+
+            return new Step( descendant, name, Collections.unmodifiableList( attributes ), position );
+        }
+
+        private String[] attributeTest()
+        {
+            skipSpace();
+
+            if ( !accept( "@" ) )
+            {
+                return null;
+            }
+
+            String name = name();
+
+            skipSpace();
+
+            if ( name == null || !accept( "=" ) )
+            {
+                return null;
+            }
+
+            skipSpace();
+
+            if ( pos >= text.length() )
+            {
+                return null;
+            }
+
+            char quote = text.charAt( pos );
+
+            if ( quote != '\'' && quote != '"' )
+            {
+                return null;
+            }
+
+            int end = text.indexOf( quote, pos + 1 );
+
+            if ( end < 0 )
+            {
+                return null;
+            }
+
+            String value = text.substring( pos + 1, end );
+
+            pos = end + 1;
+
+            return new String[]{ name, value };
+        }
+
+        private String name()
+        {
+            int start = pos;
+
+            while ( pos < text.length() && isNameChar( text.charAt( pos ), pos == start ) )
+            {
+                pos++;
+            }
+
+            // e.g. an axis or a function call we don't support
+            if ( pos == start
+                    || text.startsWith( "::", pos )
+                    || text.startsWith( "(", pos ) )
+            {
+                return null;
+            }
+
+            return text.substring( start, pos );
+        }
+
+        private static boolean isNameChar( char c, boolean first )
+        {
+            return Character.isLetter( c )
+                    || c == '_'
+                    || ( !first && ( Character.isDigit( c ) || c == '-' || c == '.' ) );
+        }
+
+        private boolean acceptWord( String word )
+        {
+            int end = pos + word.length();
+
+            if ( text.startsWith( word, pos )
+                    && end < text.length()
+                    && !isNameChar( text.charAt( end ), false ) )
+            {
+                pos = end;
+                return true;
+            }
+
+            return false;
+        }
+
+        private boolean accept( String token )
+        {
+            if ( text.startsWith( token, pos ) )
+            {
+                pos += token.length();
+                return true;
+            }
+
+            return false;
+        }
+
+        private void skipSpace()
+        {
+            while ( pos < text.length() && Character.isWhitespace( text.charAt( pos ) ) )
+            {
+                pos++;
+            }
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.brentcroft.gtd.driver.client.snapshot;
+
+import com.brentcroft.util.XmlUtils;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import org.w3c.dom.Document;
+
+import static java.lang.String.format;
+
+/**
+ * Holds the most recently parsed GUI snapshot until something happens that might have changed the GUI.
+ * <p/>
+ * Each invalidation advances a generation number; a cached Document is only served
+ * if no invalidation has occurred since its XML text was requested, so an invalidation that
+ * arrives while a snapshot is in flight still marks that snapshot as stale.
+ */
+public class SnapshotCache
+{
+    private final AtomicLong generation = new AtomicLong();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    private volatile Entry entry = null;
+
+    private static class Entry
+    {
+        private final long generation;
+        private final Document document;
+
+        Entry( long generation, Document document )
+        {
+            this.generation = generation;
+            this.document = document;
+        }
+    }
+
+    public String toString()
+    {
+        return format( "hits=[%s], misses=[%s], invalidations=[%s]",
+                hits.get(),
+                misses.get(),
+                invalidations.get() );
+    }
+
+    /**
+     * Return the cached Document if it is still fresh, otherwise obtain,
+     * parse and cache a new one.
+     *
+     * @param snapshot supplies the XML text of a new snapshot
+     * @return a parsed snapshot
+     */
+    public Document getDocument( Supplier< String > snapshot )
+    {
+        final long current = generation.get();
+        final Entry cached = entry;
+
+        if ( cached != null && cached.generation == current )
+        {
+            hits.incrementAndGet();
+
+            return cached.document;
+        }
+
+        misses.incrementAndGet();
+
+        Document document = XmlUtils.parse( snapshot.get() );
+
+        entry = new Entry( current, document );
+
+        return document;
+    }
+
+    /**
+     * Mark any cached Document as stale.
+     */
+    public void invalidate()
+    {
+        generation.incrementAndGet();
+        invalidations.incrementAndGet();
+    }
+
+    /**
+     * Drop any cached Document and reset the counters.
+     */
+    public void clear()
+    {
+        generation.incrementAndGet();
+        entry = null;
+
+        hits.set( 0 );
+        misses.set( 0 );
+        invalidations.set( 0 );
+    }
+
+    public long getHits()
+    {
+        return hits.get();
+    }
+
+    public long getMisses()
+    {
+        return misses.get();
+    }
+
+    public long getInvalidations()
+    {
+        return invalidations.get();
+    }
+}
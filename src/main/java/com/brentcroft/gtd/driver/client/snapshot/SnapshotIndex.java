@@ -0,0 +1,322 @@
+package com.brentcroft.gtd.driver.client.snapshot;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.xml.namespace.QName;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
+
+import static java.lang.String.format;
+
+/**
+ * An index over a parsed snapshot from (element name, attribute, value) to elements (in document order),
+ * so that paths like <code>//JMenuItem[@text='Exit']</code> can be answered without a descendant scan.
+ * <p/>
+ * Only a set of attribute names is indexed (e.g. <code>id</code>, <code>name</code> and <code>text</code>),
+ * and only single step descendant paths with an equality test on one of those attributes are eligible;
+ * anything else should be evaluated by XPath.
+ */
+public class SnapshotIndex
+{
+    private static final char SEPARATOR = '\u0000';
+
+    private final Document document;
+    private final Set< String > attributes;
+    private final Map< String, List< Element > > entries = new HashMap<>();
+    private final long buildNanos;
+
+    /**
+     * Counters for a series of indexes.
+     */
+    public static class Statistics
+    {
+        private final AtomicLong builds = new AtomicLong();
+        private final AtomicLong buildNanos = new AtomicLong();
+        private final AtomicLong hits = new AtomicLong();
+        private final AtomicLong misses = new AtomicLong();
+
+        public String toString()
+        {
+            return format( "builds=[%s], build.millis=[%s], hits=[%s], misses=[%s], hit.rate=[%.2f]",
+                    builds.get(),
+                    buildNanos.get() / 1000000,
+                    hits.get(),
+                    misses.get(),
+                    getHitRate() );
+        }
+
+        public long getBuilds()
+        {
+            return builds.get();
+        }
+
+        public long getBuildNanos()
+        {
+            return buildNanos.get();
+        }
+
+        /**
+         * @return the number of queries answered by an index
+         */
+        public long getHits()
+        {
+            return hits.get();
+        }
+
+        /**
+         * @return the number of queries that weren't eligible for an index
+         */
+        public long getMisses()
+        {
+            return misses.get();
+        }
+
+        public double getHitRate()
+        {
+            long total = hits.get() + misses.get();
+
+            return total == 0
+                    ? 0
+                    : ( double ) hits.get() / total;
+        }
+
+        public void reset()
+        {
+            builds.set( 0 );
+            buildNanos.set( 0 );
+            hits.set( 0 );
+            misses.set( 0 );
+        }
+    }
+
+    private SnapshotIndex( Document document, Set< String > attributes )
+    {
+        final long started = System.nanoTime();
+
+        this.document = document;
+        this.attributes = attributes;
+
+        Element root = document.getDocumentElement();
+
+        if ( root != null )
+        {
+            index( root );
+        }
+
+        this.buildNanos = System.nanoTime() - started;
+    }
+
+    /**
+     * Build an index over a Document.
+     *
+     * @param document   the parsed snapshot
+     * @param attributes the names of the attributes to index
+     * @param statistics where to record the build (may be null)
+     * @return a new index
+     */
+    public static SnapshotIndex build( Document document, Set< String > attributes, Statistics statistics )
+    {
+        SnapshotIndex index = new SnapshotIndex( document, attributes );
+
+        if ( statistics != null )
+        {
+            statistics.builds.incrementAndGet();
+            statistics.buildNanos.addAndGet( index.buildNanos );
+        }
+
+        return index;
+    }
+
+    public String toString()
+    {
+        return format( "attributes=%s, keys=[%s], build.millis=[%s]", attributes, entries.size(), buildNanos / 1000000 );
+    }
+
+    private static String key( String name, String attribute, String value )
+    {
+        return new StringBuilder( name.length() + attribute.length() + value.length() + 2 )
+                .append( name )
+                .append( SEPARATOR )
+                .append( attribute )
+                .append( SEPARATOR )
+                .append( value )
+                .toString();
+    }
+
+    private void index( Element element )
+    {
+        // iterative, as GUI trees can be deep
+        List< Element > pending = new ArrayList<>();
+
+        pending.add( element );
+
+        while ( !pending.isEmpty() )
+        {
+            Element e = pending.remove( pending.size() - 1 );
+
+            NamedNodeMap attrs = e.getAttributes();
+
+            for ( int i = 0, n = attrs.getLength(); i < n; i++ )
+            {
+                Node attr = attrs.item( i );
+
+                if ( attributes.contains( attr.getNodeName() ) )
+                {
+                    add( key( e.getNodeName(), attr.getNodeName(), attr.getNodeValue() ), e );
+                    add( key( "*", attr.getNodeName(), attr.getNodeValue() ), e );
+                }
+            }
+
+            // push children in reverse so they're visited in document order
+            for ( Node child = e.getLastChild(); child != null; child = child.getPreviousSibling() )
+            {
+                if ( child.getNodeType() == Node.ELEMENT_NODE )
+                {
+                    pending.add( ( Element ) child );
+                }
+            }
+        }
+    }
+
+    private void add( String key, Element element )
+    {
+        entries
+                .computeIfAbsent( key, k -> new ArrayList<>( 1 ) )
+                .add( element );
+    }
+
+    public Document getDocument()
+    {
+        return document;
+    }
+
+    public long getBuildNanos()
+    {
+        return buildNanos;
+    }
+
+    /**
+     * @param attributes the names of attributes
+     * @return true if this index covers exactly those attributes
+     */
+    public boolean isIndexing( Set< String > attributes )
+    {
+        return this.attributes.equals( attributes );
+    }
+
+    /**
+     * @param path a compiled path
+     * @return the attribute test to look up, or null if the path isn't eligible for this index
+     */
+    private String[] lookupTest( SimplePath path )
+    {
+        if ( path.getSteps().size() != 1 )
+        {
+            return null;
+        }
+
+        SimplePath.Step step = path.getSteps().get( 0 );
+
+        if ( !step.isDescendant() || step.getPosition() != null )
+        {
+            return null;
+        }
+
+        for ( String[] test : step.getAttributes() )
+        {
+            if ( attributes.contains( test[ 0 ] ) )
+            {
+                return test;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Evaluate a path using the index.
+     *
+     * @param path       a compiled path
+     * @param returnType the XPathConstants type of the result
+     * @param statistics where to record the outcome (may be null)
+     * @return the result, or null if the path isn't eligible (and should be evaluated by XPath)
+     */
+    public Object evaluate( SimplePath path, QName returnType, Statistics statistics )
+    {
+        String[] lookup = lookupTest( path );
+
+        Object result = null;
+
+        if ( lookup != null )
+        {
+            result = evaluate( path, lookup, returnType );
+        }
+
+        if ( statistics != null )
+        {
+            ( result == null
+                    ? statistics.misses
+                    : statistics.hits ).incrementAndGet();
+        }
+
+        return result;
+    }
+
+    private Object evaluate( SimplePath path, String[] lookup, QName returnType )
+    {
+        SimplePath.Step step = path.getSteps().get( 0 );
+
+        List< Element > candidates = entries.getOrDefault(
+                key( step.getName(), lookup[ 0 ], lookup[ 1 ] ),
+                Collections.emptyList() );
+
+        final String resultAttribute = path.getResultAttribute();
+
+        long count = 0;
+        String first = null;
+
+        for ( Element candidate : candidates )
+        {
+            if ( !matches( candidate, step ) )
+            {
+                continue;
+            }
+
+            if ( resultAttribute != null && !candidate.hasAttribute( resultAttribute ) )
+            {
+                continue;
+            }
+
+            if ( first == null )
+            {
+                first = resultAttribute != null
+                        ? candidate.getAttribute( resultAttribute )
+                        : candidate.getTextContent();
+            }
+
+            count++;
+        }
+
+        return path.toResult( returnType, count, first );
+    }
+
+    private static boolean matches( Element element, SimplePath.Step step )
+    {
+        for ( String[] test : step.getAttributes() )
+        {
+            if ( !element.hasAttribute( test[ 0 ] ) || !test[ 1 ].equals( element.getAttribute( test[ 0 ] ) ) )
+            {
+                return false;
+            }
+        }
+
+        return true;
+    }
+}
@@ -0,0 +1,296 @@
+package com.brentcroft.gtd.driver.client.snapshot;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.xpath.XPathConstants;
+
+import static java.lang.String.format;
+
+/**
+ * Evaluates a SimplePath over the XML text of a snapshot using a StAX reader,
+ * so that no DOM is built and (except for <code>count()</code>) reading stops at the first match.
+ * <p/>
+ * Results are the same as evaluating the XPath expression against the snapshot Document
+ * with <code>XPathConstants.STRING</code>, <code>BOOLEAN</code> or <code>NUMBER</code>.
+ */
+public class StreamingEvaluator
+{
+    private static final XMLInputFactory factory = newFactory();
+
+    private static XMLInputFactory newFactory()
+    {
+        XMLInputFactory f = XMLInputFactory.newInstance();
+
+        f.setProperty( XMLInputFactory.SUPPORT_DTD, false );
+        f.setProperty( XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false );
+        f.setProperty( XMLInputFactory.IS_NAMESPACE_AWARE, true );
+
+        return f;
+    }
+
+    /**
+     * Signals something in the snapshot the evaluator doesn't handle (e.g. namespaces).
+     */
+    private static class UnsupportedSnapshotException extends Exception
+    {
+        private static final long serialVersionUID = 1L;
+
+        UnsupportedSnapshotException( String message )
+        {
+            super( message );
+        }
+    }
+
+    /**
+     * The state of an open element.
+     */
+    private static class Frame
+    {
+        // which steps this element matched
+        final boolean[] matched;
+
+        // which steps this element or any of its ancestors matched
+        final boolean[] inherited;
+
+        // per step, how many children have met the step's tests so far (for positional predicates)
+        final int[] counters;
+
+        final boolean document;
+
+        Frame( int steps, boolean positions, boolean document )
+        {
+            this.matched = new boolean[ steps ];
+            this.inherited = new boolean[ steps ];
+            this.counters = positions
+                    ? new int[ steps ]
+                    : null;
+            this.document = document;
+        }
+    }
+
+    /**
+     * Evaluate a path over the XML text of a snapshot.
+     *
+     * @param path       the compiled path
+     * @param xmlText    the snapshot
+     * @param returnType one of <code>XPathConstants.STRING</code>, <code>BOOLEAN</code> or <code>NUMBER</code>
+     * @return the result (a String, Boolean or Double), or null if the evaluation can't be done by streaming
+     * (and should be done using DOM instead).
+     * @throws XMLStreamException if the snapshot is not well formed
+     */
+    public static Object evaluate( SimplePath path, String xmlText, QName returnType ) throws XMLStreamException
+    {
+        if ( !XPathConstants.STRING.equals( returnType )
+                && !XPathConstants.BOOLEAN.equals( returnType )
+                && !XPathConstants.NUMBER.equals( returnType ) )
+        {
+            return null;
+        }
+
+        try
+        {
+            if ( path.getFunction() == SimplePath.Function.COUNT )
+            {
+                return path.toResult( returnType, count( path, xmlText ), null );
+            }
+
+            String first = first( path, xmlText, path.needsValue( returnType ) );
+
+            return path.toResult( returnType, first == null ? 0 : 1, first );
+        }
+        catch ( UnsupportedSnapshotException e )
+        {
+            return null;
+        }
+    }
+
+    private static long count( SimplePath path, String xmlText ) throws XMLStreamException, UnsupportedSnapshotException
+    {
+        long[] count = { 0 };
+
+        scan( path, xmlText, ( reader, value ) -> {
+            count[ 0 ]++;
+            return false;
+        } );
+
+        return count[ 0 ];
+    }
+
+    /**
+     * @return the string value of the first match, or null if there is none (or "" if a match was found but its
+     * string value wasn't wanted).
+     */
+    private static String first( SimplePath path, String xmlText, boolean wantValue ) throws XMLStreamException, UnsupportedSnapshotException
+    {
+        String[] result = { null };
+
+        scan( path, xmlText, ( reader, value ) -> {
+
+            if ( value != null )
+            {
+                result[ 0 ] = value;
+            }
+            else
+            {
+                result[ 0 ] = wantValue
+                        ? elementText( reader )
+                        : "";
+            }
+
+            return true;
+        } );
+
+        return result[ 0 ];
+    }
+
+    private interface MatchHandler
+    {
+        /**
+         * Called with the reader positioned at the start of a matching element;
+         * the reader may only be advanced if scanning is to stop.
+         *
+         * @param value the value of the selected attribute, or null if the element itself was selected
+         * @return true to stop scanning
+         */
+        boolean match( XMLStreamReader reader, String value ) throws XMLStreamException;
+    }
+
+    /**
+     * Concatenate all the text inside the current element, leaving the reader at its end.
+     */
+    private static String elementText( XMLStreamReader reader ) throws XMLStreamException
+    {
+        StringBuilder b = new StringBuilder();
+
+        int depth = 1;
+
+        while ( depth > 0 && reader.hasNext() )
+        {
+            switch ( reader.next() )
+            {
+                case XMLStreamConstants.START_ELEMENT:
+                    depth++;
+                    break;
+
+                case XMLStreamConstants.END_ELEMENT:
+                    depth--;
+                    break;
+
+                case XMLStreamConstants.CHARACTERS:
+                case XMLStreamConstants.CDATA:
+                case XMLStreamConstants.SPACE:
+                    b.append( reader.getText() );
+                    break;
+
+                default:
+            }
+        }
+
+        return b.toString();
+    }
+
+    private static void scan( SimplePath path, String xmlText, MatchHandler handler ) throws XMLStreamException, UnsupportedSnapshotException
+    {
+        final List< SimplePath.Step > steps = path.getSteps();
+        final int last = steps.size() - 1;
+        final boolean positions = path.hasPositions();
+        final String resultAttribute = path.getResultAttribute();
+
+        final List< Frame > stack = new ArrayList<>();
+
+        stack.add( new Frame( steps.size(), positions, true ) );
+
+        XMLStreamReader reader = factory.createXMLStreamReader( new StringReader( xmlText ) );
+
+        try
+        {
+            while ( reader.hasNext() )
+            {
+                int event = reader.next();
+
+                if ( event == XMLStreamConstants.END_ELEMENT )
+                {
+                    stack.remove( stack.size() - 1 );
+                    continue;
+                }
+                else if ( event != XMLStreamConstants.START_ELEMENT )
+                {
+                    continue;
+                }
+
+                String namespace = reader.getNamespaceURI();
+
+                if ( namespace != null && !namespace.isEmpty() )
+                {
+                    throw new UnsupportedSnapshotException( format( "Namespaced element [%s].", reader.getName() ) );
+                }
+
+                final String name = reader.getLocalName();
+                final Frame parent = stack.get( stack.size() - 1 );
+                final Frame frame = new Frame( steps.size(), positions, false );
+
+                for ( int k = 0; k <= last; k++ )
+                {
+                    SimplePath.Step step = steps.get( k );
+
+                    boolean axis = k == 0
+                            ? step.isDescendant() || parent.document
+                            : step.isDescendant()
+                                    ? parent.inherited[ k - 1 ]
+                                    : parent.matched[ k - 1 ];
+
+                    if ( axis && step.matchesName( name ) && attributesMatch( reader, step ) )
+                    {
+                        frame.matched[ k ] = step.getPosition() == null
+                                || ++parent.counters[ k ] == step.getPosition();
+                    }
+
+                    frame.inherited[ k ] = frame.matched[ k ] || parent.inherited[ k ];
+                }
+
+                if ( frame.matched[ last ] )
+                {
+                    String value = null;
+
+                    if ( resultAttribute != null )
+                    {
+                        value = reader.getAttributeValue( null, resultAttribute );
+                    }
+
+                    if ( resultAttribute == null || value != null )
+                    {
+                        if ( handler.match( reader, value ) )
+                        {
+                            return;
+                        }
+                    }
+                }
+
+                stack.add( frame );
+            }
+        }
+        finally
+        {
+            reader.close();
+        }
+    }
+
+    private static boolean attributesMatch( XMLStreamReader reader, SimplePath.Step step )
+    {
+        for ( String[] test : step.getAttributes() )
+        {
+            if ( !test[ 1 ].equals( reader.getAttributeValue( null, test[ 0 ] ) ) )
+            {
+                return false;
+            }
+        }
+
+        return true;
+    }
+}
@@ -0,0 +1,99 @@
+package com.brentcroft.gtd.driver.client;
+
+import com.brentcroft.gtd.driver.GuiControllerMBean;
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.lang.reflect.UndeclaredThrowableException;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class AbstractGuiLocalDriverTest
+{
+    private final AtomicInteger calls = new AtomicInteger();
+    private volatile RuntimeException failure = null;
+
+    private final GuiControllerMBean harness = ( GuiControllerMBean ) Proxy.newProxyInstance(
+            GuiControllerMBean.class.getClassLoader(),
+            new Class[]{ GuiControllerMBean.class },
+            ( proxy, method, args ) -> {
+                calls.incrementAndGet();
+
+                if ( failure != null )
+                {
+                    throw failure;
+                }
+
+                return args[ 0 ];
+            } );
+
+    private final GuiLocalDriver driver = new GuiLocalDriver();
+
+    public AbstractGuiLocalDriverTest()
+    {
+        // nothing listening
+        driver.setJmxRmiUrl( "service:jmx:rmi:///jndi/rmi://localhost:1/jmxrmi" );
+    }
+
+    @Test
+    public void keepsConnectionWhileCallsSucceed()
+    {
+        GuiControllerMBean leased = driver.lease( harness, null );
+
+        assertEquals( "hello", driver.remote().echo( "hello" ) );
+        assertTrue( driver.remote() == leased );
+        assertEquals( 1, calls.get() );
+
+        // the harness reported a failure, but the connection is fine
+        failure = new GuiDriverException( "no such component" );
+
+        try
+        {
+            driver.remote().echo( "hello" );
+
+            fail( "expected failure" );
+        }
+        catch ( GuiDriverException e )
+        {
+            assertTrue( e == failure );
+        }
+
+        assertTrue( driver.remote() == leased );
+    }
+
+    @Test
+    public void reconnectsAfterConnectionFailure()
+    {
+        driver.lease( harness, null );
+
+        failure = new UndeclaredThrowableException( new IOException( "Connection refused" ) );
+
+        try
+        {
+            driver.remote().echo( "hello" );
+
+            fail( "expected failure" );
+        }
+        catch ( UndeclaredThrowableException e )
+        {
+            assertTrue( e == failure );
+        }
+
+        // the next call doesn't go to the dead connection
+        try
+        {
+            driver.remote();
+
+            fail( "expected failure" );
+        }
+        catch ( GuiDriverException e )
+        {
+            assertTrue( e.getMessage().contains( "Failed to obtain MBean" ) );
+        }
+
+        assertEquals( 1, calls.get() );
+    }
+}
@@ -0,0 +1,102 @@
+package com.brentcroft.gtd.driver.client;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.List;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class AppCdsTest
+{
+    private final AppCds cds = new AppCds();
+
+    public AppCdsTest() throws Exception
+    {
+        cds.setDirectory( Files.createTempDirectory( "cds" ).toFile() );
+    }
+
+    @Test
+    public void keyDependsOnEveryPart()
+    {
+        assertEquals( AppCds.key( "java", "-Xmx1g", "a.jar" ), AppCds.key( "java", "-Xmx1g", "a.jar" ) );
+        assertEquals( 64, AppCds.key( "java" ).length() );
+
+        assertFalse( AppCds.key( "java", "-Xmx1g", "a.jar" ).equals( AppCds.key( "java", "-Xmx2g", "a.jar" ) ) );
+        assertFalse( AppCds.key( "ab", "c" ).equals( AppCds.key( "a", "bc" ) ) );
+    }
+
+    @Test
+    public void keyIgnoresSystemProperties()
+    {
+        final String a = JmxPorts.withJmxPort( "-Xmx1g -Dapp.mode=test", 40001 );
+        final String b = JmxPorts.withJmxPort( "-Xmx1g -Dapp.mode=test", 40002 );
+
+        assertEquals( "-Xmx1g", AppCds.keyOptions( a ) );
+        assertEquals(
+                AppCds.key( "java", AppCds.keyOptions( a ), "a.jar" ),
+                AppCds.key( "java", AppCds.keyOptions( b ), "a.jar" ) );
+
+        assertFalse( AppCds.keyOptions( a ).equals( AppCds.keyOptions( "-Xmx2g" ) ) );
+    }
+
+    @Test
+    public void recordsOnceThenUsesArchive() throws Exception
+    {
+        final String key = AppCds.key( "test" );
+
+        List< String > first = cds.options( key, "java", ".", null );
+
+        assertEquals( 1, first.size() );
+        assertTrue( first.get( 0 ).startsWith( "-XX:ArchiveClassesAtExit=" ) );
+
+        // another launch while the first is recording
+        assertTrue( cds.options( key, "java", ".", null ).isEmpty() );
+
+        Files.write( cds.getArchive( key ).toPath(), new byte[]{ 1 } );
+
+        // not used until the recording launch has ended
+        assertFalse( cds.hasArchive( key ) );
+        assertTrue( cds.options( key, "java", ".", null ).isEmpty() );
+
+        cds.recorded( key );
+
+        List< String > later = cds.options( key, "java", ".", null );
+
+        assertEquals( "-XX:SharedArchiveFile=" + cds.getArchive( key ).getAbsolutePath(), later.get( 0 ) );
+    }
+
+    @Test
+    public void doesNotDumpPartialClassList() throws Exception
+    {
+        final String key = AppCds.key( "classlist" );
+
+        cds.setMode( AppCds.Mode.CLASSLIST );
+
+        assertTrue( cds.options( key, "java", ".", null ).get( 0 ).startsWith( "-XX:DumpLoadedClassList=" ) );
+
+        // the recording JVM is still writing the list
+        Files.write( cds.getClassList( key ).toPath(), "java/lang/Object\n".getBytes( "UTF-8" ) );
+
+        assertTrue( cds.isRecording( key ) );
+        assertTrue( cds.options( key, "java", ".", null ).isEmpty() );
+        assertFalse( new File( cds.getDirectory(), key + ".dump.log" ).exists() );
+    }
+
+    @Test
+    public void reportsTimeSaved()
+    {
+        final String key = AppCds.key( "timing" );
+
+        assertEquals( 0, cds.recordStartup( key, false, 9000 ) );
+
+        // the first baseline is kept
+        assertEquals( 0, cds.recordStartup( key, false, 12000 ) );
+
+        assertEquals( 3000, cds.recordStartup( key, true, 6000 ) );
+
+        assertTrue( new File( cds.getDirectory(), key + ".properties" ).isFile() );
+    }
+}
@@ -0,0 +1,94 @@
+package com.brentcroft.gtd.driver.client;
+
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class CircuitBreakerTest
+{
+    private final AtomicLong now = new AtomicLong( 1000000 );
+
+    private final CircuitBreaker breaker = new CircuitBreaker( now::get );
+
+    @Test
+    public void opensAfterThresholdFailures()
+    {
+        breaker.setFailureThreshold( 2 );
+
+        assertTrue( breaker.allowRequest() );
+        breaker.recordFailure();
+
+        assertEquals( CircuitBreaker.State.CLOSED, breaker.getState() );
+        assertTrue( breaker.allowRequest() );
+        breaker.recordFailure();
+
+        assertEquals( CircuitBreaker.State.OPEN, breaker.getState() );
+        assertFalse( breaker.allowRequest() );
+        assertEquals( 1000, breaker.getRemainingMillis() );
+        assertEquals( 1, breaker.getRefused() );
+    }
+
+    @Test
+    public void halfOpenTrialDoublesBackoffOnFailure()
+    {
+        breaker.setFailureThreshold( 1 );
+
+        breaker.allowRequest();
+        breaker.recordFailure();
+
+        now.addAndGet( 999 );
+        assertFalse( breaker.allowRequest() );
+
+        now.addAndGet( 1 );
+        assertTrue( breaker.allowRequest() );
+        assertEquals( CircuitBreaker.State.HALF_OPEN, breaker.getState() );
+
+        // only one trial at a time
+        assertFalse( breaker.allowRequest() );
+
+        breaker.recordFailure();
+
+        assertEquals( CircuitBreaker.State.OPEN, breaker.getState() );
+        assertEquals( 2000, breaker.getRemainingMillis() );
+        assertEquals( 2, breaker.getOpened() );
+    }
+
+    @Test
+    public void backoffIsCapped()
+    {
+        breaker.setFailureThreshold( 1 );
+        breaker.setMaxBackoffMillis( 3000 );
+
+        for ( int i = 0; i < 5; i++ )
+        {
+            now.addAndGet( breaker.getRemainingMillis() );
+
+            assertTrue( breaker.allowRequest() );
+            breaker.recordFailure();
+        }
+
+        assertEquals( 3000, breaker.getRemainingMillis() );
+    }
+
+    @Test
+    public void successCloses()
+    {
+        breaker.setFailureThreshold( 1 );
+
+        breaker.allowRequest();
+        breaker.recordFailure();
+
+        now.addAndGet( 1000 );
+
+        assertTrue( breaker.allowRequest() );
+        breaker.recordSuccess();
+
+        assertEquals( CircuitBreaker.State.CLOSED, breaker.getState() );
+        assertEquals( 0, breaker.getFailures() );
+        assertEquals( 0, breaker.getRemainingMillis() );
+        assertTrue( breaker.allowRequest() );
+    }
+}
@@ -0,0 +1,143 @@
+package com.brentcroft.gtd.driver.client;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.After;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ExecutorGuiDriverAsyncTest
+{
+    private final List< String > calls = Collections.synchronizedList( new ArrayList<>() );
+
+    private final GuiDriverException failure = new GuiDriverException( "no such component" );
+
+    private final AtomicInteger running = new AtomicInteger();
+    private final AtomicBoolean overlapped = new AtomicBoolean();
+
+    private final GuiDriver driver = ( GuiDriver ) Proxy.newProxyInstance(
+            GuiDriver.class.getClassLoader(),
+            new Class[]{ GuiDriver.class },
+            ( proxy, method, args ) -> {
+                if ( running.incrementAndGet() > 1 )
+                {
+                    overlapped.set( true );
+                }
+
+                // give a later operation the chance to overtake
+                Thread.sleep( 5 );
+
+                calls.add( method.getName() + ":" + args[ 0 ] );
+
+                running.decrementAndGet();
+
+                if ( "missing".equals( args[ 0 ] ) )
+                {
+                    throw failure;
+                }
+
+                switch ( method.getName() )
+                {
+                    case "getText":
+                        return "text of " + args[ 0 ];
+
+                    case "exists":
+                        return true;
+
+                    default:
+                        return null;
+                }
+            } );
+
+    private final ExecutorService pool = Executors.newFixedThreadPool( 4 );
+    private final AtomicInteger executed = new AtomicInteger();
+
+    private final Executor executor = task -> {
+        executed.incrementAndGet();
+        pool.execute( task );
+    };
+
+    private final ExecutorGuiDriverAsync async = new ExecutorGuiDriverAsync( driver, executor );
+
+    @After
+    public void shutdown()
+    {
+        pool.shutdown();
+    }
+
+    @Test
+    public void completesWithDelegateResult() throws Exception
+    {
+        assertEquals( "text of a", async.getText( "a" ).get( 5, TimeUnit.SECONDS ) );
+        assertTrue( async.exists( "b" ).get( 5, TimeUnit.SECONDS ) );
+
+        async.click( "b" ).get( 5, TimeUnit.SECONDS );
+
+        assertEquals( "[getText:a, exists:b, click:b]", calls.toString() );
+    }
+
+    @Test
+    public void completesExceptionallyWhenDelegateThrows() throws Exception
+    {
+        CompletableFuture< String > future = async.getText( "missing" );
+
+        try
+        {
+            future.get( 5, TimeUnit.SECONDS );
+
+            fail( "expected failure" );
+        }
+        catch ( ExecutionException e )
+        {
+            assertTrue( e.getCause() == failure );
+        }
+
+        assertTrue( future.isCompletedExceptionally() );
+    }
+
+    @Test
+    public void runsOnSuppliedExecutor() throws Exception
+    {
+        async.getText( "a" ).get( 5, TimeUnit.SECONDS );
+        async.click( "b" ).get( 5, TimeUnit.SECONDS );
+
+        assertEquals( 2, executed.get() );
+        assertTrue( async.getExecutor() == executor );
+    }
+
+    @Test
+    public void runsOperationsOneAtATimeInOrder() throws Exception
+    {
+        List< CompletableFuture< ? > > futures = new ArrayList<>();
+
+        for ( int i = 0; i < 10; i++ )
+        {
+            futures.add( async.click( "c" + i ) );
+        }
+
+        // a failure doesn't stop the operations after it
+        futures.add( async.getText( "missing" ) );
+        futures.add( async.getText( "last" ) );
+
+        assertEquals( "text of last", futures.get( futures.size() - 1 ).get( 5, TimeUnit.SECONDS ) );
+        assertTrue( futures.get( futures.size() - 2 ).handle( ( r, e ) -> e != null ).get( 5, TimeUnit.SECONDS ) );
+
+        assertEquals( "[click:c0, click:c1, click:c2, click:c3, click:c4, click:c5, click:c6, click:c7, click:c8, click:c9, " +
+                "getText:missing, getText:last]", calls.toString() );
+        assertFalse( overlapped.get() );
+    }
+}
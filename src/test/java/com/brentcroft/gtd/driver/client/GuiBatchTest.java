@@ -0,0 +1,77 @@
+package com.brentcroft.gtd.driver.client;
+
+import com.brentcroft.gtd.driver.GuiControllerMBean;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class GuiBatchTest
+{
+    private final List< String > calls = new ArrayList<>();
+    private final List< String > relaxed = new ArrayList<>();
+
+    private final GuiLocalDriver driver = new GuiLocalDriver()
+    {
+        private final GuiControllerMBean controller = ( GuiControllerMBean ) Proxy.newProxyInstance(
+                GuiControllerMBean.class.getClassLoader(),
+                new Class[]{ GuiControllerMBean.class },
+                ( proxy, method, args ) -> {
+                    calls.add( method.getName() + ":" + args[ 0 ] );
+
+                    if ( "missing".equals( args[ 0 ] ) )
+                    {
+                        throw new GuiDriverException( "not found" );
+                    }
+
+                    return "getText".equals( method.getName() )
+                            ? "text of " + args[ 0 ]
+                            : null;
+                } );
+
+        protected GuiControllerMBean remote()
+        {
+            return controller;
+        }
+
+        protected void relax( String operation )
+        {
+            relaxed.add( operation );
+        }
+    };
+
+    @Test
+    public void runsStepsInOrderAndRelaxesOnce()
+    {
+        BatchResult result = driver.batch()
+                .setText( "a", "fred" )
+                .click( "b" )
+                .getText( "c" )
+                .run();
+
+        assertTrue( result.isSuccess() );
+        assertEquals( "[setText:a, click:b, getText:c]", calls.toString() );
+        assertEquals( "text of c", result.getResult( 2 ) );
+        assertEquals( "[batch]", relaxed.toString() );
+    }
+
+    @Test
+    public void stopsAtFirstFailure()
+    {
+        BatchResult result = driver.batch()
+                .click( "a" )
+                .click( "missing" )
+                .click( "c" )
+                .run();
+
+        assertFalse( result.isSuccess() );
+        assertEquals( 2, result.getSteps().size() );
+        assertEquals( 1, result.getFailure().getIndex() );
+        assertEquals( "[click:a, click:missing]", calls.toString() );
+        assertEquals( "[batch]", relaxed.toString() );
+    }
+}
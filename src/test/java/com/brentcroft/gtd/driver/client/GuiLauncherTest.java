@@ -1,7 +1,16 @@
 package com.brentcroft.gtd.driver.client;
 
+import com.brentcroft.gtd.driver.GuiControllerMBean;
+import java.lang.reflect.Proxy;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.junit.Test;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
 /**
  * Created by Alaric on 21/10/2016.
  */
@@ -14,4 +23,57 @@ public class GuiLauncherTest
 
     }
 
-}
\ No newline at end of file
+    @Test
+    public void probesListeningPort() throws Exception
+    {
+        final int port;
+
+        try ( ServerSocket server = new ServerSocket( 0 ) )
+        {
+            port = server.getLocalPort();
+
+            assertTrue( GuiLauncher.isListening( new InetSocketAddress( "localhost", port ), 1000 ) );
+        }
+
+        assertFalse( GuiLauncher.isListening( new InetSocketAddress( "localhost", port ), 200 ) );
+    }
+
+    @Test
+    public void failedFirstEchoesDontOpenCircuitBreaker() throws Exception
+    {
+        final AtomicInteger attempts = new AtomicInteger();
+
+        final GuiControllerMBean harness = ( GuiControllerMBean ) Proxy.newProxyInstance(
+                GuiControllerMBean.class.getClassLoader(),
+                new Class[]{ GuiControllerMBean.class },
+                ( proxy, method, args ) -> args[ 0 ] );
+
+        // like reconnect(): refused while the breaker is open, fails until the harness is up
+        final GuiLocalDriver driver = new GuiLocalDriver()
+        {
+            protected GuiControllerMBean remote()
+            {
+                if ( !circuitBreaker.allowRequest() )
+                {
+                    throw new GuiDriverException( "not reconnecting" );
+                }
+
+                if ( attempts.incrementAndGet() <= 2 )
+                {
+                    circuitBreaker.recordFailure();
+
+                    throw new GuiDriverException( "harness starting" );
+                }
+
+                circuitBreaker.recordSuccess();
+
+                return harness;
+            }
+        };
+
+        driver.setReconnectBackoff( 1, 60, 60 );
+
+        assertTrue( new GuiLauncher( driver ).isHarnessAccessible( driver, 5 ) );
+        assertEquals( 3, attempts.get() );
+    }
+}
@@ -1,10 +1,13 @@
 package com.brentcroft.gtd.driver.client;
 
+import com.brentcroft.gtd.driver.GuiControllerMBean;
 import org.junit.Test;
 
 import java.io.File;
 import java.io.FileInputStream;
+import java.lang.reflect.Proxy;
 import java.util.Properties;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.Assert.*;
 
@@ -28,4 +31,37 @@ public class GuiLocalDriverTest
 
         System.out.println( driver );
     }
-}
\ No newline at end of file
+
+    @Test
+    public void waitsForNoPathsAtOnce() throws Exception
+    {
+        final AtomicInteger calls = new AtomicInteger();
+
+        GuiLocalDriver driver = new GuiLocalDriver()
+        {
+            private final GuiControllerMBean controller = ( GuiControllerMBean ) Proxy.newProxyInstance(
+                    GuiControllerMBean.class.getClassLoader(),
+                    new Class[]{ GuiControllerMBean.class },
+                    ( proxy, method, args ) -> {
+                        calls.incrementAndGet();
+
+                        return new boolean[ 0 ];
+                    } );
+
+            protected GuiControllerMBean remote()
+            {
+                return controller;
+            }
+        };
+
+        long started = System.currentTimeMillis();
+
+        WaitResult any = driver.waitForAny( 10 );
+        WaitResult all = driver.waitForAll( 10 );
+
+        assertTrue( System.currentTimeMillis() - started < 5000 );
+        assertFalse( any.anyMatched() );
+        assertTrue( all.allMatched() );
+        assertEquals( 0, calls.get() );
+    }
+}
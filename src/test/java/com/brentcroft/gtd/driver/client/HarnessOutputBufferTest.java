@@ -0,0 +1,80 @@
+package com.brentcroft.gtd.driver.client;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class HarnessOutputBufferTest
+{
+    private final HarnessOutputBuffer buffer = new HarnessOutputBuffer( 8, StandardCharsets.UTF_8 );
+
+    private void write( String text )
+    {
+        byte[] bytes = text.getBytes( StandardCharsets.UTF_8 );
+
+        buffer.write( bytes, 0, bytes.length );
+    }
+
+    @Test
+    public void keepsMostRecentBytes()
+    {
+        write( "abc" );
+        assertEquals( "abc", buffer.getText() );
+
+        write( "defgh" );
+        assertEquals( "abcdefgh", buffer.getText() );
+
+        write( "ij" );
+        assertEquals( "cdefghij", buffer.getText() );
+        assertEquals( "hij", buffer.getText( 3 ) );
+
+        write( "0123456789" );
+        assertEquals( "23456789", buffer.getText() );
+        assertEquals( 20, buffer.getWritten() );
+    }
+
+    @Test
+    public void doesNotStartPartWayThroughCharacter()
+    {
+        write( "abcdef\u00e9" );
+
+        // the last 8 bytes start with "bcdef"; the last 2 bytes are the whole character
+        assertEquals( "\u00e9", buffer.getText( 2 ) );
+        assertEquals( "", buffer.getText( 1 ) );
+    }
+
+    @Test
+    public void firesMarkerOnceAcrossWrites()
+    {
+        final AtomicInteger fired = new AtomicInteger();
+
+        buffer.setMarker( "READY", fired::incrementAndGet );
+
+        write( "starting RE" );
+        assertFalse( buffer.isMarked() );
+
+        write( "REA" );
+        write( "DY\n" );
+
+        assertTrue( buffer.isMarked() );
+        assertEquals( 1, fired.get() );
+
+        write( "READY" );
+        assertEquals( 1, fired.get() );
+    }
+
+    @Test
+    public void capturesNothingWhenEmpty()
+    {
+        HarnessOutputBuffer none = new HarnessOutputBuffer( 0 );
+
+        none.write( new byte[]{ 1, 2, 3 }, 0, 3 );
+
+        assertEquals( "", none.getText() );
+        assertEquals( 3, none.getWritten() );
+    }
+}
@@ -0,0 +1,42 @@
+package com.brentcroft.gtd.driver.client;
+
+import java.util.Arrays;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class JmxPortsTest
+{
+    @Test
+    public void allocatesDistinctPorts()
+    {
+        int[] ports = JmxPorts.allocate( 8 );
+
+        assertEquals( 8, ports.length );
+        assertEquals( 8, Arrays.stream( ports ).distinct().count() );
+        assertTrue( Arrays.stream( ports ).allMatch( p -> p > 0 ) );
+    }
+
+    @Test
+    public void replacesPortOptions()
+    {
+        assertEquals(
+                "-Xmx256m -Dcom.sun.management.jmxremote.ssl=false -Dcom.sun.management.jmxremote.port=12345"
+                        + " -Dcom.sun.management.jmxremote.authenticate=false",
+                JmxPorts.withJmxPort(
+                        "-Xmx256m -Dcom.sun.management.jmxremote.port=9999 -Dcom.sun.management.jmxremote.ssl=false",
+                        12345 ) );
+
+        assertEquals(
+                "-Dcom.sun.management.jmxremote.port=1 -Dcom.sun.management.jmxremote.authenticate=false"
+                        + " -Dcom.sun.management.jmxremote.ssl=false",
+                JmxPorts.withJmxPort( null, 1 ) );
+    }
+
+    @Test
+    public void buildsUrl()
+    {
+        assertEquals( "service:jmx:rmi:///jndi/rmi://:4321/jmxrmi", JmxPorts.toJmxRmiUrl( 4321 ) );
+    }
+}
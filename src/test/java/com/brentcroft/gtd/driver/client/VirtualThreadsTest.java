@@ -0,0 +1,68 @@
+package com.brentcroft.gtd.driver.client;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class VirtualThreadsTest
+{
+    private static boolean isVirtual( Thread thread ) throws Exception
+    {
+        if ( !VirtualThreads.isAvailable() )
+        {
+            return false;
+        }
+
+        Method isVirtual = Thread.class.getMethod( "isVirtual" );
+
+        return ( Boolean ) isVirtual.invoke( thread );
+    }
+
+    @Test
+    public void factoryMakesVirtualThreadsWhenAvailable() throws Exception
+    {
+        Thread thread = VirtualThreads.newThreadFactory( "test-" ).newThread( () -> {
+        } );
+
+        assertEquals( "test-0", thread.getName() );
+
+        if ( VirtualThreads.isAvailable() )
+        {
+            assertTrue( isVirtual( thread ) );
+        }
+        else
+        {
+            assertTrue( thread.isDaemon() );
+        }
+    }
+
+    @Test
+    public void executorRunsOnVirtualThreadsWhenAvailable() throws Exception
+    {
+        ExecutorService executor = VirtualThreads.newExecutor( "test-", 2 );
+
+        try
+        {
+            Future< Thread > future = executor.submit( Thread::currentThread );
+
+            Thread thread = future.get( 5, TimeUnit.SECONDS );
+
+            assertTrue( thread.getName().startsWith( "test-" ) );
+            assertEquals( VirtualThreads.isAvailable(), isVirtual( thread ) );
+
+            if ( !VirtualThreads.isAvailable() )
+            {
+                assertTrue( thread.isDaemon() );
+            }
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package com.brentcroft.gtd.driver.client;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class WarmStandbyPoolTest
+{
+    private final AtomicInteger starts = new AtomicInteger();
+    private final AtomicInteger stops = new AtomicInteger();
+
+    private class FakeSession extends GuiLocalSession
+    {
+        @Override
+        public void start()
+        {
+            starts.incrementAndGet();
+            changeState( State.STARTED );
+        }
+
+        @Override
+        public void stop()
+        {
+            stops.incrementAndGet();
+            changeState( State.STOPPED );
+        }
+    }
+
+    private static void waitFor( BooleanSupplier condition ) throws InterruptedException
+    {
+        for ( int i = 0; i < 500 && !condition.getAsBoolean(); i++ )
+        {
+            Thread.sleep( 10 );
+        }
+
+        assertTrue( condition.getAsBoolean() );
+    }
+
+    @Test
+    public void acquireIsReplaced() throws Exception
+    {
+        WarmStandbyPool pool = new WarmStandbyPool( FakeSession::new );
+
+        pool.setStandby( 2 );
+        pool.start();
+
+        waitFor( () -> pool.getReady() == 2 );
+
+        GuiLocalSession first = pool.acquire( 5 );
+
+        assertEquals( GuiSession.State.STARTED, first.getState() );
+
+        waitFor( () -> pool.getReady() == 2 );
+        assertEquals( 3, starts.get() );
+
+        GuiLocalSession second = pool.recycle( first, 5 );
+
+        assertTrue( first != second );
+
+        waitFor( () -> stops.get() == 1 && pool.getReady() == 2 );
+
+        pool.close();
+
+        assertEquals( 3, stops.get() );
+        assertEquals( 0, pool.getReady() );
+    }
+
+    @Test
+    public void stopsStartingAfterConsecutiveFailures() throws Exception
+    {
+        WarmStandbyPool pool = new WarmStandbyPool( () -> {
+            starts.incrementAndGet();
+            throw new GuiDriverException( "no display" );
+        } );
+
+        pool.setMaxConsecutiveFailures( 2 );
+        pool.start();
+
+        waitFor( () -> pool.getFailed() == 2 && pool.getStarting() == 0 );
+
+        try
+        {
+            pool.acquire( 5 );
+
+            fail( "expected failure" );
+        }
+        catch ( GuiDriverException e )
+        {
+            assertTrue( e.getMessage().contains( "failing to start" ) );
+        }
+
+        assertEquals( 2, starts.get() );
+    }
+
+    @Test
+    public void stopsSessionStartedAfterClose() throws Exception
+    {
+        final CountDownLatch closed = new CountDownLatch( 1 );
+
+        WarmStandbyPool pool = new WarmStandbyPool( () -> new FakeSession()
+        {
+            @Override
+            public void start()
+            {
+                try
+                {
+                    closed.await();
+                }
+                catch ( InterruptedException e )
+                {
+                    Thread.currentThread().interrupt();
+                }
+
+                super.start();
+            }
+        } );
+
+        pool.start();
+
+        waitFor( () -> pool.getStarting() == 1 );
+
+        pool.close();
+        closed.countDown();
+
+        waitFor( () -> starts.get() == 1 && stops.get() == 1 && pool.getStarting() == 0 );
+
+        assertEquals( 0, pool.getReady() );
+
+        try
+        {
+            pool.acquire( 1 );
+
+            fail( "expected failure" );
+        }
+        catch ( GuiDriverException e )
+        {
+            assertTrue( e.getMessage().contains( "not started" ) );
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.brentcroft.gtd.driver.client.methods;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ConditionWaiterTest
+{
+    @Test
+    public void exponentialBackoffDoublesUpToMaximum()
+    {
+        long delay = 0;
+
+        List< Long > delays = new ArrayList<>();
+
+        for ( int i = 0; i < 6; i++ )
+        {
+            delay = Backoff.EXPONENTIAL.nextDelay( delay, 50, 1000 );
+            delays.add( delay );
+        }
+
+        assertEquals( "[50, 100, 200, 400, 800, 1000]", delays.toString() );
+    }
+
+    @Test
+    public void jitteredBackoffStaysInRange()
+    {
+        long delay = 0;
+
+        for ( int i = 0; i < 100; i++ )
+        {
+            delay = Backoff.JITTERED.nextDelay( delay, 50, 1000 );
+
+            assertTrue( "" + delay, delay >= 50 && delay <= 1000 );
+        }
+    }
+
+    @Test
+    public void probesUntilSatisfied()
+    {
+        int[] count = { 0 };
+
+        ConditionWaiter waiter = new ConditionWaiter()
+                .withTimeoutMillis( 5000 )
+                .withBackoff( Backoff.FIXED )
+                .withInitialDelayMillis( 1 );
+
+        Integer value = waiter.until(
+                remaining -> {
+                    assertTrue( remaining > 0 && remaining <= 5 );
+                    return ++count[ 0 ];
+                },
+                v -> v == 3,
+                v -> "never" );
+
+        assertEquals( 3, ( long ) value );
+        assertEquals( 3, waiter.getProbes() );
+    }
+
+    @Test
+    public void failsAfterDeadlineWithLastValue()
+    {
+        try
+        {
+            new ConditionWaiter()
+                    .withTimeoutMillis( 50 )
+                    .withInitialDelayMillis( 5 )
+                    .until(
+                            remaining -> "x",
+                            v -> false,
+                            v -> "last value " + v );
+
+            fail( "expected timeout" );
+        }
+        catch ( RuntimeException e )
+        {
+            assertEquals( "last value x", e.getMessage() );
+        }
+    }
+}
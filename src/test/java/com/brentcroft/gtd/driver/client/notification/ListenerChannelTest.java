@@ -0,0 +1,148 @@
+package com.brentcroft.gtd.driver.client.notification;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import javax.management.Notification;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ListenerChannelTest
+{
+    // runs delivery tasks when told to
+    private static class ManualExecutor implements Executor
+    {
+        final List< Runnable > tasks = new ArrayList<>();
+
+        public void execute( Runnable task )
+        {
+            tasks.add( task );
+        }
+
+        void runAll()
+        {
+            while ( !tasks.isEmpty() )
+            {
+                tasks.remove( 0 ).run();
+            }
+        }
+    }
+
+    private static List< String > deliver( ManualExecutor executor, List< String > received )
+    {
+        executor.runAll();
+        return received;
+    }
+
+    @Test
+    public void dropOldestKeepsNewest()
+    {
+        List< String > received = new ArrayList<>();
+        ManualExecutor executor = new ManualExecutor();
+
+        ListenerChannel channel = new ListenerChannel(
+                ( n, h ) -> received.add( n.getType() + n.getSequenceNumber() ),
+                OverflowPolicy.DROP_OLDEST, 3, executor );
+
+        for ( int i = 0; i < 5; i++ )
+        {
+            channel.offer( new Notification( "t", "s", i ) );
+        }
+
+        assertEquals( "[t2, t3, t4]", deliver( executor, received ).toString() );
+        assertEquals( 2, channel.getDropped() );
+        assertEquals( 3, channel.getDelivered() );
+    }
+
+    @Test
+    public void coalesceKeepsLatestOfEachType()
+    {
+        List< String > received = new ArrayList<>();
+        ManualExecutor executor = new ManualExecutor();
+
+        ListenerChannel channel = new ListenerChannel(
+                ( n, h ) -> received.add( n.getType() + n.getSequenceNumber() ),
+                OverflowPolicy.COALESCE_BY_TYPE, 10, executor );
+
+        channel.offer( new Notification( "a", "s", 1 ) );
+        channel.offer( new Notification( "b", "s", 2 ) );
+        channel.offer( new Notification( "a", "s", 3 ) );
+        channel.offer( new Notification( "a", "s", 4 ) );
+
+        assertEquals( "[a4, b2]", deliver( executor, received ).toString() );
+        assertEquals( 2, channel.getCoalesced() );
+
+        // nothing pending, so no coalescing
+        channel.offer( new Notification( "a", "s", 5 ) );
+
+        assertEquals( "[a4, b2, a5]", deliver( executor, received ).toString() );
+    }
+
+    @Test
+    public void slowListenerDoesNotHoldUpOthers() throws Exception
+    {
+        CountDownLatch release = new CountDownLatch( 1 );
+        CountDownLatch fastDone = new CountDownLatch( 100 );
+
+        ListenerChannel slow = new ListenerChannel( ( n, h ) -> {
+            try
+            {
+                release.await();
+            }
+            catch ( InterruptedException e )
+            {
+                Thread.currentThread().interrupt();
+            }
+        }, OverflowPolicy.DROP_OLDEST, 10, null );
+
+        ListenerChannel fast = new ListenerChannel( ( n, h ) -> fastDone.countDown(), OverflowPolicy.BLOCK, 1000, null );
+
+        for ( int i = 0; i < 100; i++ )
+        {
+            Notification n = new Notification( "t", "s", i );
+
+            slow.offer( n );
+            fast.offer( n );
+        }
+
+        assertTrue( fastDone.await( 10, TimeUnit.SECONDS ) );
+        assertTrue( slow.getDropped() > 0 );
+        assertTrue( slow.getLagNanos() > 0 );
+
+        release.countDown();
+    }
+
+    @Test
+    public void blockGivesUpAndDropsOldest()
+    {
+        // nothing is delivered, so the queue stays full
+        ManualExecutor executor = new ManualExecutor();
+
+        ListenerChannel channel = new ListenerChannel( ( n, h ) -> {
+        }, OverflowPolicy.BLOCK, 1, executor );
+
+        channel.offer( new Notification( "t", "s", 0 ) );
+
+        long started = System.currentTimeMillis();
+
+        channel.offer( new Notification( "t", "s", 1 ) );
+
+        long waited = System.currentTimeMillis() - started;
+
+        assertTrue( waited >= ListenerChannel.MAX_BLOCK_MILLIS - 50 );
+        assertTrue( waited < ListenerChannel.MAX_BLOCK_MILLIS * 3 );
+        assertEquals( 1, channel.getDropped() );
+        assertEquals( 1, channel.getQueueDepth() );
+    }
+
+    @Test
+    public void dropsOldestByDefault()
+    {
+        assertEquals( OverflowPolicy.DROP_OLDEST, new ListenerChannel( ( n, h ) -> {
+        }, null, 1, new ManualExecutor() ).getPolicy() );
+    }
+}
@@ -0,0 +1,168 @@
+package com.brentcroft.gtd.driver.client.notification;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import javax.management.Notification;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class NotificationDispatcherTest
+{
+    @Test
+    public void deliversEveryProducersNotificationsInOrder() throws Exception
+    {
+        final int producers = 4;
+        final int each = 10000;
+
+        final List< Notification > received = new ArrayList<>();
+        final CountDownLatch done = new CountDownLatch( producers * each );
+
+        NotificationDispatcher dispatcher = new NotificationDispatcher( "test", 64, 16, batch -> {
+            assertTrue( batch.size() <= 16 );
+            received.addAll( batch );
+            batch.forEach( n -> done.countDown() );
+        } );
+
+        List< Thread > threads = new ArrayList<>();
+
+        for ( int p = 0; p < producers; p++ )
+        {
+            final String type = "p" + p;
+
+            threads.add( new Thread( () -> {
+                for ( int i = 0; i < each; i++ )
+                {
+                    // retry until there's room
+                    while ( !dispatcher.publish( new Notification( type, "source", i ) ) )
+                    {
+                        Thread.yield();
+                    }
+                }
+            } ) );
+        }
+
+        threads.forEach( Thread::start );
+
+        assertTrue( done.await( 30, TimeUnit.SECONDS ) );
+
+        long[] last = new long[ producers ];
+
+        for ( Notification n : received )
+        {
+            int p = Integer.parseInt( n.getType().substring( 1 ) );
+
+            assertEquals( last[ p ], n.getSequenceNumber() );
+
+            last[ p ]++;
+        }
+
+        assertEquals( producers * each, dispatcher.getDelivered() );
+        assertEquals( 0, dispatcher.getQueueDepth() );
+    }
+
+    @Test
+    public void sharedExecutorKeepsEachDispatchersOrder() throws Exception
+    {
+        final int dispatchers = 20;
+        final int each = 2000;
+
+        final CountDownLatch done = new CountDownLatch( dispatchers * each );
+        final List< NotificationDispatcher > all = new ArrayList<>();
+        final long[][] last = new long[ dispatchers ][ 1 ];
+        final boolean[] inOrder = { true };
+
+        for ( int d = 0; d < dispatchers; d++ )
+        {
+            final long[] expected = last[ d ];
+
+            all.add( new NotificationDispatcher( "test-" + d, 256, 8, batch -> {
+                for ( Notification n : batch )
+                {
+                    if ( n.getSequenceNumber() != expected[ 0 ]++ )
+                    {
+                        inOrder[ 0 ] = false;
+                    }
+
+                    done.countDown();
+                }
+            }, NotificationDispatcher.getSharedExecutor() ) );
+        }
+
+        for ( int i = 0; i < each; i++ )
+        {
+            for ( NotificationDispatcher dispatcher : all )
+            {
+                while ( !dispatcher.publish( new Notification( "t", "s", i ) ) )
+                {
+                    Thread.yield();
+                }
+            }
+        }
+
+        assertTrue( done.await( 30, TimeUnit.SECONDS ) );
+        assertTrue( inOrder[ 0 ] );
+    }
+
+    @Test
+    public void dropsWhenFull() throws Exception
+    {
+        final CountDownLatch blocked = new CountDownLatch( 1 );
+        final CountDownLatch release = new CountDownLatch( 1 );
+
+        NotificationDispatcher dispatcher = new NotificationDispatcher( "test", 4, 1, batch -> {
+            blocked.countDown();
+
+            try
+            {
+                release.await();
+            }
+            catch ( InterruptedException e )
+            {
+                Thread.currentThread().interrupt();
+            }
+        } );
+
+        assertEquals( 4, dispatcher.getCapacity() );
+
+        // the first is taken by the (now blocked) consumer
+        assertTrue( dispatcher.publish( new Notification( "t", "s", 0 ) ) );
+        assertTrue( blocked.await( 5, TimeUnit.SECONDS ) );
+
+        for ( int i = 1; i <= 4; i++ )
+        {
+            assertTrue( dispatcher.publish( new Notification( "t", "s", i ) ) );
+        }
+
+        assertFalse( dispatcher.publish( new Notification( "t", "s", 5 ) ) );
+        assertEquals( 1, dispatcher.getDropped() );
+        assertEquals( 4, dispatcher.getQueueDepth() );
+
+        release.countDown();
+    }
+
+    @Test
+    public void closeEndsConsumerAndDropsLaterNotifications() throws Exception
+    {
+        final CountDownLatch delivered = new CountDownLatch( 1 );
+
+        NotificationDispatcher dispatcher = new NotificationDispatcher( "close-test", 16, 4, batch -> delivered.countDown() );
+
+        assertTrue( dispatcher.publish( new Notification( "t", "source", 0 ) ) );
+        assertTrue( delivered.await( 5, TimeUnit.SECONDS ) );
+
+        dispatcher.close();
+
+        assertFalse( Thread.getAllStackTraces()
+                .keySet()
+                .stream()
+                .anyMatch( t -> "close-test".equals( t.getName() ) && t.isAlive() ) );
+
+        assertFalse( dispatcher.publish( new Notification( "t", "source", 1 ) ) );
+        assertEquals( 1, dispatcher.getDropped() );
+    }
+}
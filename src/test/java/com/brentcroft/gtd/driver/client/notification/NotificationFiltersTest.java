@@ -0,0 +1,44 @@
+package com.brentcroft.gtd.driver.client.notification;
+
+import java.util.Arrays;
+import javax.management.Notification;
+import javax.management.NotificationFilterSupport;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class NotificationFiltersTest
+{
+    @Test
+    public void unionAbsorbsLongerPrefixes()
+    {
+        assertEquals(
+                "[awt, fx.]",
+                NotificationFilters.union( Arrays.asList(
+                        new String[]{ "awt.focus", "fx." },
+                        new String[]{ "awt" } ) ).toString() );
+    }
+
+    @Test
+    public void unionIsNullIfAnyoneWantsEverything()
+    {
+        assertNull( NotificationFilters.union( Arrays.asList( new String[]{ "awt" }, null ) ) );
+    }
+
+    @Test
+    public void filterEnablesOnlyWantedTypes()
+    {
+        NotificationFilterSupport filter = NotificationFilters.newFilter(
+                NotificationFilters.union( Arrays.< String[] >asList( new String[]{ "awt." } ) ) );
+
+        assertTrue( filter.isNotificationEnabled( new Notification( "awt.click", "s", 0 ) ) );
+        assertFalse( filter.isNotificationEnabled( new Notification( "fx.click", "s", 0 ) ) );
+
+        // nothing wanted
+        assertFalse( NotificationFilters.newFilter( NotificationFilters.union( Arrays.asList() ) )
+                .isNotificationEnabled( new Notification( "awt.click", "s", 0 ) ) );
+    }
+}
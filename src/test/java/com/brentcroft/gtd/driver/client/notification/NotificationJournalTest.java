@@ -0,0 +1,116 @@
+package com.brentcroft.gtd.driver.client.notification;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import javax.management.Notification;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class NotificationJournalTest
+{
+    private static Path newJournalFile() throws Exception
+    {
+        File file = File.createTempFile( "notifications", ".journal" );
+
+        file.deleteOnExit();
+
+        // let the journal create it
+        file.delete();
+
+        return file.toPath();
+    }
+
+    private static List< Notification > replay( Path path ) throws Exception
+    {
+        List< Notification > replayed = new ArrayList<>();
+
+        NotificationJournal.replay( path, ( n, h ) -> replayed.add( n ) );
+
+        return replayed;
+    }
+
+    @Test
+    public void replaysWhatWasRecorded() throws Exception
+    {
+        Path path = newJournalFile();
+
+        try ( NotificationJournal journal = new NotificationJournal( path, 4096 ) )
+        {
+            journal.record( new Notification( "awt.click", "harness", 1, 1000, "button \u00e9" ) );
+            journal.record( new Notification( "fx.focus", "harness", 2, 2000, null ) );
+        }
+
+        List< Notification > replayed = replay( path );
+
+        assertEquals( 2, replayed.size() );
+
+        Notification n = replayed.get( 0 );
+
+        assertEquals( "awt.click", n.getType() );
+        assertEquals( 1, n.getSequenceNumber() );
+        assertEquals( 1000, n.getTimeStamp() );
+        assertEquals( "button \u00e9", n.getMessage() );
+        assertEquals( path.toString(), n.getSource() );
+
+        assertEquals( "fx.focus", replayed.get( 1 ).getType() );
+        assertNull( replayed.get( 1 ).getMessage() );
+    }
+
+    @Test
+    public void keepsTheNewestWhenItWraps() throws Exception
+    {
+        Path path = newJournalFile();
+
+        final int total = 1000;
+
+        try ( NotificationJournal journal = new NotificationJournal( path, 2048 ) )
+        {
+            for ( int i = 0; i < total; i++ )
+            {
+                journal.record( new Notification( "t" + ( i % 7 ), "harness", i, i, "message " + i ) );
+            }
+
+            assertEquals( total, journal.getRecorded() );
+        }
+
+        List< Notification > replayed = replay( path );
+
+        assertTrue( replayed.size() > 10 && replayed.size() < total );
+
+        // the newest, in order, with none missing
+        long expected = total - replayed.size();
+
+        for ( Notification n : replayed )
+        {
+            assertEquals( expected, n.getSequenceNumber() );
+            assertEquals( "message " + expected, n.getMessage() );
+
+            expected++;
+        }
+    }
+
+    @Test
+    public void continuesAnExistingJournal() throws Exception
+    {
+        Path path = newJournalFile();
+
+        try ( NotificationJournal journal = new NotificationJournal( path, 4096 ) )
+        {
+            journal.record( new Notification( "a", "harness", 1, 1, "one" ) );
+        }
+
+        try ( NotificationJournal journal = new NotificationJournal( path, 4096 ) )
+        {
+            journal.record( new Notification( "b", "harness", 2, 2, "two" ) );
+
+            assertEquals( 2, journal.getCount() );
+        }
+
+        assertEquals( 2, replay( path ).size() );
+    }
+}
@@ -0,0 +1,114 @@
+package com.brentcroft.gtd.driver.client.notification;
+
+import com.brentcroft.gtd.driver.client.GuiDriver;
+import java.lang.reflect.Proxy;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import javax.management.Notification;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class NotificationPublisherTest
+{
+    private final List< String > calls = new CopyOnWriteArrayList<>();
+
+    private final GuiDriver driver = ( GuiDriver ) Proxy.newProxyInstance(
+            GuiDriver.class.getClassLoader(),
+            new Class[]{ GuiDriver.class },
+            ( proxy, method, args ) -> {
+                calls.add( method.getName() );
+                return null;
+            } );
+
+    private static void await( long timeoutMillis, BooleanSupplier condition ) throws InterruptedException
+    {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+
+        while ( !condition.getAsBoolean() && System.currentTimeMillis() < deadline )
+        {
+            Thread.sleep( 5 );
+        }
+
+        assertTrue( condition.getAsBoolean() );
+    }
+
+    @Test
+    public void deliversNoMoreThanRequested() throws Exception
+    {
+        NotificationPublisher publisher = new NotificationPublisher( driver, 100 );
+
+        List< Long > received = new CopyOnWriteArrayList<>();
+        NotificationFlow.Subscription[] subscription = { null };
+
+        publisher.subscribe( new NotificationFlow.Subscriber< Notification >()
+        {
+            public void onSubscribe( NotificationFlow.Subscription s )
+            {
+                subscription[ 0 ] = s;
+                s.request( 2 );
+            }
+
+            public void onNext( Notification item )
+            {
+                received.add( item.getSequenceNumber() );
+            }
+
+            public void onError( Throwable throwable )
+            {
+            }
+
+            public void onComplete()
+            {
+            }
+        } );
+
+        assertEquals( "[addNotificationListener]", calls.toString() );
+
+        await( 5000, () -> subscription[ 0 ] != null );
+
+        for ( int i = 0; i < 5; i++ )
+        {
+            publisher.handleNotification( new Notification( "t", "s", i ), null );
+        }
+
+        await( 5000, () -> received.size() == 2 );
+
+        Thread.sleep( 50 );
+
+        assertEquals( "[0, 1]", received.toString() );
+
+        subscription[ 0 ].request( 10 );
+
+        await( 5000, () -> received.size() == 5 );
+
+        subscription[ 0 ].cancel();
+
+        assertEquals( "[addNotificationListener, removeNotificationListener]", calls.toString() );
+    }
+
+    @Test
+    public void awaitsFirstMatchingTypedNotification() throws Exception
+    {
+        NotificationPublisher publisher = new NotificationPublisher( driver, 100 );
+
+        CompletableFuture< Notification > future = NotificationFlow.first(
+                publisher.ofType( "awt." ),
+                n -> "Exit".equals( n.getMessage() ) );
+
+        await( 5000, () -> publisher.getSubscriberCount() == 1 );
+
+        publisher.handleNotification( new Notification( "fx.click", "s", 1, "Exit" ), null );
+        publisher.handleNotification( new Notification( "awt.click", "s", 2, "Open" ), null );
+        publisher.handleNotification( new Notification( "awt.click", "s", 3, "Exit" ), null );
+
+        assertEquals( 3, future.get( 5, TimeUnit.SECONDS ).getSequenceNumber() );
+
+        // the subscription is cancelled once satisfied
+        await( 5000, () -> publisher.getSubscriberCount() == 0 );
+    }
+}
@@ -0,0 +1,85 @@
+package com.brentcroft.gtd.driver.client.snapshot;
+
+import java.io.StringReader;
+import java.util.Arrays;
+import java.util.HashSet;
+import javax.xml.namespace.QName;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.xpath.XPathConstants;
+import javax.xml.xpath.XPathFactory;
+import org.junit.Test;
+import org.w3c.dom.Document;
+import org.xml.sax.InputSource;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Checks index evaluation gives the same results as XPath evaluation.
+ */
+public class SnapshotIndexTest
+{
+    private static final String SNAPSHOT = "<snapshot>" +
+            "<JFrame title='Main'>" +
+            "<JMenu text='File'><JMenuItem text='Open'/><JMenuItem text='Exit' enabled='true'/></JMenu>" +
+            "<JPanel><JMenuItem text='Exit' enabled='false'>again</JMenuItem><TextField id='url'>http://a.b</TextField></JPanel>" +
+            "</JFrame>" +
+            "</snapshot>";
+
+    private static final String[] PATHS = {
+            "//JMenuItem[@text='Exit']",
+            "//JMenuItem[@text='Exit']/@enabled",
+            "//JMenuItem[@enabled='false' and @text='Exit']",
+            "//JMenuItem[@text='Missing']",
+            "//*[@id='url']",
+            "count(//JMenuItem[@text='Exit'])",
+            "boolean(//TextField[@id='url'])",
+            "string(//TextField[@id='url'])",
+    };
+
+    private static Document parse() throws Exception
+    {
+        return DocumentBuilderFactory
+                .newInstance()
+                .newDocumentBuilder()
+                .parse( new InputSource( new StringReader( SNAPSHOT ) ) );
+    }
+
+    @Test
+    public void matchesXPathEvaluation() throws Exception
+    {
+        Document document = parse();
+
+        SnapshotIndex.Statistics statistics = new SnapshotIndex.Statistics();
+
+        SnapshotIndex index = SnapshotIndex.build( document, new HashSet<>( Arrays.asList( "id", "text" ) ), statistics );
+
+        for ( String xpath : PATHS )
+        {
+            for ( QName returnType : new QName[]{ XPathConstants.STRING, XPathConstants.BOOLEAN } )
+            {
+                assertEquals(
+                        xpath + " as " + returnType,
+                        XPathFactory.newInstance().newXPath().compile( xpath ).evaluate( document, returnType ),
+                        index.evaluate( SimplePath.compile( xpath ), returnType, statistics ) );
+            }
+        }
+
+        assertEquals( 1, statistics.getBuilds() );
+        assertEquals( PATHS.length * 2, statistics.getHits() );
+    }
+
+    @Test
+    public void ignoresIneligiblePaths() throws Exception
+    {
+        SnapshotIndex.Statistics statistics = new SnapshotIndex.Statistics();
+
+        SnapshotIndex index = SnapshotIndex.build( parse(), new HashSet<>( Arrays.asList( "id", "text" ) ), statistics );
+
+        assertNull( index.evaluate( SimplePath.compile( "//JMenuItem[@enabled='true']" ), XPathConstants.STRING, statistics ) );
+        assertNull( index.evaluate( SimplePath.compile( "//JMenu/JMenuItem[@text='Exit']" ), XPathConstants.STRING, statistics ) );
+        assertNull( index.evaluate( SimplePath.compile( "//JMenuItem[@text='Exit'][2]" ), XPathConstants.STRING, statistics ) );
+
+        assertEquals( 3, statistics.getMisses() );
+    }
+}
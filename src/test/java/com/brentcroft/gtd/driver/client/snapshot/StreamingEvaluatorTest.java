@@ -0,0 +1,120 @@
+package com.brentcroft.gtd.driver.client.snapshot;
+
+import java.io.StringReader;
+import javax.xml.namespace.QName;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.xpath.XPathConstants;
+import javax.xml.xpath.XPathFactory;
+import org.junit.Test;
+import org.w3c.dom.Document;
+import org.xml.sax.InputSource;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Checks streaming evaluation gives the same results as DOM evaluation.
+ */
+public class StreamingEvaluatorTest
+{
+    private static final String SNAPSHOT = "<snapshot>" +
+            "<JFrame title='Main'>" +
+            "<JMenuBar>" +
+            "<JMenu text='File'><JMenuItem text='Open'/><JMenuItem text='Exit' enabled='true'/></JMenu>" +
+            "<JMenu text='Edit'><JMenuItem text='Copy'/><JMenuItem text='Paste' enabled='false'/></JMenu>" +
+            "</JMenuBar>" +
+            "<BorderPane><ToolBar><TextField id='url'>http://a.b/c?d=1&amp;e=2</TextField><Button id='get'>Go</Button></ToolBar></BorderPane>" +
+            "<JPanel><JLabel>one</JLabel><JLabel>two <b>bold</b> three</JLabel></JPanel>" +
+            "</JFrame>" +
+            "</snapshot>";
+
+    private static final String[] PATHS = {
+            "//JMenuItem[@text='Exit']",
+            "//JMenuItem[ @text='Exit' ]/@enabled",
+            "//JMenuItem[@text='Missing']",
+            "//JMenu[@text='Edit']/JMenuItem[2]/@text",
+            "//JMenuItem[2]/@text",
+            "/snapshot/JFrame/@title",
+            "snapshot/JFrame/JMenuBar/JMenu[2]/@text",
+            "//JFrame//JMenuItem[@enabled='false']/@text",
+            "//JPanel/JLabel[2]",
+            "//JPanel/*[1]",
+            "descendant-or-self::BorderPane/ToolBar/TextField[ ( @id='url' ) ]",
+            "descendant-or-self::BorderPane/ToolBar/TextField[ @id='url' ]",
+            "//TextField[@id='url' and @id='url']",
+            "/descendant::JMenuItem[@text='Exit']/@enabled",
+            "count(//JMenuItem)",
+            "count(//JMenu[@text='File']/JMenuItem)",
+            "boolean(//Button[@id='get'])",
+            "boolean(//Button[@id='put'])",
+            "string(//Button[@id='get'])",
+    };
+
+    private static Object dom( String xpath, QName returnType ) throws Exception
+    {
+        Document document = DocumentBuilderFactory
+                .newInstance()
+                .newDocumentBuilder()
+                .parse( new InputSource( new StringReader( SNAPSHOT ) ) );
+
+        return XPathFactory
+                .newInstance()
+                .newXPath()
+                .compile( xpath )
+                .evaluate( document, returnType );
+    }
+
+    @Test
+    public void matchesDomEvaluation() throws Exception
+    {
+        for ( String xpath : PATHS )
+        {
+            SimplePath path = SimplePath.compile( xpath );
+
+            assertNotNull( path );
+
+            for ( QName returnType : new QName[]{ XPathConstants.STRING, XPathConstants.BOOLEAN } )
+            {
+                assertEquals(
+                        xpath + " as " + returnType,
+                        dom( xpath, returnType ),
+                        StreamingEvaluator.evaluate( path, SNAPSHOT, returnType ) );
+            }
+        }
+    }
+
+    @Test
+    public void countsAsNumbers() throws Exception
+    {
+        String xpath = "count(//JMenu/JMenuItem)";
+
+        assertEquals(
+                dom( xpath, XPathConstants.NUMBER ),
+                StreamingEvaluator.evaluate( SimplePath.compile( xpath ), SNAPSHOT, XPathConstants.NUMBER ) );
+    }
+
+    @Test
+    public void rejectsUnsupportedPaths()
+    {
+        assertNull( SimplePath.compile( "//JMenuItem[last()]" ) );
+        assertNull( SimplePath.compile( "//JMenuItem[@text!='Exit']" ) );
+        assertNull( SimplePath.compile( "//JMenuItem/text()" ) );
+        assertNull( SimplePath.compile( "//JMenuItem/.." ) );
+        assertNull( SimplePath.compile( "ancestor::JMenu" ) );
+        assertNull( SimplePath.compile( "//JMenuItem[1][@text='Open']" ) );
+        assertNull( SimplePath.compile( "//JMenuItem[ ( @text='Open' ]" ) );
+
+        assertNotNull( SimplePath.compile( "//JMenuItem[@text='Open'][1]" ) );
+    }
+
+    @Test
+    public void leavesGlobalPositionsToDom()
+    {
+        // positions on the descendant axis count over the whole document, not per parent
+        assertNull( SimplePath.compile( "/descendant::JMenuItem[2]/@text" ) );
+        assertNull( SimplePath.compile( "descendant::JMenuItem[2]/@text" ) );
+        assertNull( SimplePath.compile( "count(/descendant::JMenuItem[1])" ) );
+        assertNull( SimplePath.compile( "descendant-or-self::JMenuItem[3]" ) );
+    }
+}